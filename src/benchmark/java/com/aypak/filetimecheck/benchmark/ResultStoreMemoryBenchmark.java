@@ -0,0 +1,86 @@
+package com.aypak.filetimecheck.benchmark;
+
+import com.aypak.filetimecheck.model.FileInfo;
+import com.aypak.filetimecheck.model.FileResultList;
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.ValidationResult;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结果存储内存基准
+ * 分别用 FileInfo 列表和 FileResultStore 保存同一批合成结果，比较每行占用的堆内存
+ *
+ * 用法（mvn -Pbenchmark compile 后运行，类路径需包含 target/classes 和 JavaFX，见打包说明.md）: java com.aypak.filetimecheck.benchmark.ResultStoreMemoryBenchmark [行数]
+ * 行数较大时需要调大 -Xmx（FileInfo 每行约数百字节）
+ */
+public class ResultStoreMemoryBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        // 大目录的每行目录开销可以忽略；小目录下目录表（每个目录一条记录）占比明显
+        measure(rows, 500, "每个目录 500 个文件");
+        measure(rows, 2, "每个目录 2 个文件");
+    }
+
+    private static void measure(int rows, int filesPerDirectory, String layout) throws InterruptedException {
+        System.out.println("== " + layout);
+        long baseMillis = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+        long before = usedHeap();
+        List<FileInfo> fileInfos = new ArrayList<>(rows);
+        ZoneId zoneId = ZoneId.systemDefault();
+        for (int i = 0; i < rows; i++) {
+            long time = baseMillis + i * 1000L;
+            LocalDateTime localTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), zoneId);
+            FileInfo fileInfo = new FileInfo(path(i, filesPerDirectory), localTime, localTime.plusHours(1), localTime.plusHours(2));
+            fileInfo.setStatus(ValidationResult.NORMAL.getDisplayName());
+            fileInfos.add(fileInfo);
+        }
+        long fileInfoBytes = usedHeap() - before;
+        System.out.printf("FileInfo 列表:      %,d 行, %,d 字节, %.1f 字节/行%n",
+                fileInfos.size(), fileInfoBytes, (double) fileInfoBytes / rows);
+        fileInfos = null;
+
+        before = usedHeap();
+        FileResultList results = new FileResultList();
+        FileResultStore store = results.getStore();
+        for (int i = 0; i < rows; i++) {
+            long time = baseMillis + i * 1000L;
+            store.add(path(i, filesPerDirectory), time, time + 3_600_000L, time + 7_200_000L, ValidationResult.NORMAL.getMask());
+        }
+        store.trimToSize();
+        long storeBytes = usedHeap() - before;
+        System.out.printf("FileResultStore:   %,d 行, %,d 字节, %.1f 字节/行（%,d 个目录）%n",
+                results.size(), storeBytes, (double) storeBytes / rows, store.getPathTable().size());
+
+        long pathBytes = 0;
+        for (int i = 0; i < rows; i++) {
+            pathBytes += path(i, filesPerDirectory).length();
+        }
+        System.out.printf("内存缩减: %.1f 倍（路径文本本身约 %.1f 字节/行）%n",
+                (double) fileInfoBytes / storeBytes, (double) pathBytes / rows);
+    }
+
+    /**
+     * 合成路径：20 个项目 x 50 个模块，每个模块下的目录各有 filesPerDirectory 个文件
+     */
+    private static String path(int i, int filesPerDirectory) {
+        int directory = i / filesPerDirectory;
+        return "/data/projects/project-" + (directory / 50 % 20) + "/module-" + (directory % 50)
+                + "/src/main/resources/package-" + (directory / 1000) + "/file-" + i + ".dat";
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,145 @@
+package com.aypak.filetimecheck.benchmark;
+
+import com.aypak.filetimecheck.model.FileInfo;
+import com.aypak.filetimecheck.service.FileTreeScanner;
+import com.aypak.filetimecheck.service.ParallelFileTreeScanner;
+import com.aypak.filetimecheck.service.TimeValidationService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 扫描吞吐量基准
+ * 对比顺序扫描与不同并行度下的并行扫描，并校验两者结果集合完全一致
+ * 并行扫描按完成顺序回调（见 ConcurrentTreeScanner），因此只比较集合，不比较顺序
+ *
+ * 用法（mvn -Pbenchmark compile 后运行，类路径需包含 target/classes 和 JavaFX，见打包说明.md）: java com.aypak.filetimecheck.benchmark.ScanBenchmark &lt;目录&gt; [轮数]
+ */
+public class ScanBenchmark {
+
+    private static final TimeValidationService VALIDATION_SERVICE = new TimeValidationService();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("用法: ScanBenchmark <目录> [轮数]");
+            System.exit(2);
+        }
+
+        Path root = Paths.get(args[0]);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // 预热：填充操作系统目录缓存和 JIT
+        List<FileInfo> baseline = scanSequential(root);
+        System.out.printf("目录: %s, 文件数: %d, CPU 核心数: %d%n", root, baseline.size(), cores);
+
+        double sequentialRate = measure("顺序扫描", rounds, baseline.size(), () -> scanSequential(root));
+
+        for (int parallelism : parallelismLevels(cores)) {
+            List<FileInfo> parallelResult = scanParallel(root, parallelism);
+            if (!sameResult(baseline, parallelResult)) {
+                System.err.printf("并行度 %d 的结果与顺序扫描不一致%n", parallelism);
+                System.exit(1);
+            }
+
+            double rate = measure("并行扫描 x" + parallelism, rounds, baseline.size(),
+                    () -> scanParallel(root, parallelism));
+            System.out.printf("    加速比: %.2f%n", rate / sequentialRate);
+        }
+    }
+
+    /**
+     * 并行度序列: 1, 2, 4, ... 直到 CPU 核心数
+     */
+    private static List<Integer> parallelismLevels(int cores) {
+        List<Integer> levels = new ArrayList<>();
+        for (int p = 1; p < cores; p *= 2) {
+            levels.add(p);
+        }
+        levels.add(cores);
+        return levels;
+    }
+
+    /**
+     * 多轮测量，返回最佳吞吐量（文件/秒）
+     */
+    private static double measure(String name, int rounds, int fileCount, ScanRun run) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double rate = fileCount / (best / 1_000_000_000.0);
+        System.out.printf("%-16s 最佳耗时: %8.1f ms, 吞吐量: %,12.0f 文件/秒%n", name, best / 1_000_000.0, rate);
+        return rate;
+    }
+
+    private static List<FileInfo> scanSequential(Path root) throws IOException {
+        List<FileInfo> result = new ArrayList<>();
+        new FileTreeScanner().scan(root, collector(result));
+        return result;
+    }
+
+    private static List<FileInfo> scanParallel(Path root, int parallelism) {
+        List<FileInfo> result = Collections.synchronizedList(new ArrayList<>());
+        try (ParallelFileTreeScanner scanner = new ParallelFileTreeScanner(parallelism, () -> false)) {
+            scanner.scan(root, collector(result));
+        }
+        return result;
+    }
+
+    private static FileTreeScanner.Listener collector(List<FileInfo> result) {
+        return new FileTreeScanner.Listener() {
+            @Override
+            public void onFile(Path file, BasicFileAttributes attrs) {
+                FileInfo fileInfo = FileTreeScanner.toFileInfo(file, attrs);
+                VALIDATION_SERVICE.validateAndUpdate(fileInfo);
+                result.add(fileInfo);
+            }
+
+            @Override
+            public void onError(Path file, IOException e) {
+            }
+        };
+    }
+
+    /**
+     * 集合比较：两边按路径排序后逐行比较路径、三个时间和校验状态
+     * 并行扫描的回调顺序不固定，顺序不同不算不一致
+     */
+    private static boolean sameResult(List<FileInfo> expected, List<FileInfo> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        expected = new ArrayList<>(expected);
+        actual = new ArrayList<>(actual);
+        expected.sort(Comparator.comparing(FileInfo::getFilePath));
+        actual.sort(Comparator.comparing(FileInfo::getFilePath));
+        for (int i = 0; i < expected.size(); i++) {
+            FileInfo a = expected.get(i);
+            FileInfo b = actual.get(i);
+            if (!Objects.equals(a.getFilePath(), b.getFilePath())
+                    || !Objects.equals(a.getCreationTime(), b.getCreationTime())
+                    || !Objects.equals(a.getLastModifiedTime(), b.getLastModifiedTime())
+                    || !Objects.equals(a.getLastAccessTime(), b.getLastAccessTime())
+                    || !Objects.equals(a.getStatus(), b.getStatus())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface ScanRun {
+        void run() throws IOException;
+    }
+}
@@ -1,12 +1,37 @@
 package com.aypak.filetimecheck;
 
 import com.aypak.filetimecheck.controller.RepairConfigDialogController;
-import com.aypak.filetimecheck.model.FileInfo;
+import com.aypak.filetimecheck.model.ErrorLog;
+import com.aypak.filetimecheck.model.FileResultList;
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.FileRow;
+import com.aypak.filetimecheck.model.PathTable;
 import com.aypak.filetimecheck.model.RepairConfig;
+import com.aypak.filetimecheck.model.RuleSet;
+import com.aypak.filetimecheck.model.SamplingEstimate;
+import com.aypak.filetimecheck.model.ScanConfig;
+import com.aypak.filetimecheck.model.ScanFilter;
+import com.aypak.filetimecheck.model.SourceRootSet;
+import com.aypak.filetimecheck.model.TimeFence;
+import com.aypak.filetimecheck.model.ValidationResult;
+import com.aypak.filetimecheck.service.DirectoryWatcher;
+import com.aypak.filetimecheck.service.FileAttributeReader;
+import com.aypak.filetimecheck.service.FileAttributeReaders;
 import com.aypak.filetimecheck.service.FileScannerTask;
+import com.aypak.filetimecheck.service.FileTreeScanner;
+import com.aypak.filetimecheck.service.ProgressTask;
+import com.aypak.filetimecheck.service.ProgressTracker;
+import com.aypak.filetimecheck.service.ScanCache;
+import com.aypak.filetimecheck.service.RuleSetLoader;
+import com.aypak.filetimecheck.service.SamplingEstimator;
+import com.aypak.filetimecheck.service.ScanCheckpoint;
+import com.aypak.filetimecheck.service.ScanFilterMatcher;
 import com.aypak.filetimecheck.service.TimeRepairService;
 import com.aypak.filetimecheck.service.TimeValidationService;
+import com.aypak.filetimecheck.service.VirtualThreadFileTreeScanner;
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -22,13 +47,26 @@ import javafx.stage.FileChooser;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.IntStream;
 
 /**
  * 文件时间校验工具控制器
@@ -37,81 +75,134 @@ public class HelloController {
 
     @FXML private StackPane dropZone;
     @FXML private ListView<String> sourceListView;
-    @FXML private TableView<FileInfo> fileTable;
+    @FXML private TableView<FileRow> fileTable;
     @FXML private ProgressBar progressBar;
     @FXML private Label progressLabel;
     @FXML private Label totalLabel;
     @FXML private Label normalLabel;
     @FXML private Label abnormalLabel;
+    @FXML private Label violationsLabel;
+    @FXML private Hyperlink errorsLink;
     @FXML private Button clearButton;
     @FXML private Button reloadButton;
     @FXML private Button validateButton;
     @FXML private Button deleteButton;
+    @FXML private ChoiceBox<Integer> violationChoice;
+    @FXML private Button selectViolationsButton;
     @FXML private Button scanAllButton;
+    @FXML private Button resumeScanButton;
+    @FXML private Button estimateButton;
     @FXML private Button clearSourceButton;
     @FXML private Button repairSelectedButton;
     @FXML private Button repairAllButton;
-
-    @FXML private TableColumn<FileInfo, String> pathColumn;
-    @FXML private TableColumn<FileInfo, String> creationTimeColumn;
-    @FXML private TableColumn<FileInfo, String> modifiedTimeColumn;
-    @FXML private TableColumn<FileInfo, String> accessTimeColumn;
-    @FXML private TableColumn<FileInfo, String> statusColumn;
+    @FXML private Button cancelScanButton;
+    @FXML private Button pauseButton;
+    @FXML private ToggleButton watchToggle;
+    @FXML private ChoiceBox<ScanConfig.ScanMode> scanModeChoice;
+    @FXML private Spinner<Integer> parallelismSpinner;
+    @FXML private TextField excludeDirField;
+    @FXML private TextField extensionField;
+    @FXML private CheckBox followLinksCheck;
+    @FXML private CheckBox deduplicateCheck;
+    @FXML private CheckBox checkpointCheck;
+    @FXML private CheckBox extendedAttributesCheck;
+    @FXML private CheckBox includeDirectoriesCheck;
+    @FXML private CheckBox detectOutliersCheck;
+
+    @FXML private TableColumn<FileRow, String> pathColumn;
+    @FXML private TableColumn<FileRow, Long> creationTimeColumn;
+    @FXML private TableColumn<FileRow, Long> modifiedTimeColumn;
+    @FXML private TableColumn<FileRow, Long> accessTimeColumn;
+    @FXML private TableColumn<FileRow, String> statusColumn;
+    @FXML private TableColumn<FileRow, String> aliasesColumn;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private Task<ObservableList<FileInfo>> currentTask;
-    private List<Path> sourcePaths;
+    private Task<?> currentTask;
+    private int scanGeneration;                // 扫描批次号，用于丢弃已取消扫描迟到的结果
+    private int normalCount;
+    private int abnormalCount;
+    private final int[] violationCounts = new int[RuleSet.MAX_RULES];  // 按规则位统计违规行数
+    private SourceRootSet sourceRoots;         // 扫描源路径（已规范化，互不包含）
+    private int sourceGeneration;              // 清空源列表时递增，丢弃尚未完成的后台添加
+    private int pendingIngests;                // 正在后台规范化的添加批次数
     private ObservableList<String> sourceListItems;
     private TimeValidationService validationService;
+    private RuleSet ruleSet;                   // 校验规则（内置规则加 ~/.filetimecheck/rules.properties）
     private TimeRepairService repairService;
     private RepairConfig currentRepairConfig;  // 保存当前修复配置
+    private ScanConfig scanConfig;             // 当前扫描配置
+    private volatile DirectoryWatcher directoryWatcher; // 实时监控（未开启时为 null），监控线程中也会读取
+    private FileResultList results;            // 表格数据（列式存储）
+    private Map<String, Integer> watchIndex;   // 实时监控时按路径查找行号
+    private int watchIndexVersion;             // watchIndex 对应的存储版本，行号变化后需重建
+    private ErrorLog errorLog;                 // 本次扫描及之后修复、监控中的错误
 
     @FXML
     public void initialize() {
-        validationService = new TimeValidationService();
+        ruleSet = RuleSetLoader.loadDefault();
+        validationService = new TimeValidationService(ruleSet);
         repairService = new TimeRepairService();
-        sourcePaths = new ArrayList<>();
+        sourceRoots = new SourceRootSet();
         sourceListItems = FXCollections.observableArrayList();
         sourceListView.setItems(sourceListItems);
 
         // 设置 TableView 为多选模式
         fileTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        results = new FileResultList();
+        results.getStore().setRuleSet(ruleSet);
+        fileTable.setItems(results);
+        errorLog = new ErrorLog();
         setupTableColumns();
+        setupScanConfig();
+        setupViolationChoice();
         setupDragAndDrop();
         setupSelectionListener();
     }
 
     /**
-     * 设置表格列的数据绑定
+     * 异常类型选择：选项为规则位掩码，ALL_VIOLATIONS 表示任意异常，其余为单条规则（含自定义规则）
      */
-    private void setupTableColumns() {
-        pathColumn.setCellValueFactory(cellData -> cellData.getValue().filePathProperty());
+    private void setupViolationChoice() {
+        violationChoice.getItems().add(ValidationResult.ALL_VIOLATIONS);
+        for (int bit = 0; bit < ruleSet.size(); bit++) {
+            violationChoice.getItems().add(1 << bit);
+        }
+        violationChoice.setValue(ValidationResult.ALL_VIOLATIONS);
+        violationChoice.setConverter(new javafx.util.StringConverter<>() {
+            @Override
+            public String toString(Integer mask) {
+                return mask == null || mask == ValidationResult.ALL_VIOLATIONS ? "任意异常" : ruleSet.describe(mask);
+            }
 
-        creationTimeColumn.setCellValueFactory(cellData -> {
-            LocalDateTime time = cellData.getValue().getCreationTime();
-            return new javafx.beans.property.SimpleStringProperty(
-                    time != null ? time.format(DATE_FORMATTER) : "N/A"
-            );
+            @Override
+            public Integer fromString(String text) {
+                return null;
+            }
         });
+    }
 
-        modifiedTimeColumn.setCellValueFactory(cellData -> {
-            LocalDateTime time = cellData.getValue().getLastModifiedTime();
-            return new javafx.beans.property.SimpleStringProperty(
-                    time != null ? time.format(DATE_FORMATTER) : "N/A"
-            );
-        });
+    /**
+     * 设置表格列的数据绑定
+     */
+    private void setupTableColumns() {
+        // 目录行以路径分隔符结尾
+        pathColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().isDirectory()
+                ? cellData.getValue().getFilePath() + File.separator : cellData.getValue().getFilePath()));
 
-        accessTimeColumn.setCellValueFactory(cellData -> {
-            LocalDateTime time = cellData.getValue().getLastAccessTime();
-            return new javafx.beans.property.SimpleStringProperty(
-                    time != null ? time.format(DATE_FORMATTER) : "N/A"
-            );
-        });
+        // 时间列的值为 epoch 毫秒（按时间排序），只在单元格显示时转换为本地时间
+        creationTimeColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getCreationTime()));
+        modifiedTimeColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getLastModifiedTime()));
+        accessTimeColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().getLastAccessTime()));
+        creationTimeColumn.setCellFactory(column -> new TimeCell());
+        modifiedTimeColumn.setCellFactory(column -> new TimeCell());
+        accessTimeColumn.setCellFactory(column -> new TimeCell());
+
+        statusColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getStatus()));
 
-        statusColumn.setCellValueFactory(cellData -> cellData.getValue().statusProperty());
+        aliasesColumn.setCellValueFactory(cellData -> new SimpleStringProperty(String.join("; ", cellData.getValue().getAliases())));
 
         // 设置状态列的样式工厂
-        statusColumn.setCellFactory(column -> new TableCell<FileInfo, String>() {
+        statusColumn.setCellFactory(column -> new TableCell<FileRow, String>() {
             @Override
             protected void updateItem(String status, boolean empty) {
                 super.updateItem(status, empty);
@@ -130,6 +221,68 @@ public class HelloController {
         });
     }
 
+    /**
+     * 设置扫描模式和并行度控件
+     * 并行模式下调节工作线程数，虚拟线程模式下调节在途元数据请求上限
+     */
+    private void setupScanConfig() {
+        scanConfig = ScanConfig.createDefault();
+        scanConfig.setRuleSet(ruleSet);
+
+        for (ScanConfig.ScanMode mode : ScanConfig.ScanMode.values()) {
+            if (mode != ScanConfig.ScanMode.VIRTUAL_THREAD || VirtualThreadFileTreeScanner.isSupported()) {
+                scanModeChoice.getItems().add(mode);
+            }
+        }
+        scanModeChoice.setValue(scanConfig.getMode());
+        scanModeChoice.valueProperty().addListener((obs, old, newVal) -> {
+            scanConfig.setMode(newVal);
+            updateParallelismSpinner();
+        });
+
+        parallelismSpinner.valueProperty().addListener((obs, old, newVal) -> {
+            if (newVal == null) {
+                return;
+            }
+            if (scanConfig.getMode() == ScanConfig.ScanMode.VIRTUAL_THREAD) {
+                scanConfig.setMaxInFlight(newVal);
+            } else {
+                scanConfig.setParallelism(newVal);
+            }
+        });
+        updateParallelismSpinner();
+
+        followLinksCheck.selectedProperty().addListener((obs, old, newVal) -> scanConfig.setFollowLinks(newVal));
+        deduplicateCheck.selectedProperty().addListener((obs, old, newVal) -> scanConfig.setDeduplicate(newVal));
+        checkpointCheck.selectedProperty().addListener((obs, old, newVal) -> scanConfig.setCheckpoint(newVal));
+        extendedAttributesCheck.selectedProperty().addListener((obs, old, newVal) -> scanConfig.setExtendedAttributes(newVal));
+        includeDirectoriesCheck.selectedProperty().addListener((obs, old, newVal) -> scanConfig.setIncludeDirectories(newVal));
+        detectOutliersCheck.selectedProperty().addListener((obs, old, newVal) -> scanConfig.setDetectOutliers(newVal));
+    }
+
+    /**
+     * 根据扫描模式切换并行度控件的取值范围和当前值
+     */
+    private void updateParallelismSpinner() {
+        switch (scanConfig.getMode()) {
+            case VIRTUAL_THREAD:
+                parallelismSpinner.setValueFactory(
+                        new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 65536, scanConfig.getMaxInFlight(), 64));
+                parallelismSpinner.setDisable(false);
+                break;
+            case PARALLEL:
+                parallelismSpinner.setValueFactory(
+                        new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 256, scanConfig.getParallelism()));
+                parallelismSpinner.setDisable(false);
+                break;
+            default:
+                parallelismSpinner.setValueFactory(
+                        new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 256, scanConfig.getParallelism()));
+                parallelismSpinner.setDisable(true);
+                break;
+        }
+    }
+
     /**
      * 设置拖拽功能
      */
@@ -187,8 +340,8 @@ public class HelloController {
      * 设置表格选择监听器
      */
     private void setupSelectionListener() {
-        TableView.TableViewSelectionModel<FileInfo> selectionModel = fileTable.getSelectionModel();
-        selectionModel.getSelectedItems().addListener((ListChangeListener<FileInfo>) change -> {
+        TableView.TableViewSelectionModel<FileRow> selectionModel = fileTable.getSelectionModel();
+        selectionModel.getSelectedItems().addListener((ListChangeListener<FileRow>) change -> {
             updateButtonStates();
         });
     }
@@ -198,7 +351,7 @@ public class HelloController {
      */
     private void updateButtonStates() {
         boolean hasSelection = !fileTable.getSelectionModel().getSelectedItems().isEmpty();
-        boolean hasItems = !fileTable.getItems().isEmpty();
+        boolean hasItems = !results.isEmpty();
 
         deleteButton.setDisable(!hasSelection);
         repairSelectedButton.setDisable(!hasSelection);
@@ -233,40 +386,64 @@ public class HelloController {
 
     /**
      * 处理文件列表（拖拽或选择）- 添加到源文件列表
+     * 规范化路径需要访问文件系统，在后台线程完成；一次拖入数万个文件也不会卡住界面
      */
     private void handleFiles(List<File> files) {
         if (files == null || files.isEmpty()) {
             return;
         }
 
-        // 将文件添加到源列表
-        for (File file : files) {
-            Path path = Paths.get(file.getAbsolutePath());
-            String displayPath = getDisplayPath(file);
-
-            // 检查是否已存在
-            if (!sourcePaths.contains(path)) {
-                sourcePaths.add(path);
-                sourceListItems.add(displayPath);
+        List<File> batch = new ArrayList<>(files);
+        int generation = sourceGeneration;
+        Task<List<SourceRootSet.Root>> ingestTask = new Task<>() {
+            @Override
+            protected List<SourceRootSet.Root> call() {
+                List<SourceRootSet.Root> resolved = new ArrayList<>(batch.size());
+                for (File file : batch) {
+                    resolved.add(SourceRootSet.resolve(file.toPath()));
+                }
+                return resolved;
             }
-        }
+        };
+        ingestTask.setOnSucceeded(e -> {
+            pendingIngests--;
+            if (generation == sourceGeneration) {
+                addSourceRoots(ingestTask.getValue());
+            }
+            updateSourceButtons();
+        });
+        ingestTask.setOnFailed(e -> {
+            pendingIngests--;
+            updateSourceButtons();
+            showAlert("错误", "无法添加路径: " + ingestTask.getException().getMessage());
+        });
 
-        // 更新按钮状态
+        pendingIngests++;
         updateSourceButtons();
+        Thread thread = new Thread(ingestTask, "source-ingest");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
-     * 获取文件显示路径
+     * 合并规范化后的路径：已被其他源目录包含的路径跳过，新目录包含的已有源路径移除（FX 线程）
      */
-    private String getDisplayPath(File file) {
-        String path = file.getAbsolutePath();
-        boolean isDirectory = file.isDirectory();
+    private void addSourceRoots(List<SourceRootSet.Root> resolved) {
+        int skipped = 0;
+        for (SourceRootSet.Root root : resolved) {
+            if (!sourceRoots.add(root)) {
+                skipped++;
+            }
+        }
 
-        // 如果是文件夹，显示 "文件夹: 路径"
-        if (isDirectory) {
-            return "[文件夹] " + path;
-        } else {
-            return "[文件] " + path;
+        List<String> items = new ArrayList<>(sourceRoots.size());
+        for (SourceRootSet.Root root : sourceRoots.getRoots()) {
+            items.add(root.getDisplayName());
+        }
+        sourceListItems.setAll(items);
+
+        if (skipped > 0 && !progressLabel.textProperty().isBound()) {
+            progressLabel.setText(skipped + " 个路径已包含在现有源路径中，已跳过");
         }
     }
 
@@ -274,9 +451,12 @@ public class HelloController {
      * 更新源文件列表按钮状态
      */
     private void updateSourceButtons() {
-        boolean hasSources = !sourcePaths.isEmpty();
-        scanAllButton.setDisable(!hasSources);
+        boolean hasSources = !sourceRoots.isEmpty();
+        scanAllButton.setDisable(!hasSources || pendingIngests > 0);
+        resumeScanButton.setDisable(!hasSources || pendingIngests > 0);
+        estimateButton.setDisable(!hasSources || pendingIngests > 0);
         clearSourceButton.setDisable(!hasSources);
+        watchToggle.setDisable(!hasSources);
     }
 
     /**
@@ -284,21 +464,344 @@ public class HelloController {
      */
     @FXML
     private void handleScanAll() {
-        if (sourcePaths.isEmpty()) {
+        if (sourceRoots.isEmpty()) {
             showAlert("提示", "没有可扫描的文件");
             return;
         }
+        if (!applyScanFilter()) {
+            return;
+        }
+
+        // 如果有正在运行的任务，先取消；重新扫描前停止实时监控
+        if (currentTask != null && currentTask.isRunning()) {
+            currentTask.cancel();
+        }
+        stopWatch();
+
+        // 清空当前表格
+        resetResults();
+        resetStatistics();
+
+        startScan(sourceRoots.getPaths(), false, false);
+    }
+
+    /**
+     * 处理继续扫描按钮点击
+     * 回放上次断点中已扫描的文件，再从断点记录的待扫描目录继续
+     */
+    @FXML
+    private void handleResumeScan() {
+        if (sourceRoots.isEmpty()) {
+            return;
+        }
+        List<Path> paths = sourceRoots.getPaths();
+        if (!ScanCheckpoint.exists(paths)) {
+            showAlert("提示", "当前源路径没有可继续的扫描，请勾选“断点续扫”后重新扫描");
+            return;
+        }
+        if (!applyScanFilter()) {
+            return;
+        }
 
-        // 如果有正在运行的任务，先取消
+        // 如果有正在运行的任务，先取消；重新扫描前停止实时监控
         if (currentTask != null && currentTask.isRunning()) {
             currentTask.cancel();
         }
+        stopWatch();
 
         // 清空当前表格
-        fileTable.getItems().clear();
+        resetResults();
         resetStatistics();
 
-        startScan(sourcePaths);
+        startScan(paths, false, true);
+    }
+
+    /**
+     * 处理快速估算按钮点击
+     * 随机抽样估算源路径下的文件数和各类异常的数量（附置信区间），不读取全部文件，不修改当前列表
+     */
+    @FXML
+    private void handleEstimate() {
+        if (sourceRoots.isEmpty()) {
+            showAlert("提示", "没有可估算的文件");
+            return;
+        }
+        if (!applyScanFilter()) {
+            return;
+        }
+        List<Path> paths = sourceRoots.getPaths();
+        ScanFilterMatcher filter = ScanFilterMatcher.compile(scanConfig.getFilter());
+
+        Task<SamplingEstimate> estimateTask = new ProgressTask<SamplingEstimate>() {
+            @Override
+            protected SamplingEstimate call() {
+                updateMessage("抽样估算中...");
+                SamplingEstimator estimator = new SamplingEstimator(this::isCancelled, filter);
+                estimator.setRuleSet(ruleSet);
+                return estimator.estimate(paths, walks -> {
+                    if (walks % 100 == 0) {
+                        updateMessage(String.format("抽样估算中: %,d 次下行", walks));
+                    }
+                });
+            }
+
+            @Override
+            protected void succeeded() {
+                SamplingEstimate estimate = getValue();
+                Platform.runLater(() -> {
+                    unbindProgress();
+                    progressLabel.setText("估算完成");
+                    progressBar.setProgress(0);
+                    showAlert("抽样估算", estimate.summary());
+                });
+            }
+
+            @Override
+            protected void failed() {
+                Platform.runLater(() -> {
+                    unbindProgress();
+                    progressLabel.setText("估算失败");
+                    progressBar.setProgress(0);
+                });
+            }
+        };
+
+        bindProgress(estimateTask);
+        Thread thread = new Thread(estimateTask, "sampling-estimate");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 处理实时监控开关
+     */
+    @FXML
+    private void handleToggleWatch() {
+        if (watchToggle.isSelected()) {
+            startWatch();
+        } else {
+            stopWatch();
+        }
+    }
+
+    /**
+     * 开启实时监控：源路径下的文件发生变化时，只重新读取变化的文件并校验，原地更新表格行和统计
+     */
+    private void startWatch() {
+        if (currentTask != null && currentTask.isRunning()) {
+            watchToggle.setSelected(false);
+            showAlert("提示", "请等待当前任务完成后再开启实时监控");
+            return;
+        }
+
+        rebuildWatchIndex();
+
+        // 与表格中结果一致，沿用上次扫描的过滤规则
+        List<Path> roots = sourceRoots.getPaths();
+        ScanFilterMatcher filter = ScanFilterMatcher.compile(scanConfig.getFilter());
+        ErrorLog log = errorLog;
+        boolean extendedAttributes = scanConfig.isExtendedAttributes();
+        try {
+            directoryWatcher = new DirectoryWatcher(roots, filter, new DirectoryWatcher.Listener() {
+                @Override
+                public void onReady(int watchedDirectories) {
+                    Platform.runLater(() -> progressLabel.setText("实时监控中: " + watchedDirectories + " 个目录"));
+                }
+
+                @Override
+                public void onChanges(Set<Path> changed, Set<Path> deleted) {
+                    revalidateChangedFiles(changed, deleted, roots, filter, extendedAttributes, log);
+                }
+
+                @Override
+                public void onOverflow() {
+                    Platform.runLater(() -> progressLabel.setText("监控事件过多，部分变化可能未显示，建议重新加载"));
+                }
+
+                @Override
+                public void onError(Path path, IOException e) {
+                    log.record(ErrorLog.Operation.WATCH, path, e);
+                }
+            });
+            directoryWatcher.start();
+            progressLabel.setText("正在注册监控目录...");
+        } catch (IOException e) {
+            directoryWatcher = null;
+            watchIndex = null;
+            watchToggle.setSelected(false);
+            showAlert("错误", "无法开启实时监控: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止实时监控
+     */
+    private void stopWatch() {
+        if (directoryWatcher != null) {
+            directoryWatcher.close();
+            directoryWatcher = null;
+            progressLabel.setText("实时监控已停止");
+        }
+        watchIndex = null;
+        watchToggle.setSelected(false);
+    }
+
+    /**
+     * 重新读取一批变化文件的属性并校验（在监控线程调用），结果交给 FX 线程应用
+     * 不符合过滤规则的文件忽略；扫描启用了扩展属性时同样按所在卷的扩展后端读取（得到 ctime）
+     */
+    private void revalidateChangedFiles(Set<Path> changed, Set<Path> deleted, List<Path> roots,
+                                        ScanFilterMatcher filter, boolean extendedAttributes, ErrorLog log) {
+        DirectoryWatcher watcher = directoryWatcher;
+        List<FileResultStore.Entry> updates = new ArrayList<>();
+        Set<Path> removed = new HashSet<>(deleted);
+        long now = System.currentTimeMillis();
+
+        for (Path path : changed) {
+            try {
+                FileAttributeReader reader = extendedAttributes ? FileAttributeReaders.forPath(path) : FileAttributeReader.BASIC;
+                BasicFileAttributes attrs = FileTreeScanner.resolveFileLink(path, reader.read(path, false), reader);
+                Path root = roots.stream().filter(path::startsWith).findFirst().orElse(path);
+                if (attrs.isRegularFile() && filter.acceptFile(root, path, attrs, ScanFilterMatcher.depth(root, path))) {
+                    long creationTime = FileResultStore.toEpochMillis(attrs.creationTime());
+                    long modifiedTime = FileResultStore.toEpochMillis(attrs.lastModifiedTime());
+                    long accessTime = FileResultStore.toEpochMillis(attrs.lastAccessTime());
+                    long changeTime = FileResultStore.toEpochMillis(FileAttributeReaders.changeTime(attrs));
+                    updates.add(new FileResultStore.Entry(path.toString(), creationTime, modifiedTime, accessTime, changeTime,
+                            validationService.violations(creationTime, modifiedTime, accessTime, now)
+                                    | validationService.changeViolations(modifiedTime, changeTime), null));
+                }
+            } catch (NoSuchFileException e) {
+                removed.add(path);
+            } catch (IOException e) {
+                log.record(ErrorLog.Operation.READ, path, e);
+            }
+        }
+
+        Platform.runLater(() -> {
+            if (watcher == directoryWatcher) {
+                applyWatchChanges(updates, removed);
+            }
+        });
+    }
+
+    /**
+     * 按扫描时得到的所在目录离群边界补上离群规则（监视到的变化不更新边界）
+     */
+    private int withOutlier(FileResultStore store, int row, int violations) {
+        return violations | validationService.outlierViolations(store.getModifiedTime(row), store.getOutlierFence(row));
+    }
+
+    /**
+     * 原地更新变化的行、追加新文件、移除已删除的文件，并增量调整统计（FX 线程）
+     */
+    private void applyWatchChanges(List<FileResultStore.Entry> updates, Set<Path> removed) {
+        FileResultStore store = results.getStore();
+        if (watchIndexVersion != store.getVersion()) {
+            rebuildWatchIndex();
+        }
+
+        List<FileResultStore.Entry> added = new ArrayList<>();
+        for (FileResultStore.Entry fresh : updates) {
+            Integer row = watchIndex.get(fresh.getPath());
+            if (row == null) {
+                added.add(fresh);
+            } else {
+                adjustStatistics(store.getViolations(row), -1);
+                store.setTimes(row, fresh.getCreationTime(), fresh.getModifiedTime(), fresh.getAccessTime(), fresh.getChangeTime());
+                store.setViolations(row, withOutlier(store, row, fresh.getViolations()));
+                adjustStatistics(store.getViolations(row), 1);
+            }
+        }
+
+        int firstAdded = store.size();
+        results.append(added);
+        for (int row = firstAdded; row < store.size(); row++) {
+            watchIndex.put(store.getPath(row), row);
+            store.setViolations(row, withOutlier(store, row, store.getViolations(row)));
+            adjustStatistics(store.getViolations(row), 1);
+        }
+
+        if (!removed.isEmpty()) {
+            BitSet removedRows = findRemovedRows(store, removed);
+            if (!removedRows.isEmpty()) {
+                removedRows.stream().forEach(row -> adjustStatistics(store.getViolations(row), -1));
+                fileTable.getSelectionModel().clearSelection();
+                results.removeRows(removedRows.stream().toArray());
+                rebuildWatchIndex();
+            }
+        }
+
+        showStatistics();
+        updateErrorsLink();
+        fileTable.refresh();
+        enableActionButtons(!results.isEmpty());
+        updateButtonStates();
+    }
+
+    /**
+     * 按当前行号重建路径索引（别名指向同一行）
+     */
+    private void rebuildWatchIndex() {
+        FileResultStore store = results.getStore();
+        watchIndex = new HashMap<>(store.size() * 2);
+        for (int row = 0; row < store.size(); row++) {
+            watchIndex.put(store.getPath(row), row);
+            for (String alias : store.getAliases(row)) {
+                watchIndex.put(alias, row);
+            }
+        }
+        watchIndexVersion = store.getVersion();
+    }
+
+    /**
+     * 查找被删除的行：被删除的文件按路径索引查找，被删除的目录借助目录表找出其下所有行
+     */
+    private BitSet findRemovedRows(FileResultStore store, Set<Path> removed) {
+        PathTable pathTable = store.getPathTable();
+        BitSet rows = new BitSet(store.size());
+        List<Integer> removedDirectories = new ArrayList<>();
+
+        for (Path path : removed) {
+            String text = path.toString();
+            Integer row = watchIndex.get(text);
+            if (row != null) {
+                rows.set(row);
+            }
+            int directory = pathTable.find(text);
+            if (directory != PathTable.NO_DIRECTORY) {
+                removedDirectories.add(directory);
+            }
+        }
+
+        if (!removedDirectories.isEmpty()) {
+            BitSet directories = pathTable.subtreesOf(removedDirectories);
+            for (int row = 0; row < store.size(); row++) {
+                int directory = store.getDirectoryId(row);
+                if (directory != PathTable.NO_DIRECTORY && directories.get(directory)) {
+                    rows.set(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 按行的违规位掩码调整正常/异常计数和各规则的计数（未校验的行计为异常）
+     */
+    private void adjustStatistics(int violations, int delta) {
+        if (violations == 0) {
+            normalCount += delta;
+            return;
+        }
+        abnormalCount += delta;
+        if (violations != FileResultStore.UNVALIDATED) {
+            for (int bit = 0; bit < ruleSet.size(); bit++) {
+                if ((violations & (1 << bit)) != 0) {
+                    violationCounts[bit] += delta;
+                }
+            }
+        }
     }
 
     /**
@@ -306,56 +809,97 @@ public class HelloController {
      */
     @FXML
     private void handleClearSource() {
-        sourcePaths.clear();
+        stopWatch();
+        sourceRoots.clear();
+        sourceGeneration++;
         sourceListItems.clear();
         updateSourceButtons();
     }
 
+    /**
+     * 读取界面上的过滤规则并预编译检查
+     * @return glob 语法错误时返回 false
+     */
+    private boolean applyScanFilter() {
+        ScanFilter filter = ScanFilter.createDefault();
+        filter.setExcludeDirectories(ScanFilter.parseList(excludeDirField.getText()));
+        filter.getExtensions().addAll(ScanFilter.parseList(extensionField.getText()));
+        try {
+            ScanFilterMatcher.compile(filter);
+        } catch (PatternSyntaxException e) {
+            showAlert("错误", "过滤规则无效: " + e.getDescription());
+            return false;
+        }
+        scanConfig.setFilter(filter);
+        return true;
+    }
+
     /**
      * 开始扫描文件（支持多路径）
+     * 扫描结果分批追加到表格，取消后已显示的结果保留
+     * @param incremental 是否借助扫描索引增量扫描
      */
-    private void startScan(List<Path> paths) {
-        FileScannerTask task = new FileScannerTask(paths);
+    private void startScan(List<Path> paths, boolean incremental, boolean resume) {
+        int generation = ++scanGeneration;
+        ScanConfig taskConfig = new ScanConfig(scanConfig.getMode(), scanConfig.getParallelism(), scanConfig.getMaxInFlight());
+        taskConfig.setIncremental(incremental);
+        taskConfig.setFilter(scanConfig.getFilter());
+        taskConfig.setFollowLinks(scanConfig.isFollowLinks());
+        taskConfig.setDeduplicate(scanConfig.isDeduplicate());
+        taskConfig.setCheckpoint(!incremental && (resume || scanConfig.isCheckpoint()));
+        taskConfig.setResume(resume);
+        taskConfig.setExtendedAttributes(scanConfig.isExtendedAttributes());
+        taskConfig.setRuleSet(scanConfig.getRuleSet());
+        taskConfig.setIncludeDirectories(scanConfig.isIncludeDirectories());
+        taskConfig.setDetectOutliers(scanConfig.isDetectOutliers());
+        taskConfig.setOutlierThreshold(scanConfig.getOutlierThreshold());
+
+        FileScannerTask task = new FileScannerTask(paths, taskConfig,
+                batch -> {
+                    if (generation == scanGeneration) {
+                        appendScanResults(batch);
+                    }
+                });
         currentTask = task;
+        errorLog = task.getErrorLog();
+        updateErrorsLink();
 
         // 绑定进度条
-        progressBar.progressProperty().bind(task.progressProperty());
-        progressLabel.textProperty().bind(task.messageProperty());
+        bindProgress(task);
+        cancelScanButton.setDisable(false);
+        pauseButton.setDisable(false);
 
         // 扫描完成后的处理
         task.setOnSucceeded(e -> {
-            javafx.collections.ObservableList<FileInfo> result = task.getValue();
-            Platform.runLater(() -> {
-                fileTable.setItems(result);
-                updateStatistics(result);
-                enableActionButtons(true);
-                updateButtonStates();
-                progressLabel.textProperty().unbind();
-                progressLabel.setText("扫描完成");
-                progressBar.progressProperty().unbind();
-                progressBar.setProgress(1.0);
-            });
+            if (generation != scanGeneration) {
+                return;
+            }
+            applyAliases(task.getAliases());
+            applyOutlierFences(task.getOutlierFences());
+            finishScan("扫描完成: 共 " + task.getValue() + " 个文件", 1.0);
         });
 
         // 扫描失败的处理
         task.setOnFailed(e -> {
-            Platform.runLater(() -> {
-                progressLabel.textProperty().unbind();
-                progressLabel.setText("扫描失败: " + task.getException().getMessage());
-                progressBar.progressProperty().unbind();
-                progressBar.setProgress(0);
-                showAlert("扫描失败", task.getException().getMessage());
-            });
+            if (generation != scanGeneration) {
+                return;
+            }
+            finishScan("扫描失败: " + task.getException().getMessage(), 0);
+            showAlert("扫描失败", task.getException().getMessage());
         });
 
-        // 扫描取消的处理
+        // 扫描取消的处理：等后台线程退出、最后一批结果追加后再统计保留的文件数
         task.setOnCancelled(e -> {
-            Platform.runLater(() -> {
-                progressLabel.textProperty().unbind();
-                progressLabel.setText("扫描已取消");
-                progressBar.progressProperty().unbind();
-                progressBar.setProgress(0);
-            });
+            cancelScanButton.setDisable(true);
+            task.getFinished().thenRun(() -> Platform.runLater(() -> {
+                if (generation != scanGeneration) {
+                    return;
+                }
+                applyAliases(task.getAliases());
+                applyOutlierFences(task.getOutlierFences());
+                finishScan("扫描已取消，已保留 " + results.size() + " 个文件"
+                        + (taskConfig.isCheckpoint() && !taskConfig.isFollowLinks() ? "，可点击“继续扫描”从断点继续" : ""), 0);
+            }));
         });
 
         // 在后台线程执行
@@ -364,26 +908,207 @@ public class HelloController {
         thread.start();
     }
 
+    /**
+     * 追加一批扫描结果（FX 线程）
+     */
+    private void appendScanResults(List<FileResultStore.Entry> batch) {
+        results.append(batch);
+        for (FileResultStore.Entry entry : batch) {
+            adjustStatistics(entry.getViolations(), 1);
+        }
+        showStatistics();
+    }
+
+    /**
+     * 把合并硬链接得到的别名附加到对应行（FX 线程，扫描结束后调用一次）
+     */
+    private void applyAliases(Map<String, List<String>> aliases) {
+        if (aliases.isEmpty()) {
+            return;
+        }
+        FileResultStore store = results.getStore();
+        Map<String, Integer> rows = new HashMap<>(store.size() * 2);
+        for (int row = 0; row < store.size(); row++) {
+            rows.put(store.getPath(row), row);
+        }
+        aliases.forEach((path, list) -> {
+            Integer row = rows.get(path);
+            if (row != null) {
+                synchronized (list) {
+                    store.setAliases(row, list);
+                }
+            }
+        });
+        fileTable.refresh();
+    }
+
+    /**
+     * 记录各目录的离群边界并按目录全部文件的分布复核离群规则（FX 线程，扫描结束后调用一次）
+     * 扫描中较早评分的文件只参考了当时已有的文件，复核后与之后重新校验的结果一致
+     */
+    private void applyOutlierFences(Map<Path, TimeFence> fences) {
+        if (fences.isEmpty()) {
+            return;
+        }
+        FileResultStore store = results.getStore();
+        fences.forEach((directory, fence) -> store.setOutlierFence(directory.toString(), fence));
+        int outlierMask = ValidationResult.TIME_OUTLIER.getMask();
+        for (int row = 0; row < store.size(); row++) {
+            int violations = store.getViolations(row);
+            if (store.isDirectory(row) || violations == FileResultStore.UNVALIDATED) {
+                continue;
+            }
+            store.setViolations(row, withOutlier(store, row, violations & ~outlierMask));
+        }
+        updateStatistics();
+        fileTable.refresh();
+    }
+
+    /**
+     * 换用新的空数据源（旧存储可能仍被后台任务引用，不原地清空）
+     */
+    private void resetResults() {
+        results = new FileResultList();
+        results.getStore().setRuleSet(ruleSet);
+        fileTable.setItems(results);
+    }
+
+    /**
+     * 扫描结束（完成、失败或取消）后恢复界面状态
+     */
+    private void finishScan(String message, double progress) {
+        results.getStore().trimToSize();
+        unbindProgress();
+        progressLabel.setText(message);
+        progressBar.setProgress(progress);
+        cancelScanButton.setDisable(true);
+        updateErrorsLink();
+        enableActionButtons(!results.isEmpty());
+        updateButtonStates();
+    }
+
+    /**
+     * 处理停止扫描按钮点击
+     */
+    @FXML
+    private void handleCancelScan() {
+        if (currentTask != null && currentTask.isRunning()) {
+            currentTask.cancel();
+        }
+    }
+
+    /**
+     * 处理暂停/继续按钮点击
+     * 暂停后工作线程停在下一个检查点，不再读写文件，已处理的结果保留
+     */
+    @FXML
+    private void handlePauseScan() {
+        if (!(currentTask instanceof ProgressTask) || !currentTask.isRunning()) {
+            return;
+        }
+        ProgressTask<?> task = (ProgressTask<?>) currentTask;
+        if (task.isPaused()) {
+            task.resume();
+            pauseButton.setText("暂停");
+        } else {
+            task.pause();
+            pauseButton.setText("继续");
+        }
+    }
+
+    /**
+     * 更新错误数链接
+     */
+    private void updateErrorsLink() {
+        errorsLink.setText(String.format("错误: %,d", errorLog.getTotal()));
+        errorsLink.setDisable(errorLog.isEmpty());
+    }
+
+    /**
+     * 显示错误汇总：按操作和异常类型分组，展开可查看样本路径，可导出
+     */
+    @FXML
+    private void handleShowErrors() {
+        updateErrorsLink();
+        TreeItem<String> root = new TreeItem<>();
+        for (ErrorLog.Group group : errorLog.getGroups()) {
+            TreeItem<String> groupItem = new TreeItem<>(String.format("%s | %s | %,d 次",
+                    group.getOperation().getDisplayName(), group.getType(), group.getCount()));
+            for (ErrorLog.Sample sample : group.getSamples()) {
+                groupItem.getChildren().add(new TreeItem<>(sample.getPath() + "  -  " + sample.getMessage()));
+            }
+            if (group.getCount() > group.getSamples().size()) {
+                groupItem.getChildren().add(new TreeItem<>("... 仅保留前 " + group.getSamples().size() + " 条"));
+            }
+            root.getChildren().add(groupItem);
+        }
+        TreeView<String> treeView = new TreeView<>(root);
+        treeView.setShowRoot(false);
+        treeView.setPrefSize(760, 400);
+
+        ButtonType exportType = new ButtonType("导出...", ButtonBar.ButtonData.LEFT);
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("错误详情");
+        dialog.setHeaderText(String.format("共 %,d 个错误，%d 类", errorLog.getTotal(), root.getChildren().size()));
+        dialog.getDialogPane().setContent(treeView);
+        dialog.getDialogPane().getButtonTypes().addAll(exportType, ButtonType.CLOSE);
+
+        if (dialog.showAndWait().orElse(ButtonType.CLOSE) == exportType) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("导出错误");
+            fileChooser.setInitialFileName("errors.tsv");
+            File file = fileChooser.showSaveDialog(fileTable.getScene().getWindow());
+            if (file != null) {
+                try {
+                    errorLog.export(file.toPath());
+                } catch (IOException e) {
+                    showAlert("错误", "无法导出: " + e.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * 更新统计信息
      */
-    private void updateStatistics(javafx.collections.ObservableList<FileInfo> files) {
-        int total = files.size();
-        long normal = files.stream().filter(FileInfo::isNormal).count();
-        long abnormal = total - normal;
+    private void updateStatistics() {
+        FileResultStore store = results.getStore();
+        normalCount = 0;
+        abnormalCount = 0;
+        Arrays.fill(violationCounts, 0);
+        for (int row = 0; row < store.size(); row++) {
+            adjustStatistics(store.getViolations(row), 1);
+        }
+        showStatistics();
+    }
 
-        totalLabel.setText("总文件数: " + total);
-        normalLabel.setText("正常: " + normal);
-        abnormalLabel.setText("异常: " + abnormal);
+    /**
+     * 显示当前统计计数
+     */
+    private void showStatistics() {
+        totalLabel.setText("总文件数: " + (normalCount + abnormalCount));
+        normalLabel.setText("正常: " + normalCount);
+        abnormalLabel.setText("异常: " + abnormalCount);
+
+        // 一个文件可能同时计入多条规则
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < ruleSet.size(); bit++) {
+            int count = violationCounts[bit];
+            if (count > 0) {
+                sb.append(sb.length() > 0 ? "  " : "").append(ruleSet.getName(bit)).append(": ").append(count);
+            }
+        }
+        violationsLabel.setText(sb.toString());
     }
 
     /**
      * 重置统计信息
      */
     private void resetStatistics() {
-        totalLabel.setText("总文件数: 0");
-        normalLabel.setText("正常: 0");
-        abnormalLabel.setText("异常: 0");
+        normalCount = 0;
+        abnormalCount = 0;
+        Arrays.fill(violationCounts, 0);
+        showStatistics();
         enableActionButtons(false);
     }
 
@@ -392,30 +1117,57 @@ public class HelloController {
      */
     private void enableActionButtons(boolean enable) {
         clearButton.setDisable(!enable);
-        reloadButton.setDisable(!enable || sourcePaths.isEmpty());
+        reloadButton.setDisable(!enable || sourceRoots.isEmpty());
         validateButton.setDisable(!enable);
+        selectViolationsButton.setDisable(!enable);
+    }
+
+    /**
+     * 选中违反所选规则的行（任意异常时选中全部异常行），之后可用“修复选中”只修复这一类
+     */
+    @FXML
+    private void handleSelectViolations() {
+        Integer choice = violationChoice.getValue();
+        int mask = choice == null ? ValidationResult.ALL_VIOLATIONS : choice;
+        FileResultStore store = results.getStore();
+        int[] rows = IntStream.range(0, store.size()).filter(row -> store.hasViolation(row, mask)).toArray();
+
+        TableView.TableViewSelectionModel<FileRow> selectionModel = fileTable.getSelectionModel();
+        selectionModel.clearSelection();
+        if (rows.length == 0) {
+            progressLabel.setText("没有" + violationChoice.getConverter().toString(choice) + "的文件");
+            return;
+        }
+        selectionModel.selectIndices(rows[0], Arrays.copyOfRange(rows, 1, rows.length));
+        fileTable.scrollTo(rows[0]);
+        progressLabel.setText("已选中 " + rows.length + " 个文件");
     }
 
     /**
      * 处理重新加载按钮点击
+     * 使用扫描索引增量扫描，只重新读取修改时间变化的目录
      */
     @FXML
     private void handleReload() {
-        if (sourcePaths.isEmpty()) {
+        if (sourceRoots.isEmpty()) {
             showAlert("提示", "没有可重新加载的文件");
             return;
         }
+        if (!applyScanFilter()) {
+            return;
+        }
 
-        // 如果有正在运行的任务，先取消
+        // 如果有正在运行的任务，先取消；重新扫描前停止实时监控
         if (currentTask != null && currentTask.isRunning()) {
             currentTask.cancel();
         }
+        stopWatch();
 
         // 清空当前表格
-        fileTable.getItems().clear();
+        resetResults();
         resetStatistics();
 
-        startScan(sourcePaths);
+        startScan(sourceRoots.getPaths(), true, false);
     }
 
     /**
@@ -423,33 +1175,57 @@ public class HelloController {
      */
     @FXML
     private void handleValidate() {
-        ObservableList<FileInfo> items = fileTable.getItems();
-        if (items.isEmpty()) {
+        FileResultStore store = results.getStore();
+        if (store.size() == 0) {
             showAlert("提示", "列表中没有可校验的文件");
             return;
         }
+        if (!checkIdle()) {
+            return;
+        }
+        int version = store.getVersion();
+        // 校验期间监视模式或修复改过时间、新追加的行：按旧时间算出的结果不写回这些行
+        BitSet modified = store.trackModifications();
 
-        progressLabel.setText("正在校验...");
-        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
-
-        // 在后台线程执行校验
-        Task<Void> validateTask = new Task<Void>() {
+        // 在后台线程执行校验（全部行使用同一参考时间），结果回到 FX 线程写入存储
+        Task<TimeValidationService.BatchResult> validateTask = new ProgressTask<TimeValidationService.BatchResult>() {
             @Override
-            protected Void call() {
-                for (FileInfo fileInfo : items) {
-                    if (isCancelled()) {
-                        break;
-                    }
-                    validationService.validateAndUpdate(fileInfo);
+            protected TimeValidationService.BatchResult call() {
+                try (ProgressTracker tracker = trackProgress("校验中")) {
+                    tracker.setTotal(store.size());
+                    return validationService.validateAll(store, System.currentTimeMillis(), this::checkpoint, tracker::filesDone);
                 }
-                return null;
             }
 
             @Override
             protected void succeeded() {
+                TimeValidationService.BatchResult result = getValue();
                 Platform.runLater(() -> {
-                    updateStatistics(items);
-                    progressLabel.setText("校验完成");
+                    unbindProgress();
+                    store.stopTracking(modified);
+                    cancelScanButton.setDisable(true);
+                    if (store != results.getStore() || version != store.getVersion()) {
+                        progressLabel.setText("列表已变化，校验结果未应用");
+                        progressBar.setProgress(0);
+                        return;
+                    }
+                    if (modified.isEmpty()) {
+                        store.setViolations(result.getViolations());
+                        normalCount = result.getNormalCount();
+                        abnormalCount = store.size() - normalCount;
+                        for (int bit = 0; bit < ruleSet.size(); bit++) {
+                            violationCounts[bit] = result.getRuleCount(bit);
+                        }
+                        showStatistics();
+                    } else {
+                        int[] violations = result.getViolations();
+                        for (int row = modified.nextClearBit(0); row < violations.length; row = modified.nextClearBit(row + 1)) {
+                            store.setViolations(row, violations[row]);
+                        }
+                        updateStatistics();
+                    }
+                    fileTable.refresh();
+                    progressLabel.setText("校验完成，异常 " + result.getAbnormalCount() + " 个");
                     progressBar.setProgress(1.0);
                 });
             }
@@ -457,13 +1233,26 @@ public class HelloController {
             @Override
             protected void failed() {
                 Platform.runLater(() -> {
+                    unbindProgress();
+                    store.stopTracking(modified);
+                    cancelScanButton.setDisable(true);
                     progressLabel.setText("校验失败");
                     progressBar.setProgress(0);
                 });
             }
+
+            @Override
+            protected void cancelled() {
+                // 在 FX 线程中随 cancel() 同步调用，先于随后启动的任务绑定进度；未完成的校验结果不写回
+                unbindProgress();
+                store.stopTracking(modified);
+                cancelScanButton.setDisable(true);
+                progressLabel.setText("校验已取消");
+                progressBar.setProgress(0);
+            }
         };
 
-        new Thread(validateTask).start();
+        runTask(validateTask, "validate");
     }
 
     /**
@@ -471,8 +1260,8 @@ public class HelloController {
      */
     @FXML
     private void handleRepairSelected() {
-        ObservableList<FileInfo> selectedItems = fileTable.getSelectionModel().getSelectedItems();
-        if (selectedItems.isEmpty()) {
+        int[] selectedRows = selectedRows();
+        if (selectedRows.length == 0 || !checkIdle()) {
             return;
         }
 
@@ -484,7 +1273,7 @@ public class HelloController {
 
         currentRepairConfig = config;
 
-        int count = selectedItems.size();
+        int count = selectedRows.length;
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("确认修复");
         confirmAlert.setHeaderText(null);
@@ -493,7 +1282,7 @@ public class HelloController {
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            repairFiles(selectedItems, false);
+            repairFiles(selectedRows);
         }
     }
 
@@ -502,11 +1291,14 @@ public class HelloController {
      */
     @FXML
     private void handleRepairAll() {
-        ObservableList<FileInfo> items = fileTable.getItems();
-        if (items.isEmpty()) {
+        int total = results.size();
+        if (total == 0) {
             showAlert("提示", "列表中没有可修复的文件");
             return;
         }
+        if (!checkIdle()) {
+            return;
+        }
 
         // 显示配置对话框
         RepairConfig config = showRepairConfigDialog();
@@ -519,90 +1311,198 @@ public class HelloController {
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("确认修复");
         confirmAlert.setHeaderText(null);
-        confirmAlert.setContentText("确定要修复全部 " + items.size() + " 个文件的时间吗？\n\n" +
+        confirmAlert.setContentText("确定要修复全部 " + total + " 个文件的时间吗？\n\n" +
                 getConfigDescription(config));
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            repairFiles(items, true);
+            repairFiles(IntStream.range(0, total).toArray());
         }
     }
 
     /**
      * 修复文件时间
      */
-    private void repairFiles(ObservableList<FileInfo> files, boolean repairAll) {
-        progressLabel.setText("正在修复文件时间...");
-        progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+    private void repairFiles(int[] rows) {
+        List<Path> roots = sourceRoots.getPaths();
+        FileResultStore store = results.getStore();
+        int version = store.getVersion();
+
+        // 先在 FX 线程取出路径，修复期间表格被删除或排序也不会改错文件
+        String[] paths = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            paths[i] = store.getPath(rows[i]);
+        }
+
+        Task<RepairSummary> repairTask = new ProgressTask<RepairSummary>() {
+            // 工作线程结束时完成（取消后线程停在下一个文件之前），取消时据此写回已修复的文件
+            private final CompletableFuture<RepairSummary> finished = new CompletableFuture<>();
 
-        Task<RepairSummary> repairTask = new Task<RepairSummary>() {
             @Override
             protected RepairSummary call() throws Exception {
                 int successCount = 0;
                 int failCount = 0;
-                List<String> errors = new ArrayList<>();
-
-                int total = files.size();
-                for (int i = 0; i < total; i++) {
-                    if (isCancelled()) {
-                        break;
-                    }
-
-                    FileInfo fileInfo = files.get(i);
-                    Path filePath = Paths.get(fileInfo.getFilePath());
-
-                    try {
-                        // 使用配置修复文件
-                        repairService.repairFile(filePath, currentRepairConfig);
-
-                        // 更新 FileInfo 中的时间显示
-                        repairService.repairFileInfo(fileInfo, currentRepairConfig);
-                        validationService.validateAndUpdate(fileInfo);
+                ErrorLog errors = new ErrorLog();
+                long[][] repairedTimes = new long[rows.length][];
+
+                int total = rows.length;
+                try (ProgressTracker tracker = trackProgress("修复中")) {
+                    tracker.setTotal(total);
+                    for (int i = 0; i < total; i++) {
+                        if (checkpoint()) {
+                            break;
+                        }
 
-                        successCount++;
-                        updateMessage(String.format("修复中: %d/%d", i + 1, total));
-                    } catch (IOException e) {
-                        failCount++;
-                        errors.add(filePath.getFileName() + ": " + e.getMessage());
+                        Path filePath = Paths.get(paths[i]);
+
+                        try {
+                            // 使用配置修复文件，记录实际写入的时间用于更新表格
+                            TimeRepairService.RepairResult repair = repairService.repairFile(filePath, currentRepairConfig);
+                            repairedTimes[i] = new long[]{
+                                    FileResultStore.toEpochMillis(repair.getCreationTime()),
+                                    FileResultStore.toEpochMillis(repair.getModifiedTime()),
+                                    FileResultStore.toEpochMillis(repair.getAccessTime())
+                            };
+
+                            successCount++;
+                        } catch (IOException e) {
+                            failCount++;
+                            tracker.error();
+                            errors.record(ErrorLog.Operation.REPAIR, filePath, e);
+                        }
+                        tracker.fileDone(0);
                     }
+                } finally {
+                    // 文件时间已被修改，缓存的扫描索引失效
+                    roots.forEach(ScanCache::invalidate);
+                    finished.complete(new RepairSummary(successCount, failCount, errors, repairedTimes));
                 }
 
-                return new RepairSummary(successCount, failCount, errors);
+                return finished.join();
             }
 
             @Override
             protected void succeeded() {
                 RepairSummary summary = getValue();
-                Platform.runLater(() -> {
-                    progressLabel.setText("修复完成");
-                    progressBar.setProgress(1.0);
-
-                    // 显示修复结果
-                    String message = String.format("修复完成！\n成功: %d 个\n失败: %d 个",
-                            summary.successCount, summary.failCount);
-
-                    if (!summary.errors.isEmpty()) {
-                        message += "\n\n失败详情:\n" + String.join("\n", summary.errors.subList(0, Math.min(5, summary.errors.size())));
-                        if (summary.errors.size() > 5) {
-                            message += "\n... 还有 " + (summary.errors.size() - 5) + " 个文件";
-                        }
-                    }
-
-                    showAlert("修复完成", message);
-                });
+                Platform.runLater(() -> finishRepair(this, store, version, rows, summary, "修复完成"));
             }
 
             @Override
             protected void failed() {
                 Platform.runLater(() -> {
+                    unbindProgress();
+                    cancelScanButton.setDisable(true);
                     progressLabel.setText("修复失败");
                     progressBar.setProgress(0);
                     showAlert("修复失败", getException().getMessage());
                 });
             }
+
+            @Override
+            protected void cancelled() {
+                // 等工作线程停下后写回已修复的文件
+                cancelScanButton.setDisable(true);
+                finished.thenAccept(summary -> Platform.runLater(() -> finishRepair(this, store, version, rows, summary, "修复已取消")));
+            }
         };
 
-        new Thread(repairTask).start();
+        runTask(repairTask, "repair");
+    }
+
+    /**
+     * 修复结束（完成或取消）后写回已修复文件的时间并显示结果（FX 线程）
+     * 取消后已启动其他任务时不改动进度显示
+     * @param title 结果标题，如 "修复完成"
+     */
+    private void finishRepair(Task<?> task, FileResultStore store, int version, int[] rows, RepairSummary summary, String title) {
+        applyRepairedTimes(store, version, rows, summary.repairedTimes);
+        errorLog.addAll(summary.errors);
+        updateErrorsLink();
+        if (currentTask == task) {
+            unbindProgress();
+            cancelScanButton.setDisable(true);
+            progressLabel.setText(title);
+            progressBar.setProgress(1.0);
+        }
+
+        // 显示修复结果
+        String message = String.format("%s！\n成功: %d 个\n失败: %d 个",
+                title, summary.successCount, summary.failCount);
+
+        if (!summary.errors.isEmpty()) {
+            message += "\n\n失败原因:\n" + summary.errors.summary(5) + "\n（点击 \"错误\" 查看详情）";
+        }
+
+        showAlert(title, message);
+    }
+
+    /**
+     * 没有正在运行的任务时返回 true，否则提示等待
+     */
+    private boolean checkIdle() {
+        if (currentTask != null && currentTask.isRunning()) {
+            showAlert("提示", "请等待当前任务完成");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 在后台守护线程执行任务，与扫描一样记为当前任务，可暂停、停止
+     */
+    private void runTask(Task<?> task, String name) {
+        currentTask = task;
+        bindProgress(task);
+        cancelScanButton.setDisable(false);
+        pauseButton.setDisable(false);
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 将任务的进度和消息绑定到进度条和进度标签
+     */
+    private void bindProgress(Task<?> task) {
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressLabel.textProperty().bind(task.messageProperty());
+    }
+
+    /**
+     * 解除进度条和进度标签的绑定
+     */
+    private void unbindProgress() {
+        progressLabel.textProperty().unbind();
+        progressBar.progressProperty().unbind();
+        pauseButton.setText("暂停");
+        pauseButton.setDisable(true);
+    }
+
+    /**
+     * 时间单元格：按系统时区格式化 epoch 毫秒
+     * 每个单元格记住上次格式化的时间，滚动或刷新时值未变化就直接复用文本
+     */
+    private static class TimeCell extends TableCell<FileRow, Long> {
+        private static final DateTimeFormatter FORMATTER = DATE_FORMATTER.withZone(ZoneId.systemDefault());
+
+        private long formattedTime = FileResultStore.NO_TIME;
+        private String formattedText;
+
+        @Override
+        protected void updateItem(Long time, boolean empty) {
+            super.updateItem(time, empty);
+            if (empty || time == null) {
+                setText(null);
+            } else if (time == FileResultStore.NO_TIME) {
+                setText("N/A");
+            } else {
+                if (formattedText == null || time != formattedTime) {
+                    formattedTime = time;
+                    formattedText = FORMATTER.format(Instant.ofEpochMilli(time));
+                }
+                setText(formattedText);
+            }
+        }
     }
 
     /**
@@ -611,26 +1511,57 @@ public class HelloController {
     private static class RepairSummary {
         final int successCount;
         final int failCount;
-        final List<String> errors;
+        final ErrorLog errors;
+        final long[][] repairedTimes;  // 每个待修复行写入的新时间，失败或未处理时为 null
 
-        RepairSummary(int successCount, int failCount, List<String> errors) {
+        RepairSummary(int successCount, int failCount, ErrorLog errors, long[][] repairedTimes) {
             this.successCount = successCount;
             this.failCount = failCount;
             this.errors = errors;
+            this.repairedTimes = repairedTimes;
         }
     }
 
+    /**
+     * 把修复后的时间写回存储并重新校验（FX 线程），行号已变化时不写回
+     */
+    private void applyRepairedTimes(FileResultStore store, int version, int[] rows, long[][] repairedTimes) {
+        if (store != results.getStore() || version != store.getVersion()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < rows.length; i++) {
+            long[] times = repairedTimes[i];
+            if (times != null) {
+                store.setTimes(rows[i], times[0], times[1], times[2]);
+                store.setViolations(rows[i], validationService.violations(store, rows[i], now));
+            }
+        }
+        updateStatistics();
+        fileTable.refresh();
+    }
+
+    /**
+     * 当前选中的行号
+     */
+    private int[] selectedRows() {
+        return fileTable.getSelectionModel().getSelectedIndices().stream()
+                .mapToInt(Integer::intValue)
+                .filter(row -> row >= 0)
+                .toArray();
+    }
+
     /**
      * 处理删除选中按钮点击
      */
     @FXML
     private void handleDeleteSelected() {
-        ObservableList<FileInfo> selectedItems = fileTable.getSelectionModel().getSelectedItems();
-        if (selectedItems.isEmpty()) {
+        int[] selectedRows = selectedRows();
+        if (selectedRows.length == 0) {
             return;
         }
 
-        int count = selectedItems.size();
+        int count = selectedRows.length;
         Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
         confirmAlert.setTitle("确认删除");
         confirmAlert.setHeaderText(null);
@@ -638,10 +1569,12 @@ public class HelloController {
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            // 创建新列表避免并发修改异常
-            ObservableList<FileInfo> itemsToRemove = FXCollections.observableArrayList(selectedItems);
-            fileTable.getItems().removeAll(itemsToRemove);
-            updateStatistics(fileTable.getItems());
+            // 先清除选择，再按行号从存储中删除（监控索引在下次使用时按存储版本重建）
+            fileTable.getSelectionModel().clearSelection();
+            results.removeRows(selectedRows);
+            updateStatistics();
+            enableActionButtons(!results.isEmpty());
+            updateButtonStates();
         }
     }
 
@@ -650,13 +1583,19 @@ public class HelloController {
      */
     @FXML
     private void handleClear() {
-        // 取消正在运行的任务
+        // 取消正在运行的任务，并丢弃其尚未送达的结果
         if (currentTask != null && currentTask.isRunning()) {
             currentTask.cancel();
         }
+        stopWatch();
+        scanGeneration++;
+        cancelScanButton.setDisable(true);
+        unbindProgress();
 
-        fileTable.getItems().clear();
+        resetResults();
         resetStatistics();
+        errorLog = new ErrorLog();
+        updateErrorsLink();
         progressLabel.setText("就绪");
         progressBar.setProgress(0);
         updateButtonStates();
@@ -0,0 +1,764 @@
+package com.aypak.filetimecheck.cli;
+
+import com.aypak.filetimecheck.model.DirectorySummary;
+import com.aypak.filetimecheck.model.ErrorLog;
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.RepairConfig;
+import com.aypak.filetimecheck.model.RuleSet;
+import com.aypak.filetimecheck.model.SamplingEstimate;
+import com.aypak.filetimecheck.model.ScanConfig;
+import com.aypak.filetimecheck.model.ScanFilter;
+import com.aypak.filetimecheck.model.SourceRootSet;
+import com.aypak.filetimecheck.model.ValidationResult;
+import com.aypak.filetimecheck.service.ConcurrentTreeScanner;
+import com.aypak.filetimecheck.service.FileAttributeReader;
+import com.aypak.filetimecheck.service.FileAttributeReaders;
+import com.aypak.filetimecheck.service.FileStoreScheduler;
+import com.aypak.filetimecheck.service.FileTreeScanner;
+import com.aypak.filetimecheck.service.OutlierDetector;
+import com.aypak.filetimecheck.service.ParallelFileTreeScanner;
+import com.aypak.filetimecheck.service.ProgressTracker;
+import com.aypak.filetimecheck.service.RepairConfigLoader;
+import com.aypak.filetimecheck.service.ResumableTreeScanner;
+import com.aypak.filetimecheck.service.RuleSetLoader;
+import com.aypak.filetimecheck.service.SamplingEstimator;
+import com.aypak.filetimecheck.service.ScanCache;
+import com.aypak.filetimecheck.service.ScanFilterMatcher;
+import com.aypak.filetimecheck.service.TimeRepairService;
+import com.aypak.filetimecheck.service.TimeValidationService;
+import com.aypak.filetimecheck.service.VirtualThreadFileTreeScanner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 命令行批处理入口（不依赖 JavaFX）
+ * 扫描结果逐行写出，不在内存中保留文件列表，内存占用与目录树大小无关
+ * 路径分布在多个卷上时各卷同时扫描
+ *
+ * 用法: filetimecheck-cli &lt;scan|validate|repair|estimate&gt; [选项] &lt;路径&gt;...
+ * 输出为制表符分隔: 状态  路径  创建时间  修改时间  访问时间
+ */
+public class FileTimeCheckCli {
+
+    /** 成功，且没有异常文件 */
+    public static final int EXIT_OK = 0;
+    /** 发现异常文件（validate）或有文件修复失败（repair） */
+    public static final int EXIT_ABNORMAL = 1;
+    /** 参数或配置错误 */
+    public static final int EXIT_USAGE = 2;
+    /** 有文件无法读取 */
+    public static final int EXIT_READ_ERROR = 3;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private enum Command { SCAN, VALIDATE, REPAIR, ESTIMATE }
+
+    private Command command;
+    private final List<Path> paths = new ArrayList<>();
+    private Path output;
+    private Path configFile;
+    private Path rulesFile;
+    private long futureToleranceMillis = -1;  // 未指定时取规则文件中的值
+    private Path errorsFile;
+    private ScanConfig.ScanMode mode = ScanConfig.ScanMode.SEQUENTIAL;
+    private int parallelism = -1;  // 未指定时按扫描模式取默认值
+    private boolean all;
+    private boolean dryRun;
+    private boolean progress;
+    private boolean followLinks;
+    private boolean deduplicate;
+    private boolean checkpoint;
+    private boolean resume;
+    private boolean extendedAttributes;
+    private boolean includeDirectories;
+    private boolean detectOutliers;
+    private double outlierThreshold = ScanConfig.DEFAULT_OUTLIER_THRESHOLD;
+    private String violationKeys;  // --violations 的规则列表，规则集加载后解析
+    private int violationMask = ValidationResult.ALL_VIOLATIONS;  // 视为异常的规则
+    private double sampleRate = SamplingEstimator.DEFAULT_SAMPLE_RATE;
+    private long timeLimitMillis = SamplingEstimator.DEFAULT_TIME_LIMIT_MILLIS;
+    private final ScanFilter filter = ScanFilter.createDefault();
+    private final ScanConfig storeLimits = ScanConfig.createDefault();  // 只使用其中按卷设置的并发上限
+    private ScanFilterMatcher filterMatcher;
+
+    private RuleSet ruleSet;
+    private OutlierDetector<PendingFile> outlierDetector;  // --outliers 时文件先按所在目录评分再输出
+    private TimeValidationService validationService;
+    private final TimeRepairService repairService = new TimeRepairService();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder abnormal = new LongAdder();
+    private final LongAdder[] violationCounts = newCounters(RuleSet.MAX_RULES);
+    private final LongAdder repaired = new LongAdder();
+    private final LongAdder repairFailed = new LongAdder();
+    private final LongAdder readErrors = new LongAdder();
+    private final ErrorLog errorLog = new ErrorLog();
+    private final LongAdder aliases = new LongAdder();
+    private final Map<String, String> firstPaths = new ConcurrentHashMap<>();  // fileKey -> 首次出现的路径
+    private long now;  // 本次扫描的参考时间，开始扫描前取一次，全部文件按同一时刻校验
+
+    public static void main(String[] args) {
+        System.exit(new FileTimeCheckCli().run(args));
+    }
+
+    /**
+     * 执行命令并返回退出码
+     */
+    public int run(String[] args) {
+        RepairConfig repairConfig;
+        try {
+            parseArguments(args);
+            filterMatcher = ScanFilterMatcher.compile(filter);
+            repairConfig = command == Command.REPAIR
+                    ? (configFile != null ? RepairConfigLoader.load(configFile) : RepairConfig.createDefault())
+                    : null;
+        } catch (PatternSyntaxException e) {
+            System.err.println("错误: 过滤规则无效: " + e.getDescription());
+            return EXIT_USAGE;
+        } catch (IllegalArgumentException e) {
+            System.err.println("错误: " + e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            System.err.println("无法读取修复配置: " + configFile + " - " + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        // 校验规则：--rules 指定的文件，否则为默认规则文件（存在时）
+        Path rules = rulesFile != null ? rulesFile
+                : Files.isRegularFile(RuleSetLoader.defaultFile()) ? RuleSetLoader.defaultFile() : null;
+        try {
+            ruleSet = rules != null ? RuleSetLoader.load(rules, futureToleranceMillis) : RuleSetLoader.loadBuiltIn(futureToleranceMillis);
+            if (violationKeys != null) {
+                violationMask = parseViolations(violationKeys, ruleSet);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("错误: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (IOException e) {
+            System.err.println("无法读取校验规则: " + rules + " - " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        validationService = new TimeValidationService(ruleSet);
+
+        if (command == Command.ESTIMATE) {
+            return estimate();
+        }
+
+        try (PrintWriter out = openOutput();
+             ProgressTracker tracker = progress
+                     ? new ProgressTracker(snapshot -> System.err.print("\r" + snapshot.toMessage("扫描中")))
+                     : null) {
+            if (detectOutliers) {
+                int outlierMask = ValidationResult.TIME_OUTLIER.getMask();
+                outlierDetector = new OutlierDetector<>(outlierThreshold, (pending, outlier) ->
+                        handle(pending.file, pending.file.toString(), (pending.violations | (outlier ? outlierMask : 0)) & violationMask,
+                                pending.created, pending.modified, pending.accessed, repairConfig, out));
+            }
+            FileTreeScanner.Listener listener = new FileTreeScanner.Listener() {
+                @Override
+                public void onFile(Path file, BasicFileAttributes attrs) {
+                    processFile(file, attrs, repairConfig, out);
+                    if (tracker != null) {
+                        tracker.fileDone(attrs.size());
+                    }
+                }
+
+                @Override
+                public void onError(Path file, IOException e) {
+                    readErrors.increment();
+                    if (tracker != null) {
+                        tracker.error();
+                    }
+                    errorLog.record(ErrorLog.Operation.READ, file, e);
+                }
+
+                @Override
+                public void onDirectory(Path dir, BasicFileAttributes attrs, DirectorySummary children) {
+                    if (outlierDetector != null) {
+                        outlierDetector.close(dir);
+                    }
+                    if (includeDirectories) {
+                        processDirectory(dir, attrs, children, repairConfig, out);
+                    }
+                }
+            };
+            now = System.currentTimeMillis();
+            scan(listener);
+            if (outlierDetector != null) {
+                // 输出尚未评分的文件（列举失败的目录、单独指定的文件）
+                outlierDetector.finish();
+            }
+        } catch (IOException e) {
+            System.err.println("无法写入输出: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        if (command == Command.REPAIR && !dryRun && repaired.sum() > 0) {
+            // 文件时间已被修改，缓存的扫描索引失效
+            paths.forEach(ScanCache::invalidate);
+        }
+
+        printSummary();
+        if (errorsFile != null && !errorLog.isEmpty()) {
+            try {
+                errorLog.export(errorsFile);
+            } catch (IOException e) {
+                System.err.println("无法写入错误列表: " + errorsFile + " - " + e.getMessage());
+            }
+        }
+
+        if (abnormal.sum() > 0 && command == Command.VALIDATE || repairFailed.sum() > 0) {
+            return EXIT_ABNORMAL;
+        }
+        return readErrors.sum() > 0 ? EXIT_READ_ERROR : EXIT_OK;
+    }
+
+    /**
+     * 抽样估算，只输出摘要
+     */
+    private int estimate() {
+        SamplingEstimator estimator = new SamplingEstimator(() -> false, filterMatcher);
+        estimator.setSampleRate(sampleRate);
+        estimator.setTimeLimitMillis(timeLimitMillis);
+        estimator.setRuleSet(ruleSet);
+        SamplingEstimate estimate = estimator.estimate(paths, null);
+        try (PrintWriter out = openOutput()) {
+            out.println(estimate.summary());
+        } catch (IOException e) {
+            System.err.println("无法写入输出: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * 不同卷同时扫描，同一卷上的路径依次扫描
+     */
+    private void scan(FileTreeScanner.Listener listener) throws IOException {
+        if (checkpoint || resume) {
+            // 断点续扫使用单线程遍历；中断（Ctrl+C）后最多丢失最近一个断点间隔的进度
+            new ResumableTreeScanner(paths, () -> false, filterMatcher, ResumableTreeScanner.DEFAULT_CHECKPOINT_INTERVAL_MILLIS,
+                    root -> extendedAttributes ? FileAttributeReaders.forPath(root) : FileAttributeReader.BASIC)
+                    .scan(resume, listener);
+            return;
+        }
+        try {
+            FileStoreScheduler.run(FileStoreScheduler.group(paths), group -> {
+                try {
+                    scan(group, listener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void scan(FileStoreScheduler.StoreGroup group, FileTreeScanner.Listener listener) throws IOException {
+        FileAttributeReader reader = extendedAttributes
+                ? FileAttributeReaders.forStore(group.getStore(), group.getPaths().get(0))
+                : FileAttributeReader.BASIC;
+        if (mode == ScanConfig.ScanMode.SEQUENTIAL) {
+            FileTreeScanner scanner = new FileTreeScanner(() -> false, filterMatcher, followLinks, reader);
+            for (Path path : group.getPaths()) {
+                scanner.scan(path, listener);
+            }
+            return;
+        }
+
+        try (ConcurrentTreeScanner scanner = mode == ScanConfig.ScanMode.PARALLEL
+                ? new ParallelFileTreeScanner(storeLimits.getStoreLimit(group.getStore(),
+                        parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()),
+                        () -> false, filterMatcher, followLinks, reader)
+                : new VirtualThreadFileTreeScanner(storeLimits.getStoreLimit(group.getStore(),
+                        parallelism > 0 ? parallelism : ScanConfig.DEFAULT_MAX_IN_FLIGHT),
+                        () -> false, filterMatcher, followLinks, reader)) {
+            for (Path path : group.getPaths()) {
+                scanner.scan(path, listener);
+            }
+        }
+    }
+
+    /**
+     * 校验（及修复）单个文件并写出一行结果，并发模式下在工作线程调用
+     */
+    private void processFile(Path file, BasicFileAttributes attrs, RepairConfig repairConfig, PrintWriter out) {
+        long created = FileResultStore.toEpochMillis(attrs.creationTime());
+        long modified = FileResultStore.toEpochMillis(attrs.lastModifiedTime());
+        long accessed = FileResultStore.toEpochMillis(attrs.lastAccessTime());
+
+        // 同一物理文件只校验、修复一次，scan 命令把其他路径以 "别名" 状态列出
+        if (deduplicate && attrs.fileKey() != null
+                && firstPaths.putIfAbsent(attrs.fileKey().toString(), file.toString()) != null) {
+            aliases.increment();
+            if (command == Command.SCAN) {
+                writeLine(out, "别名", file, created, modified, accessed);
+            }
+            return;
+        }
+        files.increment();
+
+        // 一次检查全部规则，只有 --violations 选中的规则计为异常
+        int violations = validationService.violations(created, modified, accessed, now)
+                | validationService.changeViolations(modified, FileResultStore.toEpochMillis(FileAttributeReaders.changeTime(attrs)));
+        if (outlierDetector != null) {
+            outlierDetector.offer(file.getParent(), modified, new PendingFile(file, violations, created, modified, accessed));
+            return;
+        }
+        handle(file, file.toString(), violations & violationMask, created, modified, accessed, repairConfig, out);
+    }
+
+    /**
+     * 校验目录（--directories）：文件规则加上按直接子项汇总校验的目录规则，输出时路径以分隔符结尾
+     */
+    private void processDirectory(Path dir, BasicFileAttributes attrs, DirectorySummary children,
+                                  RepairConfig repairConfig, PrintWriter out) {
+        if (!FileAttributeReaders.hasBirthTime(attrs)) {
+            // 创建时间只是修改时间的替代值，按它校验目录规则会误报
+            children = children.withoutCreationTimes();
+        }
+        long created = FileResultStore.toEpochMillis(attrs.creationTime());
+        long modified = FileResultStore.toEpochMillis(attrs.lastModifiedTime());
+        long accessed = FileResultStore.toEpochMillis(attrs.lastAccessTime());
+        long changed = FileResultStore.toEpochMillis(FileAttributeReaders.changeTime(attrs));
+        directories.increment();
+        int violations = (validationService.directoryViolations(created, modified, accessed,
+                children.getMinCreationTime(), children.getMaxCreationTime(), now)
+                | validationService.changeViolations(modified, changed)) & violationMask;
+        handle(dir, dir.toString() + File.separator, violations, created, modified, accessed, repairConfig, out);
+    }
+
+    /**
+     * 按命令输出或修复一条已校验的结果
+     * @param display 输出的路径
+     */
+    private void handle(Path file, String display, int violations, long created, long modified, long accessed,
+                        RepairConfig repairConfig, PrintWriter out) {
+        if (violations != 0) {
+            abnormal.increment();
+            for (int bit = 0; bit < ruleSet.size(); bit++) {
+                if ((violations & (1 << bit)) != 0) {
+                    violationCounts[bit].increment();
+                }
+            }
+        }
+        String status = ruleSet.describe(violations);
+
+        switch (command) {
+            case SCAN:
+                writeLine(out, status, display, created, modified, accessed);
+                break;
+            case VALIDATE:
+                if (all || violations != 0) {
+                    writeLine(out, status, display, created, modified, accessed);
+                }
+                break;
+            case REPAIR:
+                if (!all && violations == 0) {
+                    break;
+                }
+                if (dryRun) {
+                    writeLine(out, "待修复: " + status, display, created, modified, accessed);
+                    break;
+                }
+                try {
+                    TimeRepairService.RepairResult repair = repairService.repairFile(file, repairConfig);
+                    repaired.increment();
+                    writeLine(out, "已修复", display, FileResultStore.toEpochMillis(repair.getCreationTime()),
+                            FileResultStore.toEpochMillis(repair.getModifiedTime()),
+                            FileResultStore.toEpochMillis(repair.getAccessTime()));
+                } catch (IOException e) {
+                    repairFailed.increment();
+                    errorLog.record(ErrorLog.Operation.REPAIR, file, e);
+                    synchronized (out) {
+                        out.println("修复失败: " + e.getMessage() + "\t" + display);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeLine(PrintWriter out, String status, Object file,
+                                  long created, long modified, long accessed) {
+        String line = status + '\t' + file + '\t' + format(created) + '\t' + format(modified) + '\t' + format(accessed);
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+
+    /**
+     * 只在写出时按系统时区格式化
+     */
+    private static String format(long epochMillis) {
+        return epochMillis != FileResultStore.NO_TIME ? DATE_FORMATTER.format(Instant.ofEpochMilli(epochMillis)) : "";
+    }
+
+    private PrintWriter openOutput() throws IOException {
+        Writer writer = output != null
+                ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        return new PrintWriter(writer);
+    }
+
+    private void printSummary() {
+        if (progress) {
+            System.err.println();
+        }
+        StringBuilder sb = new StringBuilder(String.format("共 %,d 个文件", files.sum()));
+        if (includeDirectories) {
+            sb.append(String.format("、%,d 个目录", directories.sum()));
+        }
+        sb.append(String.format("，异常 %,d 个", abnormal.sum()));
+        if (abnormal.sum() > 0) {
+            // 一个文件可能同时计入多条规则
+            StringBuilder rules = new StringBuilder();
+            for (int bit = 0; bit < ruleSet.size(); bit++) {
+                long count = violationCounts[bit].sum();
+                if (count > 0) {
+                    rules.append(rules.length() > 0 ? "，" : "").append(ruleSet.getName(bit)).append(String.format(" %,d", count));
+                }
+            }
+            sb.append("（").append(rules).append("）");
+        }
+        if (command == Command.REPAIR && !dryRun) {
+            sb.append(String.format("，已修复 %,d 个，修复失败 %,d 个", repaired.sum(), repairFailed.sum()));
+        }
+        if (aliases.sum() > 0) {
+            sb.append(String.format("，硬链接别名 %,d 个", aliases.sum()));
+        }
+        if (readErrors.sum() > 0) {
+            sb.append(String.format("，无法读取 %,d 个", readErrors.sum()));
+        }
+        System.err.println(sb);
+        if (!errorLog.isEmpty()) {
+            System.err.println(errorLog.summary(10));
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("缺少命令");
+        }
+        try {
+            command = Command.valueOf(args[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("未知命令: " + args[0]);
+        }
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-o":
+                case "--output":
+                    output = Paths.get(value(args, ++i, arg));
+                    break;
+                case "-c":
+                case "--config":
+                    configFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--errors":
+                    errorsFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--mode":
+                    mode = parseMode(value(args, ++i, arg));
+                    break;
+                case "-p":
+                case "--parallelism":
+                    try {
+                        parallelism = Math.max(1, Integer.parseInt(value(args, ++i, arg)));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(arg + " 需要整数参数");
+                    }
+                    break;
+                case "--all":
+                    all = true;
+                    break;
+                case "--dry-run":
+                    dryRun = true;
+                    break;
+                case "--progress":
+                    progress = true;
+                    break;
+                case "--follow-links":
+                    followLinks = true;
+                    break;
+                case "--violations":
+                    violationKeys = value(args, ++i, arg);
+                    break;
+                case "--rules":
+                    rulesFile = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--future-tolerance":
+                    futureToleranceMillis = RuleSetLoader.parseDuration(arg, value(args, ++i, arg));
+                    break;
+                case "--unix-attributes":
+                    extendedAttributes = true;
+                    break;
+                case "--directories":
+                    includeDirectories = true;
+                    break;
+                case "--outliers":
+                    detectOutliers = true;
+                    break;
+                case "--outlier-threshold":
+                    try {
+                        outlierThreshold = Double.parseDouble(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        outlierThreshold = -1;
+                    }
+                    if (!(outlierThreshold > 0) || Double.isInfinite(outlierThreshold)) {
+                        throw new IllegalArgumentException(arg + " 需要大于 0 的倍数");
+                    }
+                    detectOutliers = true;
+                    break;
+                case "--dedup":
+                    deduplicate = true;
+                    break;
+                case "--checkpoint":
+                    checkpoint = true;
+                    break;
+                case "--resume":
+                    resume = true;
+                    break;
+                case "--exclude-dir":
+                    filter.getExcludeDirectories().addAll(ScanFilter.parseList(value(args, ++i, arg)));
+                    break;
+                case "--include":
+                    filter.getIncludeFiles().addAll(ScanFilter.parseList(value(args, ++i, arg)));
+                    break;
+                case "--exclude":
+                    filter.getExcludeFiles().addAll(ScanFilter.parseList(value(args, ++i, arg)));
+                    break;
+                case "--ext":
+                    filter.getExtensions().addAll(ScanFilter.parseList(value(args, ++i, arg)));
+                    break;
+                case "--max-depth":
+                    filter.setMaxDepth((int) parseCount(value(args, ++i, arg), arg));
+                    break;
+                case "--min-size":
+                    filter.setMinSize(parseCount(value(args, ++i, arg), arg));
+                    break;
+                case "--max-size":
+                    filter.setMaxSize(parseCount(value(args, ++i, arg), arg));
+                    break;
+                case "--sample-rate":
+                    try {
+                        sampleRate = Double.parseDouble(value(args, ++i, arg));
+                    } catch (NumberFormatException e) {
+                        sampleRate = -1;
+                    }
+                    if (!(sampleRate > 0 && sampleRate <= 1)) {
+                        throw new IllegalArgumentException(arg + " 需要 0 到 1 之间的比例");
+                    }
+                    break;
+                case "--time-limit":
+                    timeLimitMillis = Math.max(1, parseCount(value(args, ++i, arg), arg)) * 1000;
+                    break;
+                case "--store-limit":
+                    parseStoreLimits(value(args, ++i, arg), arg);
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        throw new IllegalArgumentException("未知选项: " + arg);
+                    }
+                    Path path = Paths.get(arg);
+                    if (!Files.exists(path)) {
+                        throw new IllegalArgumentException("无效的文件路径: " + arg);
+                    }
+                    paths.add(path);
+                    break;
+            }
+        }
+
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("缺少扫描路径");
+        }
+        // 规范化并合并互相包含的路径，避免同一文件输出两次
+        SourceRootSet roots = new SourceRootSet();
+        for (Path path : paths) {
+            roots.add(SourceRootSet.resolve(path));
+        }
+        paths.clear();
+        paths.addAll(roots.getPaths());
+        if (configFile != null && command != Command.REPAIR) {
+            throw new IllegalArgumentException("--config 只能用于 repair 命令");
+        }
+        if ((checkpoint || resume) && followLinks) {
+            throw new IllegalArgumentException("--checkpoint/--resume 不能与 --follow-links 同时使用");
+        }
+        if ((checkpoint || resume) && includeDirectories) {
+            throw new IllegalArgumentException("--checkpoint/--resume 不能与 --directories 同时使用（断点只记录文件）");
+        }
+        if ((checkpoint || resume) && detectOutliers) {
+            throw new IllegalArgumentException("--checkpoint/--resume 不能与 --outliers 同时使用（恢复前已扫描的文件不参与目录分布）");
+        }
+        if (mode == ScanConfig.ScanMode.VIRTUAL_THREAD && !VirtualThreadFileTreeScanner.isSupported()) {
+            throw new IllegalArgumentException("虚拟线程扫描需要 JDK 21 或更高版本");
+        }
+    }
+
+    private static ScanConfig.ScanMode parseMode(String value) {
+        switch (value.toLowerCase()) {
+            case "sequential":
+                return ScanConfig.ScanMode.SEQUENTIAL;
+            case "parallel":
+                return ScanConfig.ScanMode.PARALLEL;
+            case "virtual":
+                return ScanConfig.ScanMode.VIRTUAL_THREAD;
+            default:
+                throw new IllegalArgumentException("未知扫描模式: " + value);
+        }
+    }
+
+    private static long parseCount(String value, String option) {
+        try {
+            long count = Long.parseLong(value);
+            if (count < 0) {
+                throw new NumberFormatException();
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " 需要非负整数参数");
+        }
+    }
+
+    /**
+     * 解析 --violations 的规则列表（内置规则、规则文件中的标识或 custom-rule），返回违规位掩码
+     */
+    private static int parseViolations(String value, RuleSet ruleSet) {
+        int mask = 0;
+        for (String key : ScanFilter.parseList(value)) {
+            int bits = ruleSet.maskOf(key);
+            if (bits == 0) {
+                throw new IllegalArgumentException("未知的校验规则: " + key);
+            }
+            mask |= bits;
+        }
+        if (mask == 0) {
+            throw new IllegalArgumentException("--violations 至少需要一条规则");
+        }
+        return mask;
+    }
+
+    private static LongAdder[] newCounters(int length) {
+        LongAdder[] counters = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * 解析 "卷或类型=n,..."，卷名可能含空格，只按逗号和分号分隔
+     */
+    private void parseStoreLimits(String value, String option) {
+        for (String item : value.split("[,;]")) {
+            int eq = item.lastIndexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException(option + " 格式应为 卷或类型=并发数: " + item);
+            }
+            long limit = parseCount(item.substring(eq + 1).trim(), option);
+            storeLimits.setStoreLimit(item.substring(0, eq).trim(), (int) Math.min(limit, Integer.MAX_VALUE));
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(option + " 缺少参数");
+        }
+        return args[index];
+    }
+
+    private static void printUsage() {
+        System.err.println("用法: filetimecheck-cli <scan|validate|repair|estimate> [选项] <路径>...");
+        System.err.println();
+        System.err.println("命令:");
+        System.err.println("  scan       输出所有文件的时间和校验状态");
+        System.err.println("  validate   只输出异常文件，发现异常时退出码为 " + EXIT_ABNORMAL);
+        System.err.println("  repair     修复异常文件的时间并输出修复后的时间");
+        System.err.println("  estimate   随机抽样估算文件数和各类异常的数量（附 95% 置信区间），几秒内完成");
+        System.err.println();
+        System.err.println("选项:");
+        System.err.println("  -o, --output <文件>        结果写入文件（默认标准输出，UTF-8）");
+        System.err.println("  -c, --config <文件>        修复配置 properties 文件（repair，默认使用默认配置）");
+        System.err.println("  --errors <文件>            错误汇总（按类型分组，每类保留部分样本）写入文件");
+        System.err.println("  --mode <sequential|parallel|virtual>  扫描模式（默认 sequential）");
+        System.err.println("  -p, --parallelism <n>      并行度；virtual 模式下为最大并发请求数");
+        System.err.println("  --sample-rate <比例>        estimate 在大目录中读取属性的条目比例（默认 0.01）");
+        System.err.println("  --time-limit <秒>          estimate 的用时上限（默认 10）");
+        System.err.println("  --store-limit <卷=n,...>   按卷单独设置并发数，卷可写卷名或文件系统类型，如 /dev/sdb1=2,nfs=64");
+        System.err.println("  --all                      validate 输出所有文件；repair 修复所有文件");
+        System.err.println("  --dry-run                  repair 只列出待修复文件，不修改");
+        System.err.println("  --progress                 在标准错误输出显示进度");
+        System.err.println("  --violations <规则,...>    只把这些规则计为异常（validate 输出、repair 修复的对象），默认全部：");
+        System.err.println("                             modified-before-created, accessed-before-modified, future-time, pre-1970,");
+        System.err.println("                             规则文件中的标识，或 custom-rule（任一自定义规则）");
+        System.err.println("  --rules <文件>             校验规则 properties 文件（默认 ~/.filetimecheck/rules.properties，存在时）");
+        System.err.println("  --future-tolerance <时长>  未来时间容差（时钟偏差），如 5m、2h，覆盖规则文件中的 future.tolerance");
+        System.err.println("  --unix-attributes          Linux 上一次读取 ctime、inode、设备号；以 -Pstatx 构建时通过 statx 读取真实创建时间；");
+        System.err.println("                             并检查修改时间晚于状态变更时间（modified-after-changed，修改时间被显式设为更晚的值）");
+        System.err.println("  --follow-links             跟随符号链接（链接成环或重复指向同一目录时只扫描一次）");
+        System.err.println("  --directories              目录也作为结果（路径以分隔符结尾），并检查目录修改时间早于子项创建时间、");
+        System.err.println("                             子项创建时间早于所在目录（directory-older-than-child, child-before-directory）；");
+        System.err.println("                             读不到真实创建时间时（如 Linux 上未用 statx）不检查这两条规则");
+        System.err.println("  --outliers                 按目录检测修改时间离群的文件（time-outlier）：超出四分位数 3 倍四分位距（至少按 30 天计）");
+        System.err.println("  --outlier-threshold <倍数> 离群阈值，默认 3，隐含 --outliers");
+        System.err.println("  --dedup                    按 fileKey 合并硬链接，同一物理文件只校验、修复一次");
+        System.err.println("  --checkpoint               定期写扫描断点（单线程扫描），中断后可用 --resume 继续");
+        System.err.println("  --resume                   从上次的断点继续（先输出断点中已扫描的文件），没有断点时从头扫描");
+        System.err.println("  --exclude-dir <glob,...>   跳过匹配的目录（整棵子树不列举），如 .git,node_modules");
+        System.err.println("  --include <glob,...>       只保留匹配的文件");
+        System.err.println("  --exclude <glob,...>       排除匹配的文件");
+        System.err.println("  --ext <扩展名,...>          只保留这些扩展名的文件");
+        System.err.println("  --max-depth <n>            最大深度（路径下的文件为 1）");
+        System.err.println("  --min-size <字节>          最小文件大小");
+        System.err.println("  --max-size <字节>          最大文件大小");
+        System.err.println("  glob 不含 / 时匹配名称，含 / 时匹配相对扫描路径的路径，支持 * ** ? [..] {a,b}");
+        System.err.println();
+        System.err.println("退出码: 0 成功, 1 有异常/修复失败, 2 参数错误, 3 有文件无法读取");
+    }
+
+    /**
+     * 等待离群评分的文件：校验结果（全部规则）和三个时间
+     */
+    private static class PendingFile {
+        private final Path file;
+        private final int violations;
+        private final long created;
+        private final long modified;
+        private final long accessed;
+
+        PendingFile(Path file, int violations, long created, long modified, long accessed) {
+            this.file = file;
+            this.violations = violations;
+            this.created = created;
+            this.modified = modified;
+            this.accessed = accessed;
+        }
+    }
+}
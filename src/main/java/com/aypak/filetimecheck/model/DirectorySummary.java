@@ -0,0 +1,66 @@
+package com.aypak.filetimecheck.model;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 目录直接子项的时间汇总：子项数、最早和最晚的创建时间（epoch 毫秒）
+ * 扫描引擎列举目录时逐项累加（含被过滤规则排除的子项），列举完成后随目录交给监听器，
+ * 目录一致性规则据此校验，无需再次遍历；只在列举该目录的线程中修改
+ * 子项只包括目录和普通文件（含按目标处理的指向普通文件的链接），其他条目不计入：
+ * 增量扫描复用的扫描索引只记录这两类条目，各引擎按同一口径汇总
+ */
+public class DirectorySummary {
+
+    private int children;
+    private long minCreationTime = Long.MAX_VALUE;
+    private long maxCreationTime = FileResultStore.NO_TIME;
+
+    /**
+     * 计入一个子项，不是目录或普通文件时忽略
+     */
+    public void add(BasicFileAttributes attrs) {
+        if (attrs.isDirectory() || attrs.isRegularFile()) {
+            add(FileResultStore.toEpochMillis(attrs.creationTime()));
+        }
+    }
+
+    /**
+     * 计入一个子项的创建时间，NO_TIME 只计数
+     */
+    public void add(long creationTime) {
+        children++;
+        if (creationTime == FileResultStore.NO_TIME) {
+            return;
+        }
+        minCreationTime = Math.min(minCreationTime, creationTime);
+        maxCreationTime = Math.max(maxCreationTime, creationTime);
+    }
+
+    /**
+     * 只保留子项数的副本（最早、最晚创建时间为 NO_TIME，目录规则不再触发）
+     * 用于目录没有真实出生时间的情况：此时子项的创建时间同样只是修改时间的替代值
+     */
+    public DirectorySummary withoutCreationTimes() {
+        DirectorySummary copy = new DirectorySummary();
+        copy.children = children;
+        return copy;
+    }
+
+    public int getChildren() {
+        return children;
+    }
+
+    /**
+     * 最早的子项创建时间，没有子项时为 NO_TIME
+     */
+    public long getMinCreationTime() {
+        return maxCreationTime == FileResultStore.NO_TIME ? FileResultStore.NO_TIME : minCreationTime;
+    }
+
+    /**
+     * 最晚的子项创建时间，没有子项时为 NO_TIME
+     */
+    public long getMaxCreationTime() {
+        return maxCreationTime;
+    }
+}
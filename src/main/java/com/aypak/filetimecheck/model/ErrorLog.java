@@ -0,0 +1,211 @@
+package com.aypak.filetimecheck.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 错误汇总
+ * 按 "操作 + 异常类型" 分组计数，每组只保留前若干条样本（路径和消息），
+ * 权限问题成片出现时不会逐条打印或无限占用内存
+ *
+ * 线程安全，扫描工作线程、监控线程和修复任务可以同时记录
+ */
+public class ErrorLog {
+
+    /**
+     * 出错的操作
+     */
+    public enum Operation {
+        READ("读取"),
+        REPAIR("修复"),
+        WATCH("监控");
+
+        private final String displayName;
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 每组默认保留的样本数
+     */
+    public static final int DEFAULT_SAMPLE_LIMIT = 20;
+
+    private final int sampleLimit;
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    public ErrorLog() {
+        this(DEFAULT_SAMPLE_LIMIT);
+    }
+
+    public ErrorLog(int sampleLimit) {
+        this.sampleLimit = Math.max(0, sampleLimit);
+    }
+
+    /**
+     * 记录一次错误
+     */
+    public void record(Operation operation, Path path, Throwable error) {
+        String type = error.getClass().getSimpleName();
+        Group group = groups.computeIfAbsent(operation.name() + '|' + type, key -> new Group(operation, type));
+        group.add(path != null ? path.toString() : "", error.getMessage(), sampleLimit);
+        total.increment();
+    }
+
+    /**
+     * 并入另一份汇总的计数和样本（样本仍受本汇总的上限约束）
+     */
+    public void addAll(ErrorLog other) {
+        for (Group source : other.groups.values()) {
+            Group group = groups.computeIfAbsent(source.operation.name() + '|' + source.type,
+                    key -> new Group(source.operation, source.type));
+            group.addAll(source, sampleLimit);
+            total.add(source.getCount());
+        }
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public boolean isEmpty() {
+        return total.sum() == 0;
+    }
+
+    /**
+     * 所有分组，按次数从多到少排列
+     */
+    public List<Group> getGroups() {
+        List<Group> list = new ArrayList<>(groups.values());
+        list.sort(Comparator.comparingLong(Group::getCount).reversed());
+        return list;
+    }
+
+    /**
+     * 简要说明，例如 "读取 AccessDeniedException: 1,234 次"，超过 maxGroups 组时省略其余
+     */
+    public String summary(int maxGroups) {
+        List<Group> list = getGroups();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(maxGroups, list.size()); i++) {
+            Group group = list.get(i);
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(String.format("%s %s: %,d 次", group.getOperation().getDisplayName(), group.getType(), group.getCount()));
+        }
+        if (list.size() > maxGroups) {
+            sb.append("\n... 还有 ").append(list.size() - maxGroups).append(" 类错误");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 导出为 UTF-8 制表符分隔文件: 操作  异常类型  次数  样本路径  消息（每条样本一行）
+     */
+    public void export(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("操作\t异常类型\t次数\t路径\t消息\n");
+            for (Group group : getGroups()) {
+                String prefix = group.getOperation().getDisplayName() + '\t' + group.getType() + '\t' + group.getCount() + '\t';
+                for (Sample sample : group.getSamples()) {
+                    writer.write(prefix + sample.getPath() + '\t' + sample.getMessage() + '\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * 同一操作、同一异常类型的错误
+     */
+    public static class Group {
+        private final Operation operation;
+        private final String type;
+        private final LongAdder count = new LongAdder();
+        private final List<Sample> samples = new ArrayList<>();
+
+        Group(Operation operation, String type) {
+            this.operation = operation;
+            this.type = type;
+        }
+
+        private void add(String path, String message, int sampleLimit) {
+            count.increment();
+            synchronized (samples) {
+                if (samples.size() < sampleLimit) {
+                    samples.add(new Sample(path, message != null ? message : ""));
+                }
+            }
+        }
+
+        private void addAll(Group other, int sampleLimit) {
+            count.add(other.getCount());
+            List<Sample> otherSamples = other.getSamples();
+            synchronized (samples) {
+                for (int i = 0; i < otherSamples.size() && samples.size() < sampleLimit; i++) {
+                    samples.add(otherSamples.get(i));
+                }
+            }
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * 异常类名（不含包名）
+         */
+        public String getType() {
+            return type;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * 样本副本（最多 sampleLimit 条，按发生顺序）
+         */
+        public List<Sample> getSamples() {
+            synchronized (samples) {
+                return new ArrayList<>(samples);
+            }
+        }
+    }
+
+    /**
+     * 一条错误样本
+     */
+    public static class Sample {
+        private final String path;
+        private final String message;
+
+        public Sample(String path, String message) {
+            this.path = path;
+            this.message = message;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.aypak.filetimecheck.model;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 表格数据源
+ * 数据保存在 FileResultStore 中，get 时才创建 FileRow 视图，表格只会为可见行取值
+ * 表格排序通过 setAll 传入重排后的行，转换为存储的重排
+ */
+public class FileResultList extends ObservableListBase<FileRow> {
+
+    private final FileResultStore store;
+
+    public FileResultList() {
+        this(new FileResultStore());
+    }
+
+    public FileResultList(FileResultStore store) {
+        this.store = store;
+    }
+
+    public FileResultStore getStore() {
+        return store;
+    }
+
+    @Override
+    public FileRow get(int index) {
+        Objects.checkIndex(index, store.size());
+        return new FileRow(store, index);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * 追加一批扫描结果
+     */
+    public void append(List<FileResultStore.Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int from = store.size();
+        for (FileResultStore.Entry entry : batch) {
+            entry.addTo(store);
+        }
+        beginChange();
+        nextAdd(from, store.size());
+        endChange();
+    }
+
+    /**
+     * 删除指定的行
+     */
+    public void removeRows(int[] rows) {
+        int[] sorted = Arrays.stream(rows).sorted().distinct().toArray();
+        if (sorted.length == 0) {
+            return;
+        }
+
+        // 按连续区间记录删除事件，区间起点换算为删除之后的位置
+        List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= sorted.length; i++) {
+            if (i == sorted.length || sorted[i] != sorted[i - 1] + 1) {
+                ranges.add(new int[]{sorted[start], i - start});
+                start = i;
+            }
+        }
+        List<List<FileRow>> removed = new ArrayList<>(ranges.size());
+        for (int[] range : ranges) {
+            List<FileRow> views = new ArrayList<>(range[1]);
+            for (int i = 0; i < range[1]; i++) {
+                views.add(new FileRow(store, range[0] + i));
+            }
+            removed.add(views);
+        }
+
+        store.remove(sorted);
+
+        beginChange();
+        int removedBefore = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            nextRemove(ranges.get(i)[0] - removedBefore, removed.get(i));
+            removedBefore += ranges.get(i)[1];
+        }
+        endChange();
+    }
+
+    /**
+     * 接收排序后的行并重排存储（TableView 排序时调用）
+     */
+    @Override
+    public boolean setAll(Collection<? extends FileRow> rows) {
+        int size = store.size();
+        if (rows.size() != size) {
+            throw new UnsupportedOperationException("只支持重排已有的行");
+        }
+
+        int[] order = new int[size];
+        BitSet seen = new BitSet(size);
+        int i = 0;
+        for (FileRow row : rows) {
+            int index = row.getIndex();
+            if (index < 0 || index >= size || seen.get(index)) {
+                throw new UnsupportedOperationException("只支持重排已有的行");
+            }
+            seen.set(index);
+            order[i++] = index;
+        }
+
+        int[] permutation = new int[size];
+        for (int newIndex = 0; newIndex < size; newIndex++) {
+            permutation[order[newIndex]] = newIndex;
+        }
+        store.reorder(order);
+
+        beginChange();
+        nextPermutation(0, size, permutation);
+        endChange();
+        return true;
+    }
+}
@@ -0,0 +1,610 @@
+package com.aypak.filetimecheck.model;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 扫描结果列式存储
+ * 三个时间以 epoch 毫秒保存在 long 数组中，校验结果以违规位掩码（见 RuleSet）保存在 int 数组中，
+ * 路径拆成目录编号（见 PathTable，同一目录只保存一次）和文件名，文件名以 UTF-8 连续存放在同一个字节缓冲区里，
+ * 每行只占几十字节，不为每个文件创建对象
+ * 合并硬链接时，同一物理文件的其他路径（别名）保存在稀疏的别名表中，只有存在别名的行才占用
+ * 目录行另外保存扫描时汇总的直接子项创建时间（最早、最晚），用于重新校验目录规则，同样只有目录行才占用
+ * 启用离群检测时按目录（PathTable 编号）保存扫描得到的离群边界，用于重新校验离群规则
+ *
+ * 只能在单个线程（FX 线程）中修改；后台任务可以读取，但结果需回到 FX 线程再写入
+ */
+public class FileResultStore {
+
+    /**
+     * 时间缺失（文件系统不支持该时间属性）
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * 违规位掩码：未校验
+     */
+    public static final int UNVALIDATED = -1;
+
+    private static final int NO_ALIASES = -1;
+    private static final int NOT_DIRECTORY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private long[] creationTimes = new long[INITIAL_CAPACITY];
+    private long[] modifiedTimes = new long[INITIAL_CAPACITY];
+    private long[] accessTimes = new long[INITIAL_CAPACITY];
+    private int[] statuses = new int[INITIAL_CAPACITY];
+
+    // 状态变更时间（ctime），只有扩展属性后端能读到，在第一次写入前为 null；没有时为 NO_TIME
+    private long[] changeTimes;
+
+    // 第 i 行的文件名为 nameBuffer[nameOffsets[i], nameOffsets[i + 1])，所在目录为 directoryIds[i]
+    private int[] directoryIds = new int[INITIAL_CAPACITY];
+    private int[] nameOffsets = new int[INITIAL_CAPACITY + 1];
+    private byte[] nameBuffer = new byte[INITIAL_CAPACITY * 16];
+    private PathTable pathTable = new PathTable();
+
+    // 第 i 行的别名为 aliasLists.get(aliasIds[i])，没有别名时为 NO_ALIASES
+    private int[] aliasIds = new int[INITIAL_CAPACITY];
+    private List<String[]> aliasLists = new ArrayList<>();
+
+    // 第 i 行为目录时，其子项最早、最晚创建时间为 childCreationTimes[2k]、[2k + 1]，k = childIds[i]；不是目录时为 NOT_DIRECTORY
+    private int[] childIds = new int[INITIAL_CAPACITY];
+    private long[] childCreationTimes = new long[0];
+    private int directoryCount;
+
+    // 编号为 k 的目录中文件的离群边界，没有时为 null
+    private TimeFence[] outlierFences = new TimeFence[0];
+    private int outlierFenceCount;
+
+    // 行号发生变化（删除、重排、清空）时递增，后台任务据此判断记录的行号是否仍然有效
+    private int version;
+
+    // 进行中的批量校验登记的修改记录：登记之后追加或修改过时间的行
+    private final List<BitSet> modificationTrackers = new ArrayList<>();
+
+    // 产生违规位掩码的规则集，用于显示结果
+    private RuleSet ruleSet = RuleSet.builtIn();
+
+    public int size() {
+        return size;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public PathTable getPathTable() {
+        return pathTable;
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * 设置校验所用的规则集（清空时保留）
+     */
+    public void setRuleSet(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    /**
+     * 追加一行，返回行号
+     * @param violations 违规位掩码，UNVALIDATED 表示未校验
+     */
+    public int add(String path, long creationTime, long modifiedTime, long accessTime, int violations) {
+        ensureCapacity(size + 1);
+        String directory = PathTable.directoryOf(path);
+        byte[] bytes = PathTable.nameOf(path).getBytes(StandardCharsets.UTF_8);
+        int start = nameOffsets[size];
+        ensureNameCapacity(start + bytes.length);
+        System.arraycopy(bytes, 0, nameBuffer, start, bytes.length);
+
+        int row = size++;
+        nameOffsets[size] = start + bytes.length;
+        directoryIds[row] = directory != null ? pathTable.intern(directory) : PathTable.NO_DIRECTORY;
+        creationTimes[row] = creationTime;
+        modifiedTimes[row] = modifiedTime;
+        accessTimes[row] = accessTime;
+        if (changeTimes != null) {
+            changeTimes[row] = NO_TIME;
+        }
+        statuses[row] = violations;
+        aliasIds[row] = NO_ALIASES;
+        childIds[row] = NOT_DIRECTORY;
+        markModified(row);
+        return row;
+    }
+
+    /**
+     * 追加一个目录行，返回行号
+     * @param minChildCreation 最早的直接子项创建时间，没有子项时为 NO_TIME
+     * @param maxChildCreation 最晚的直接子项创建时间，没有子项时为 NO_TIME
+     */
+    public int addDirectory(String path, long creationTime, long modifiedTime, long accessTime, int violations,
+                            long minChildCreation, long maxChildCreation) {
+        int row = add(path, creationTime, modifiedTime, accessTime, violations);
+        if (2 * directoryCount + 2 > childCreationTimes.length) {
+            childCreationTimes = Arrays.copyOf(childCreationTimes, Math.max(64, childCreationTimes.length * 2));
+        }
+        childCreationTimes[2 * directoryCount] = minChildCreation;
+        childCreationTimes[2 * directoryCount + 1] = maxChildCreation;
+        childIds[row] = directoryCount++;
+        return row;
+    }
+
+    public boolean isDirectory(int row) {
+        return childIds[row] != NOT_DIRECTORY;
+    }
+
+    /**
+     * 目录行的最早子项创建时间；不是目录或没有子项时为 NO_TIME
+     */
+    public long getMinChildCreationTime(int row) {
+        int id = childIds[row];
+        return id != NOT_DIRECTORY ? childCreationTimes[2 * id] : NO_TIME;
+    }
+
+    /**
+     * 目录行的最晚子项创建时间；不是目录或没有子项时为 NO_TIME
+     */
+    public long getMaxChildCreationTime(int row) {
+        int id = childIds[row];
+        return id != NOT_DIRECTORY ? childCreationTimes[2 * id + 1] : NO_TIME;
+    }
+
+    /**
+     * 是否可能含有目录行（删除行后不重新统计，只用于跳过不含目录的情况）
+     */
+    public boolean hasDirectories() {
+        return directoryCount > 0;
+    }
+
+    /**
+     * 记录一个目录的离群边界（扫描结束后调用）
+     * @return 存储中没有该目录下的行时返回 false
+     */
+    public boolean setOutlierFence(String directory, TimeFence fence) {
+        // 与 PathTable.directoryOf 一致：根目录不含结尾的分隔符
+        int id = pathTable.find(directory.endsWith(File.separator)
+                ? directory.substring(0, directory.length() - 1) : directory);
+        if (id == PathTable.NO_DIRECTORY) {
+            return false;
+        }
+        if (id >= outlierFences.length) {
+            outlierFences = Arrays.copyOf(outlierFences, Math.max(pathTable.size(), id + 1));
+        }
+        if (outlierFences[id] == null) {
+            outlierFenceCount++;
+        }
+        outlierFences[id] = fence;
+        return true;
+    }
+
+    /**
+     * 所在目录的离群边界，没有时为 null
+     */
+    public TimeFence getOutlierFence(int row) {
+        int id = directoryIds[row];
+        return id != PathTable.NO_DIRECTORY && id < outlierFences.length ? outlierFences[id] : null;
+    }
+
+    public boolean hasOutlierFences() {
+        return outlierFenceCount > 0;
+    }
+
+    /**
+     * 拼接完整路径（仅在显示或读写文件时调用）
+     */
+    public String getPath(int row) {
+        return pathTable.resolve(directoryIds[row], getName(row));
+    }
+
+    public String getName(int row) {
+        int start = nameOffsets[row];
+        return new String(nameBuffer, start, nameOffsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 所在目录编号，PathTable.NO_DIRECTORY 表示没有目录部分
+     */
+    public int getDirectoryId(int row) {
+        return directoryIds[row];
+    }
+
+    public long getCreationTime(int row) {
+        return creationTimes[row];
+    }
+
+    public long getModifiedTime(int row) {
+        return modifiedTimes[row];
+    }
+
+    public long getAccessTime(int row) {
+        return accessTimes[row];
+    }
+
+    /**
+     * 更新一行的时间，ctime 变为未知（如修复后系统已把 ctime 更新为修复时刻）
+     */
+    public void setTimes(int row, long creationTime, long modifiedTime, long accessTime) {
+        setTimes(row, creationTime, modifiedTime, accessTime, NO_TIME);
+    }
+
+    public void setTimes(int row, long creationTime, long modifiedTime, long accessTime, long changeTime) {
+        creationTimes[row] = creationTime;
+        modifiedTimes[row] = modifiedTime;
+        accessTimes[row] = accessTime;
+        setChangeTime(row, changeTime);
+        markModified(row);
+    }
+
+    public long getChangeTime(int row) {
+        return changeTimes != null ? changeTimes[row] : NO_TIME;
+    }
+
+    public void setChangeTime(int row, long changeTime) {
+        if (changeTimes == null) {
+            if (changeTime == NO_TIME) {
+                return;
+            }
+            changeTimes = new long[creationTimes.length];
+            Arrays.fill(changeTimes, NO_TIME);
+        }
+        changeTimes[row] = changeTime;
+    }
+
+    /**
+     * 是否有行读到了 ctime
+     */
+    public boolean hasChangeTimes() {
+        return changeTimes != null;
+    }
+
+    /**
+     * 开始记录此后追加或修改过时间的行（如监视模式的更新），后台批量校验据此跳过快照之后变化的行
+     * 追加、修改不改变 version，不能用 version 判断；用完需调用 stopTracking
+     */
+    public BitSet trackModifications() {
+        BitSet rows = new BitSet();
+        modificationTrackers.add(rows);
+        return rows;
+    }
+
+    public void stopTracking(BitSet rows) {
+        // 按引用移除（BitSet.equals 比较内容）
+        modificationTrackers.removeIf(tracker -> tracker == rows);
+    }
+
+    private void markModified(int row) {
+        for (BitSet rows : modificationTrackers) {
+            rows.set(row);
+        }
+    }
+
+    /**
+     * 同一物理文件的其他路径（硬链接、绑定挂载），没有时返回空列表
+     */
+    public List<String> getAliases(int row) {
+        int id = aliasIds[row];
+        return id == NO_ALIASES ? Collections.emptyList() : Arrays.asList(aliasLists.get(id));
+    }
+
+    public void setAliases(int row, List<String> aliases) {
+        if (aliases.isEmpty()) {
+            aliasIds[row] = NO_ALIASES;
+        } else {
+            aliasIds[row] = aliasLists.size();
+            aliasLists.add(aliases.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * 违规位掩码，0 为正常，未校验时为 UNVALIDATED
+     */
+    public int getViolations(int row) {
+        return statuses[row];
+    }
+
+    public void setViolations(int row, int violations) {
+        statuses[row] = violations;
+    }
+
+    /**
+     * 是否违反 mask 中的任一规则（未校验的行不算）
+     */
+    public boolean hasViolation(int row, int mask) {
+        int status = statuses[row];
+        return status != UNVALIDATED && (status & mask) != 0;
+    }
+
+    /**
+     * 最主要的一项校验结果（见 ValidationResult.primary），未校验时返回 null
+     */
+    public ValidationResult getStatus(int row) {
+        int status = statuses[row];
+        return status == UNVALIDATED ? null : ValidationResult.primary(status);
+    }
+
+    /**
+     * 批量写入校验结果
+     * @param violations 每行的违规位掩码，UNVALIDATED 表示未校验；只写入前 min(行数, 数组长度) 行
+     */
+    public void setViolations(int[] violations) {
+        System.arraycopy(violations, 0, statuses, 0, Math.min(size, violations.length));
+    }
+
+    /**
+     * 把 [from, from + length) 行的三个时间复制到给定数组的开头
+     */
+    public void copyTimes(int from, int length, long[] creationTimes, long[] modifiedTimes, long[] accessTimes) {
+        System.arraycopy(this.creationTimes, from, creationTimes, 0, length);
+        System.arraycopy(this.modifiedTimes, from, modifiedTimes, 0, length);
+        System.arraycopy(this.accessTimes, from, accessTimes, 0, length);
+    }
+
+    /**
+     * 删除指定的行（行号需升序且不重复），其余行保持相对顺序并向前移动
+     */
+    public void remove(int[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+
+        int write = rows[0];
+        int nameWrite = nameOffsets[write];
+        int next = 0;
+        for (int read = rows[0]; read < size; read++) {
+            if (next < rows.length && rows[next] == read) {
+                next++;
+                continue;
+            }
+            int start = nameOffsets[read];
+            int length = nameOffsets[read + 1] - start;
+            System.arraycopy(nameBuffer, start, nameBuffer, nameWrite, length);
+            nameOffsets[write] = nameWrite;
+            nameWrite += length;
+
+            directoryIds[write] = directoryIds[read];
+            creationTimes[write] = creationTimes[read];
+            modifiedTimes[write] = modifiedTimes[read];
+            accessTimes[write] = accessTimes[read];
+            if (changeTimes != null) {
+                changeTimes[write] = changeTimes[read];
+            }
+            statuses[write] = statuses[read];
+            aliasIds[write] = aliasIds[read];
+            childIds[write] = childIds[read];
+            write++;
+        }
+        size = write;
+        nameOffsets[size] = nameWrite;
+        version++;
+    }
+
+    /**
+     * 按新顺序重排所有行
+     * @param order order[i] 为重排后第 i 行原来的行号
+     */
+    public void reorder(int[] order) {
+        long[] newCreationTimes = new long[creationTimes.length];
+        long[] newModifiedTimes = new long[modifiedTimes.length];
+        long[] newAccessTimes = new long[accessTimes.length];
+        long[] newChangeTimes = changeTimes != null ? new long[changeTimes.length] : null;
+        int[] newStatuses = new int[statuses.length];
+        int[] newDirectoryIds = new int[directoryIds.length];
+        int[] newAliasIds = new int[aliasIds.length];
+        int[] newChildIds = new int[childIds.length];
+        int[] newNameOffsets = new int[nameOffsets.length];
+        byte[] newNameBuffer = new byte[nameBuffer.length];
+
+        int nameWrite = 0;
+        for (int i = 0; i < size; i++) {
+            int source = order[i];
+            newCreationTimes[i] = creationTimes[source];
+            newModifiedTimes[i] = modifiedTimes[source];
+            newAccessTimes[i] = accessTimes[source];
+            if (newChangeTimes != null) {
+                newChangeTimes[i] = changeTimes[source];
+            }
+            newStatuses[i] = statuses[source];
+            newDirectoryIds[i] = directoryIds[source];
+            newAliasIds[i] = aliasIds[source];
+            newChildIds[i] = childIds[source];
+
+            int start = nameOffsets[source];
+            int length = nameOffsets[source + 1] - start;
+            System.arraycopy(nameBuffer, start, newNameBuffer, nameWrite, length);
+            newNameOffsets[i] = nameWrite;
+            nameWrite += length;
+        }
+        newNameOffsets[size] = nameWrite;
+
+        creationTimes = newCreationTimes;
+        modifiedTimes = newModifiedTimes;
+        accessTimes = newAccessTimes;
+        changeTimes = newChangeTimes;
+        statuses = newStatuses;
+        directoryIds = newDirectoryIds;
+        aliasIds = newAliasIds;
+        childIds = newChildIds;
+        nameOffsets = newNameOffsets;
+        nameBuffer = newNameBuffer;
+        version++;
+    }
+
+    /**
+     * 清空所有行并释放缓冲区
+     */
+    public void clear() {
+        size = 0;
+        creationTimes = new long[INITIAL_CAPACITY];
+        modifiedTimes = new long[INITIAL_CAPACITY];
+        accessTimes = new long[INITIAL_CAPACITY];
+        changeTimes = null;
+        statuses = new int[INITIAL_CAPACITY];
+        directoryIds = new int[INITIAL_CAPACITY];
+        nameOffsets = new int[INITIAL_CAPACITY + 1];
+        nameBuffer = new byte[INITIAL_CAPACITY * 16];
+        pathTable = new PathTable();
+        aliasIds = new int[INITIAL_CAPACITY];
+        aliasLists = new ArrayList<>();
+        childIds = new int[INITIAL_CAPACITY];
+        childCreationTimes = new long[0];
+        directoryCount = 0;
+        outlierFences = new TimeFence[0];
+        outlierFenceCount = 0;
+        version++;
+    }
+
+    /**
+     * 释放数组中未使用的容量（扫描结束后调用）
+     */
+    public void trimToSize() {
+        int capacity = Math.max(size, 1);
+        creationTimes = Arrays.copyOf(creationTimes, capacity);
+        modifiedTimes = Arrays.copyOf(modifiedTimes, capacity);
+        accessTimes = Arrays.copyOf(accessTimes, capacity);
+        if (changeTimes != null) {
+            changeTimes = Arrays.copyOf(changeTimes, capacity);
+        }
+        statuses = Arrays.copyOf(statuses, capacity);
+        directoryIds = Arrays.copyOf(directoryIds, capacity);
+        aliasIds = Arrays.copyOf(aliasIds, capacity);
+        childIds = Arrays.copyOf(childIds, capacity);
+        childCreationTimes = Arrays.copyOf(childCreationTimes, 2 * directoryCount);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+        nameBuffer = Arrays.copyOf(nameBuffer, Math.max(nameOffsets[size], 1));
+    }
+
+    /**
+     * 转换为 epoch 毫秒，null 转为 NO_TIME
+     */
+    public static long toEpochMillis(FileTime time) {
+        return time != null ? time.toMillis() : NO_TIME;
+    }
+
+    /**
+     * 按系统时区转换为 epoch 毫秒，null 转为 NO_TIME
+     */
+    public static long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : NO_TIME;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= creationTimes.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, creationTimes.length + (creationTimes.length >> 1));
+        creationTimes = Arrays.copyOf(creationTimes, newCapacity);
+        modifiedTimes = Arrays.copyOf(modifiedTimes, newCapacity);
+        accessTimes = Arrays.copyOf(accessTimes, newCapacity);
+        if (changeTimes != null) {
+            changeTimes = Arrays.copyOf(changeTimes, newCapacity);
+        }
+        statuses = Arrays.copyOf(statuses, newCapacity);
+        directoryIds = Arrays.copyOf(directoryIds, newCapacity);
+        aliasIds = Arrays.copyOf(aliasIds, newCapacity);
+        childIds = Arrays.copyOf(childIds, newCapacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, newCapacity + 1);
+    }
+
+    private void ensureNameCapacity(int capacity) {
+        if (capacity > nameBuffer.length) {
+            nameBuffer = Arrays.copyOf(nameBuffer, Math.max(capacity, nameBuffer.length + (nameBuffer.length >> 1)));
+        }
+    }
+
+    /**
+     * 待写入存储的一条扫描结果（在扫描线程中创建，批量交给 FX 线程写入后即丢弃）
+     */
+    public static class Entry {
+        private final String path;
+        private final long creationTime;
+        private final long modifiedTime;
+        private final long accessTime;
+        private final long changeTime;
+        private final int violations;
+        private final DirectorySummary children;
+
+        /**
+         * @param violations 违规位掩码，UNVALIDATED 表示未校验
+         */
+        public Entry(String path, long creationTime, long modifiedTime, long accessTime, int violations) {
+            this(path, creationTime, modifiedTime, accessTime, violations, null);
+        }
+
+        /**
+         * @param children 目录的子项汇总，不是目录时为 null
+         */
+        public Entry(String path, long creationTime, long modifiedTime, long accessTime, int violations,
+                     DirectorySummary children) {
+            this(path, creationTime, modifiedTime, accessTime, NO_TIME, violations, children);
+        }
+
+        /**
+         * @param changeTime 状态变更时间（ctime），属性后端读不到时为 NO_TIME
+         * @param children 目录的子项汇总，不是目录时为 null
+         */
+        public Entry(String path, long creationTime, long modifiedTime, long accessTime, long changeTime, int violations,
+                     DirectorySummary children) {
+            this.path = path;
+            this.creationTime = creationTime;
+            this.modifiedTime = modifiedTime;
+            this.accessTime = accessTime;
+            this.changeTime = changeTime;
+            this.violations = violations;
+            this.children = children;
+        }
+
+        /**
+         * 写入存储，返回行号
+         */
+        public int addTo(FileResultStore store) {
+            int row = children == null
+                    ? store.add(path, creationTime, modifiedTime, accessTime, violations)
+                    : store.addDirectory(path, creationTime, modifiedTime, accessTime, violations,
+                            children.getMinCreationTime(), children.getMaxCreationTime());
+            store.setChangeTime(row, changeTime);
+            return row;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        public long getModifiedTime() {
+            return modifiedTime;
+        }
+
+        public long getAccessTime() {
+            return accessTime;
+        }
+
+        public long getChangeTime() {
+            return changeTime;
+        }
+
+        public int getViolations() {
+            return violations;
+        }
+
+        public boolean isDirectory() {
+            return children != null;
+        }
+    }
+}
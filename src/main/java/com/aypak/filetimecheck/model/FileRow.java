@@ -0,0 +1,83 @@
+package com.aypak.filetimecheck.model;
+
+import java.util.List;
+
+/**
+ * 表格行视图
+ * 只持有存储和行号，显示时才从 FileResultStore 读取，用完即丢弃
+ */
+public class FileRow {
+
+    private final FileResultStore store;
+    private final int index;
+
+    public FileRow(FileResultStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getFilePath() {
+        return store.getPath(index);
+    }
+
+    /**
+     * 是否为目录行（扫描时勾选“包含目录”）
+     */
+    public boolean isDirectory() {
+        return store.isDirectory(index);
+    }
+
+    /**
+     * 同一物理文件的其他路径
+     */
+    public List<String> getAliases() {
+        return store.getAliases(index);
+    }
+
+    /**
+     * 创建时间（epoch 毫秒，缺失时为 FileResultStore.NO_TIME），显示时再按时区格式化
+     */
+    public long getCreationTime() {
+        return store.getCreationTime(index);
+    }
+
+    public long getLastModifiedTime() {
+        return store.getModifiedTime(index);
+    }
+
+    public long getLastAccessTime() {
+        return store.getAccessTime(index);
+    }
+
+    public ValidationResult getValidationResult() {
+        return store.getStatus(index);
+    }
+
+    /**
+     * 违规位掩码，未校验时为 FileResultStore.UNVALIDATED
+     */
+    public int getViolations() {
+        return store.getViolations(index);
+    }
+
+    /**
+     * 状态文本，同时违反多条规则时全部列出
+     */
+    public String getStatus() {
+        int violations = store.getViolations(index);
+        return violations != FileResultStore.UNVALIDATED ? store.getRuleSet().describe(violations) : "未校验";
+    }
+
+    public String getErrorMessage() {
+        int violations = store.getViolations(index);
+        return violations != FileResultStore.UNVALIDATED && violations != 0 ? store.getRuleSet().describe(violations) : "";
+    }
+
+    public boolean isNormal() {
+        return store.getViolations(index) == 0;
+    }
+}
@@ -0,0 +1,225 @@
+package com.aypak.filetimecheck.model;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * 目录表
+ * 每个目录只保存一次并分配一个编号，记录其上级目录编号（父指针）和自身名称（UTF-8 字节，连续存放），
+ * 公共前缀由上级目录共享，内存只随目录名长度增长，不随完整路径长度增长；按（上级编号, 名称）查找
+ * FileResultStore 中的文件只保存所在目录编号和文件名，完整路径在显示或读写文件时才拼接
+ *
+ * 上级目录总是先于下级目录登记，因此上级目录的编号一定小于下级目录
+ * 路径按分隔符逐级拆分：/a/b 依次登记 ""（根）、a、b；不含分隔符的路径为顶层目录
+ */
+public class PathTable {
+
+    /**
+     * 没有目录（路径中不含分隔符）
+     */
+    public static final int NO_DIRECTORY = -1;
+
+    private static final char SEPARATOR = File.separatorChar;
+    private static final int INITIAL_CAPACITY = 256;
+
+    // 编号为 id 的目录：上级目录 parents[id]，名称为 nameBuffer[nameOffsets[id], nameOffsets[id + 1])
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] nameOffsets = new int[INITIAL_CAPACITY + 1];
+    private byte[] nameBuffer = new byte[INITIAL_CAPACITY * 8];
+    private int size;
+
+    // 开放寻址散列表：槽位存 id + 1，0 为空
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    // 连续扫描的文件大多位于同一目录，缓存最近一次登记的目录
+    private String lastPath;
+    private int lastId = NO_DIRECTORY;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 登记目录（连同其所有上级目录），返回目录编号
+     */
+    public int intern(String directory) {
+        if (directory.equals(lastPath)) {
+            return lastId;
+        }
+        int id = NO_DIRECTORY;
+        int start = 0;
+        while (true) {
+            int separator = directory.indexOf(SEPARATOR, start);
+            int end = separator >= 0 ? separator : directory.length();
+            byte[] name = directory.substring(start, end).getBytes(StandardCharsets.UTF_8);
+            int child = find(id, name);
+            id = child != NO_DIRECTORY ? child : add(id, name);
+            if (separator < 0) {
+                break;
+            }
+            start = separator + 1;
+        }
+        lastPath = directory;
+        lastId = id;
+        return id;
+    }
+
+    /**
+     * 查找目录编号，未登记时返回 NO_DIRECTORY
+     */
+    public int find(String directory) {
+        int id = NO_DIRECTORY;
+        int start = 0;
+        while (true) {
+            int separator = directory.indexOf(SEPARATOR, start);
+            int end = separator >= 0 ? separator : directory.length();
+            id = find(id, directory.substring(start, end).getBytes(StandardCharsets.UTF_8));
+            if (id == NO_DIRECTORY || separator < 0) {
+                return id;
+            }
+            start = separator + 1;
+        }
+    }
+
+    /**
+     * 拼接目录的完整路径（沿父指针向上）
+     */
+    public String getPath(int id) {
+        StringBuilder sb = new StringBuilder();
+        appendPath(sb, id);
+        return sb.toString();
+    }
+
+    public int getParent(int id) {
+        return parents[id];
+    }
+
+    /**
+     * 拼接目录中文件的完整路径
+     */
+    public String resolve(int directoryId, String name) {
+        if (directoryId == NO_DIRECTORY) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder();
+        appendPath(sb, directoryId);
+        return sb.append(SEPARATOR).append(name).toString();
+    }
+
+    /**
+     * 计算位于给定目录之下（含其本身）的所有目录编号
+     */
+    public BitSet subtreesOf(Collection<Integer> roots) {
+        BitSet within = new BitSet(size);
+        for (int root : roots) {
+            if (root != NO_DIRECTORY) {
+                within.set(root);
+            }
+        }
+        // 上级目录编号更小，一次顺序遍历即可向下传播
+        for (int id = 0; id < size; id++) {
+            int parent = parents[id];
+            if (parent != NO_DIRECTORY && within.get(parent)) {
+                within.set(id);
+            }
+        }
+        return within;
+    }
+
+    private void appendPath(StringBuilder sb, int id) {
+        int parent = parents[id];
+        if (parent != NO_DIRECTORY) {
+            appendPath(sb, parent);
+            sb.append(SEPARATOR);
+        }
+        int start = nameOffsets[id];
+        sb.append(new String(nameBuffer, start, nameOffsets[id + 1] - start, StandardCharsets.UTF_8));
+    }
+
+    private int find(int parent, byte[] name) {
+        int mask = slots.length - 1;
+        for (int slot = hash(parent, name) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (parents[id] == parent && nameEquals(id, name)) {
+                return id;
+            }
+        }
+        return NO_DIRECTORY;
+    }
+
+    private boolean nameEquals(int id, byte[] name) {
+        int start = nameOffsets[id];
+        return Arrays.equals(nameBuffer, start, nameOffsets[id + 1], name, 0, name.length);
+    }
+
+    private int add(int parent, byte[] name) {
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            nameOffsets = Arrays.copyOf(nameOffsets, size * 2 + 1);
+        }
+        int start = nameOffsets[size];
+        if (start + name.length > nameBuffer.length) {
+            nameBuffer = Arrays.copyOf(nameBuffer, Math.max(nameBuffer.length * 2, start + name.length));
+        }
+        System.arraycopy(name, 0, nameBuffer, start, name.length);
+
+        int id = size++;
+        parents[id] = parent;
+        nameOffsets[size] = start + name.length;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            insert(id);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            insert(id);
+        }
+    }
+
+    private void insert(int id) {
+        int start = nameOffsets[id];
+        int mask = slots.length - 1;
+        int slot = hash(parents[id], nameBuffer, start, nameOffsets[id + 1]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    private static int hash(int parent, byte[] name) {
+        return hash(parent, name, 0, name.length);
+    }
+
+    private static int hash(int parent, byte[] bytes, int from, int to) {
+        int h = parent;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        // 打散低位（槽位取低位）
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 拆分完整路径中的目录部分，不含分隔符时返回 null
+     */
+    public static String directoryOf(String path) {
+        int separator = path.lastIndexOf(SEPARATOR);
+        return separator >= 0 ? path.substring(0, separator) : null;
+    }
+
+    /**
+     * 拆分完整路径中的文件名部分
+     */
+    public static String nameOf(String path) {
+        return path.substring(path.lastIndexOf(SEPARATOR) + 1);
+    }
+}
@@ -0,0 +1,634 @@
+package com.aypak.filetimecheck.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编译后的校验规则集
+ * 每条规则占违规位掩码中的一位：前八位依次为内置规则（与 ValidationResult 的位一致），之后是规则文件中的规则和 SPI 规则，最多 31 条
+ * 内置规则中的两条目录规则只用于目录行，按扫描时汇总的直接子项创建时间校验（见 DirectorySummary）；
+ * 属性后端读不到真实出生时间时扫描不汇总子项创建时间，这两条规则不触发
+ * 修改时间晚于状态变更时间（ctime）规则只在扩展属性后端读到 ctime 时校验（见 evaluateChange）
+ *
+ * 内置规则直接比较；规则表达式编译为一条扁平的条件链（几个并列的基本类型数组），每个文件只遍历一次条件链即得到全部规则的结果，
+ * 增加规则只是加长条件链，不会增加对结果集的遍历次数；校验时不分配对象
+ *
+ * 表达式语法（违反规则的条件，多个条件用 and 连接，需同时成立）：
+ * <pre>
+ * 字段[,字段...] 比较符 基准 [+|- 时长]
+ *   字段: created / modified / accessed，列出多个时任一字段满足即可
+ *   比较符: &lt; &lt;= &gt; &gt;=
+ *   基准: now（校验时刻）、字段、日期（2000-01-01 或 2000-01-01T08:00:00，本地时间）
+ *   时长: 数字加单位 ms / s / m / h / d / w / y（y 按 365 天），超出 long 毫秒范围时报错；
+ *         校验时与 now 或字段相加超出范围的按 long 的最大/最小值比较（不会溢出为相反的符号）
+ *   日期后的 ± 时长可不加空格：2020-01-01-1d 为 2020-01-01 减 1 天（日期部分只取前两个 - ）
+ * 例: modified &lt; now - 10y
+ *     accessed &gt; modified + 30d
+ *     created,modified &lt; 2000-01-01 and accessed &gt; now - 1d
+ * </pre>
+ */
+public class RuleSet {
+
+    /**
+     * 规则数上限（违规位掩码为 int，-1 表示未校验）
+     */
+    public static final int MAX_RULES = 31;
+
+    /**
+     * 内置规则数（ValidationResult 中除 NORMAL、CUSTOM_RULE 外的各项）
+     */
+    public static final int BUILT_IN_RULES = 8;
+
+    /**
+     * 目录规则比较时容许的误差：部分文件系统（如 FAT）修改时间精度为 2 秒，创建时间精度更高
+     */
+    public static final long DIRECTORY_SLACK_MILLIS = 2000;
+
+    /**
+     * 修改时间与 ctime 比较时容许的误差：写入时两者由同一次系统调用更新，但部分文件系统（如网络文件系统）分别取时
+     */
+    public static final long CHANGE_SLACK_MILLIS = 2000;
+
+    // 内置规则的位（与 ValidationResult.getMask 一致）
+    private static final int MODIFIED_BEFORE_CREATED = 1;
+    private static final int ACCESSED_BEFORE_MODIFIED = 1 << 1;
+    private static final int FUTURE_TIME = 1 << 2;
+    private static final int PRE_1970 = 1 << 3;
+    private static final int DIRECTORY_OLDER_THAN_CHILD = 1 << 4;
+    private static final int CHILD_BEFORE_DIRECTORY = 1 << 5;
+    private static final int TIME_OUTLIER = 1 << 6;
+    private static final int MODIFIED_AFTER_CHANGED = 1 << 7;
+
+    // 条件字段位
+    private static final int CREATED = 1;
+    private static final int MODIFIED = 2;
+    private static final int ACCESSED = 4;
+
+    // 比较符
+    private static final int LT = 0;
+    private static final int LE = 1;
+    private static final int GT = 2;
+    private static final int GE = 3;
+
+    // 比较基准：校验时刻、常量、字段
+    private static final int BASE_NOW = 0;
+    private static final int BASE_CONSTANT = 1;
+    private static final int BASE_CREATED = 2;
+    private static final int BASE_MODIFIED = 3;
+    private static final int BASE_ACCESSED = 4;
+
+    private final String[] ids;
+    private final String[] names;
+    private final long futureToleranceMillis;
+
+    // 本地时间 1970-01-01 00:00 对应的时间戳（内置规则使用，与表格中显示的本地时间一致）
+    private final long epochMillis;
+
+    // 条件链：第 r 条表达式规则（第 BUILT_IN_RULES + r 位）的条件为 [ruleEnds[r - 1], ruleEnds[r])
+    private final int[] ruleEnds;
+    private final int[] fields;
+    private final int[] operators;
+    private final int[] bases;
+    private final long[] operands;
+
+    // SPI 规则，占编译规则之后的位
+    private final TimeRule[] customRules;
+
+    private RuleSet(Builder builder) {
+        this.ids = builder.ids.toArray(new String[0]);
+        this.names = builder.names.toArray(new String[0]);
+        this.futureToleranceMillis = builder.futureToleranceMillis;
+        this.epochMillis = FileResultStore.toEpochMillis(LocalDateTime.of(1970, 1, 1, 0, 0));
+        this.ruleEnds = builder.ruleEnds.stream().mapToInt(Integer::intValue).toArray();
+        this.fields = builder.fields.stream().mapToInt(Integer::intValue).toArray();
+        this.operators = builder.operators.stream().mapToInt(Integer::intValue).toArray();
+        this.bases = builder.bases.stream().mapToInt(Integer::intValue).toArray();
+        this.operands = builder.operands.stream().mapToLong(Long::longValue).toArray();
+        this.customRules = builder.customRules.toArray(new TimeRule[0]);
+    }
+
+    /**
+     * 只含内置规则、不容许时钟偏差的规则集
+     */
+    public static RuleSet builtIn() {
+        return builder(0).build();
+    }
+
+    /**
+     * @param futureToleranceMillis 未来时间容差：晚于校验时刻不超过该值的时间不算未来时间（时钟偏差）
+     */
+    public static Builder builder(long futureToleranceMillis) {
+        return new Builder(futureToleranceMillis);
+    }
+
+    /**
+     * 校验一个文件，返回违规位掩码（0 为正常）；任一时间缺失（NO_TIME）时视为正常
+     */
+    public int evaluate(long creationMillis, long modifiedMillis, long accessMillis, long now) {
+        if (creationMillis == FileResultStore.NO_TIME || modifiedMillis == FileResultStore.NO_TIME
+                || accessMillis == FileResultStore.NO_TIME) {
+            return 0;
+        }
+
+        int mask = 0;
+
+        // 内置规则
+        if (modifiedMillis < creationMillis) {
+            mask |= MODIFIED_BEFORE_CREATED;
+        }
+        if (accessMillis < modifiedMillis) {
+            mask |= ACCESSED_BEFORE_MODIFIED;
+        }
+        long future = add(now, futureToleranceMillis);
+        if (creationMillis > future || modifiedMillis > future || accessMillis > future) {
+            mask |= FUTURE_TIME;
+        }
+        if (creationMillis < epochMillis || modifiedMillis < epochMillis || accessMillis < epochMillis) {
+            mask |= PRE_1970;
+        }
+
+        // 表达式规则：规则内的条件全部成立才算违反，遇到不成立的条件即跳到下一条规则
+        int condition = 0;
+        for (int rule = 0; rule < ruleEnds.length; rule++) {
+            int end = ruleEnds[rule];
+            boolean violated = true;
+            for (; condition < end; condition++) {
+                if (!test(condition, creationMillis, modifiedMillis, accessMillis, now)) {
+                    violated = false;
+                    condition = end;
+                    break;
+                }
+            }
+            if (violated) {
+                mask |= 1 << (BUILT_IN_RULES + rule);
+            }
+        }
+        for (int i = 0; i < customRules.length; i++) {
+            if (customRules[i].test(creationMillis, modifiedMillis, accessMillis, now)) {
+                mask |= 1 << (BUILT_IN_RULES + ruleEnds.length + i);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 校验一个目录：文件规则（访问时间早于修改时间除外）加上目录规则
+     * 目录的访问时间只在列举时更新、修改时间在增删子项时更新，两者先后没有意义，不校验
+     * @param minChildCreation 最早的直接子项创建时间，没有子项时为 NO_TIME
+     * @param maxChildCreation 最晚的直接子项创建时间，没有子项时为 NO_TIME
+     */
+    public int evaluateDirectory(long creationMillis, long modifiedMillis, long accessMillis,
+                                 long minChildCreation, long maxChildCreation, long now) {
+        int mask = evaluate(creationMillis, modifiedMillis, accessMillis, now) & ~ACCESSED_BEFORE_MODIFIED;
+
+        // 在目录中创建子项会更新目录的修改时间，子项比目录的修改时间还新说明目录时间被改过
+        if (modifiedMillis != FileResultStore.NO_TIME && maxChildCreation != FileResultStore.NO_TIME
+                && maxChildCreation > add(modifiedMillis, DIRECTORY_SLACK_MILLIS)) {
+            mask |= DIRECTORY_OLDER_THAN_CHILD;
+        }
+        // 子项早于所在目录创建（移入的文件会保留原来的创建时间，需结合实际判断）
+        if (creationMillis != FileResultStore.NO_TIME && minChildCreation != FileResultStore.NO_TIME
+                && minChildCreation < add(creationMillis, -DIRECTORY_SLACK_MILLIS)) {
+            mask |= CHILD_BEFORE_DIRECTORY;
+        }
+        return mask;
+    }
+
+    /**
+     * 离群规则：修改时间在所在目录的离群边界以外（边界由扫描时的分位数草图得出，见 TimeDigest.fence）
+     * @param fence 所在目录的离群边界，没有时（目录文件太少或未启用离群检测）为 null
+     */
+    public int evaluateOutlier(long modifiedMillis, TimeFence fence) {
+        return fence != null && fence.isOutside(modifiedMillis) ? TIME_OUTLIER : 0;
+    }
+
+    /**
+     * 修改时间晚于状态变更时间（ctime）：写入会同时更新两者，改属性、改名只更新 ctime，
+     * 修改时间明显晚于 ctime 说明修改时间被显式设为更晚的值（如 touch -d、utime）
+     * @param changeMillis ctime，属性后端读不到时为 NO_TIME，此时不校验
+     */
+    public int evaluateChange(long modifiedMillis, long changeMillis) {
+        return modifiedMillis != FileResultStore.NO_TIME && changeMillis != FileResultStore.NO_TIME
+                && modifiedMillis > add(changeMillis, CHANGE_SLACK_MILLIS) ? MODIFIED_AFTER_CHANGED : 0;
+    }
+
+    private boolean test(int condition, long created, long modified, long accessed, long now) {
+        long operand = operands[condition];
+        switch (bases[condition]) {
+            case BASE_NOW:
+                operand = add(operand, now);
+                break;
+            case BASE_CREATED:
+                operand = add(operand, created);
+                break;
+            case BASE_MODIFIED:
+                operand = add(operand, modified);
+                break;
+            case BASE_ACCESSED:
+                operand = add(operand, accessed);
+                break;
+            default:
+                break;
+        }
+        int field = fields[condition];
+        int operator = operators[condition];
+        return (field & CREATED) != 0 && compare(created, operator, operand)
+                || (field & MODIFIED) != 0 && compare(modified, operator, operand)
+                || (field & ACCESSED) != 0 && compare(accessed, operator, operand);
+    }
+
+    /**
+     * 饱和加法：超出 long 范围时取 Long.MAX_VALUE / Long.MIN_VALUE（如 now + 极大的容差视为无穷远，而不是溢出为负数）
+     */
+    private static long add(long a, long b) {
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0) {
+            return a < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+    }
+
+    private static boolean compare(long value, int operator, long operand) {
+        switch (operator) {
+            case LT:
+                return value < operand;
+            case LE:
+                return value <= operand;
+            case GT:
+                return value > operand;
+            default:
+                return value >= operand;
+        }
+    }
+
+    /**
+     * 规则数
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 第 bit 位规则的标识
+     */
+    public String getId(int bit) {
+        return ids[bit];
+    }
+
+    /**
+     * 第 bit 位规则的显示名称
+     */
+    public String getName(int bit) {
+        return names[bit];
+    }
+
+    public long getFutureToleranceMillis() {
+        return futureToleranceMillis;
+    }
+
+    /**
+     * 全部规则的位
+     */
+    public int getAllMask() {
+        return (1 << ids.length) - 1;
+    }
+
+    /**
+     * 按标识查找规则的位，找不到时返回 0
+     */
+    public int maskOf(String id) {
+        for (int bit = 0; bit < ids.length; bit++) {
+            if (ids[bit].equalsIgnoreCase(id)) {
+                return 1 << bit;
+            }
+        }
+        // custom-rule：任一自定义规则
+        ValidationResult result = ValidationResult.fromKey(id);
+        return result != null ? result.getMask() & getAllMask() : 0;
+    }
+
+    /**
+     * 显示文本：违反的各条规则以 "、" 连接，正常时为 "正常"
+     */
+    public String describe(int mask) {
+        if (mask == 0) {
+            return ValidationResult.NORMAL.getDisplayName();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < ids.length; bit++) {
+            if ((mask & (1 << bit)) != 0) {
+                if (sb.length() > 0) {
+                    sb.append('、');
+                }
+                sb.append(names[bit]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解析时长，如 30d、5m、10y（数字加单位 ms / s / m / h / d / w / y，y 按 365 天；0 可省略单位）
+     * @throws IllegalArgumentException 格式错误或超出范围
+     */
+    public static long parseDuration(String text) {
+        String token = text.trim();
+        int split = 0;
+        while (split < token.length() && Character.isDigit(token.charAt(split))) {
+            split++;
+        }
+        if (split == 0) {
+            throw new IllegalArgumentException("无法识别时长 " + token);
+        }
+        long value;
+        try {
+            value = Long.parseLong(token.substring(0, split));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("时长超出范围 " + token);
+        }
+        if (value == 0 && split == token.length()) {
+            return 0;
+        }
+        long unit;
+        switch (token.substring(split).toLowerCase(Locale.ROOT)) {
+            case "ms":
+                unit = 1;
+                break;
+            case "s":
+                unit = TimeUnit.SECONDS.toMillis(1);
+                break;
+            case "m":
+                unit = TimeUnit.MINUTES.toMillis(1);
+                break;
+            case "h":
+                unit = TimeUnit.HOURS.toMillis(1);
+                break;
+            case "d":
+                unit = TimeUnit.DAYS.toMillis(1);
+                break;
+            case "w":
+                unit = TimeUnit.DAYS.toMillis(7);
+                break;
+            case "y":
+                unit = TimeUnit.DAYS.toMillis(365);
+                break;
+            default:
+                throw new IllegalArgumentException("无法识别时长单位 " + token);
+        }
+        try {
+            return Math.multiplyExact(value, unit);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("时长超出范围 " + token);
+        }
+    }
+
+    /**
+     * 规则集构建器：先加入内置规则，再依次加入表达式规则和 SPI 规则
+     */
+    public static class Builder {
+        private final long futureToleranceMillis;
+        private final List<String> ids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<Integer> ruleEnds = new ArrayList<>();
+        private final List<Integer> fields = new ArrayList<>();
+        private final List<Integer> operators = new ArrayList<>();
+        private final List<Integer> bases = new ArrayList<>();
+        private final List<Long> operands = new ArrayList<>();
+        private final List<TimeRule> customRules = new ArrayList<>();
+        private final Set<String> usedIds = new HashSet<>();
+
+        private Builder(long futureToleranceMillis) {
+            this.futureToleranceMillis = Math.max(0, futureToleranceMillis);
+            // 内置规则，顺序与 ValidationResult 的位一致
+            for (ValidationResult result : ValidationResult.values()) {
+                if (!result.isValid() && result != ValidationResult.CUSTOM_RULE) {
+                    reserve(result.getKey());
+                    ids.add(result.getKey());
+                    names.add(result.getDisplayName());
+                }
+            }
+        }
+
+        /**
+         * 加入一条表达式规则
+         * @throws IllegalArgumentException 表达式无法解析、标识重复或规则数超过上限
+         */
+        public Builder add(String id, String name, String expression) {
+            if (!customRules.isEmpty()) {
+                throw new IllegalStateException("表达式规则需在 SPI 规则之前加入");
+            }
+            reserve(id);
+            new Parser(expression).parseInto(this);
+            ruleEnds.add(fields.size());
+            ids.add(id);
+            names.add(name != null && !name.isEmpty() ? name : id);
+            return this;
+        }
+
+        /**
+         * 加入一条 SPI 规则
+         */
+        public Builder add(TimeRule rule) {
+            reserve(rule.getId());
+            customRules.add(rule);
+            ids.add(rule.getId());
+            names.add(rule.getDisplayName());
+            return this;
+        }
+
+        private void reserve(String id) {
+            if (id == null || id.isEmpty()) {
+                throw new IllegalArgumentException("规则标识不能为空");
+            }
+            if (!usedIds.add(id.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("规则标识重复: " + id);
+            }
+            if (ids.size() >= MAX_RULES) {
+                throw new IllegalArgumentException("规则数超过上限 " + MAX_RULES);
+            }
+        }
+
+        public RuleSet build() {
+            return new RuleSet(this);
+        }
+    }
+
+    /**
+     * 表达式解析：把条件追加到构建器的条件链
+     */
+    private static class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text.trim();
+        }
+
+        void parseInto(Builder builder) {
+            do {
+                int field = parseFields();
+                int operator = parseOperator();
+                int base;
+                long operand = 0;
+                String token = nextWord();
+                switch (token.toLowerCase(Locale.ROOT)) {
+                    case "now":
+                        base = BASE_NOW;
+                        break;
+                    case "created":
+                        base = BASE_CREATED;
+                        break;
+                    case "modified":
+                        base = BASE_MODIFIED;
+                        break;
+                    case "accessed":
+                        base = BASE_ACCESSED;
+                        break;
+                    default:
+                        base = BASE_CONSTANT;
+                        operand = parseDate(token);
+                        break;
+                }
+                skipSpaces();
+                if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                    long sign = text.charAt(pos++) == '-' ? -1 : 1;
+                    long duration = parseDuration(nextWord());
+                    try {
+                        operand = Math.addExact(operand, sign * duration);
+                    } catch (ArithmeticException e) {
+                        throw error("时间超出范围");
+                    }
+                }
+                builder.fields.add(field);
+                builder.operators.add(operator);
+                builder.bases.add(base);
+                builder.operands.add(operand);
+            } while (nextAnd());
+            skipSpaces();
+            if (pos < text.length()) {
+                throw error("多余的内容");
+            }
+        }
+
+        private int parseFields() {
+            int mask = 0;
+            do {
+                String word = nextWord().toLowerCase(Locale.ROOT);
+                switch (word) {
+                    case "created":
+                        mask |= CREATED;
+                        break;
+                    case "modified":
+                        mask |= MODIFIED;
+                        break;
+                    case "accessed":
+                        mask |= ACCESSED;
+                        break;
+                    default:
+                        throw error("未知的字段 " + word);
+                }
+                skipSpaces();
+            } while (pos < text.length() && text.charAt(pos) == ',' && ++pos > 0);
+            return mask;
+        }
+
+        private int parseOperator() {
+            skipSpaces();
+            if (text.startsWith("<=", pos)) {
+                pos += 2;
+                return LE;
+            }
+            if (text.startsWith(">=", pos)) {
+                pos += 2;
+                return GE;
+            }
+            if (text.startsWith("<", pos)) {
+                pos++;
+                return LT;
+            }
+            if (text.startsWith(">", pos)) {
+                pos++;
+                return GT;
+            }
+            throw error("需要比较符");
+        }
+
+        private boolean nextAnd() {
+            skipSpaces();
+            if (text.startsWith("&&", pos)) {
+                pos += 2;
+                return true;
+            }
+            if (text.regionMatches(true, pos, "and", 0, 3)
+                    && (pos + 3 == text.length() || Character.isWhitespace(text.charAt(pos + 3)))) {
+                pos += 3;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 读取一个词：字母、数字以及日期中的 - : . T；词首为字母时遇到 - 即结束（now-1d），
+         * 词首为数字时只有前两个 - 属于日期（2020-01-01-1d 在第三个 - 处结束）
+         */
+        private String nextWord() {
+            skipSpaces();
+            int start = pos;
+            boolean startsWithDigit = pos < text.length() && Character.isDigit(text.charAt(pos));
+            int dashes = 0;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (Character.isLetterOrDigit(c) || startsWithDigit && (c == ':' || c == '.')) {
+                    pos++;
+                } else if (startsWithDigit && c == '-' && dashes < 2 && isDateDash()) {
+                    dashes++;
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (start == pos) {
+                throw error("缺少内容");
+            }
+            return text.substring(start, pos);
+        }
+
+        // 日期中的 -（yyyy-MM-dd）：前面是数字且后面紧跟数字
+        private boolean isDateDash() {
+            return pos + 1 < text.length() && Character.isDigit(text.charAt(pos + 1)) && Character.isDigit(text.charAt(pos - 1));
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private long parseDate(String token) {
+            try {
+                LocalDateTime time = token.indexOf('T') > 0 ? LocalDateTime.parse(token) : LocalDate.parse(token).atStartOfDay();
+                return FileResultStore.toEpochMillis(time);
+            } catch (DateTimeParseException e) {
+                throw error("无法识别 " + token + "（需要 now、字段名或日期）");
+            }
+        }
+
+        private long parseDuration(String token) {
+            try {
+                return RuleSet.parseDuration(token);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("规则表达式错误（第 " + (pos + 1) + " 个字符）: " + message + " - " + text);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.aypak.filetimecheck.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 抽样估算结果
+ * 文件总数、异常文件数和各校验结果的估计值，附 95% 置信区间
+ */
+public class SamplingEstimate {
+
+    /**
+     * 95% 置信区间对应的正态分位数
+     */
+    public static final double Z_95 = 1.96;
+
+    private final Estimate totalFiles;
+    private final Estimate abnormalFiles;
+    private final Map<ValidationResult, Estimate> results;
+    private final long walks;
+    private final long listedDirectories;
+    private final long sampledFiles;
+    private final long elapsedMillis;
+
+    public SamplingEstimate(Estimate totalFiles, Estimate abnormalFiles, Map<ValidationResult, Estimate> results,
+                            long walks, long listedDirectories, long sampledFiles, long elapsedMillis) {
+        this.totalFiles = totalFiles;
+        this.abnormalFiles = abnormalFiles;
+        this.results = new EnumMap<>(results);
+        this.walks = walks;
+        this.listedDirectories = listedDirectories;
+        this.sampledFiles = sampledFiles;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Estimate getTotalFiles() {
+        return totalFiles;
+    }
+
+    public Estimate getAbnormalFiles() {
+        return abnormalFiles;
+    }
+
+    /**
+     * 各校验结果的估计文件数（同时违反多条规则的文件计入每一条），抽样时不校验的规则返回 null
+     */
+    public Estimate getResult(ValidationResult result) {
+        return results.get(result);
+    }
+
+    /**
+     * 随机下行的次数
+     */
+    public long getWalks() {
+        return walks;
+    }
+
+    public long getListedDirectories() {
+        return listedDirectories;
+    }
+
+    /**
+     * 实际读取属性的文件数
+     */
+    public long getSampledFiles() {
+        return sampledFiles;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * 多行文本摘要
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("文件总数: ").append(totalFiles).append('\n');
+        sb.append("异常文件: ").append(abnormalFiles).append('\n');
+        StringBuilder skipped = new StringBuilder();
+        for (ValidationResult result : ValidationResult.values()) {
+            Estimate estimate = results.get(result);
+            if (estimate != null) {
+                sb.append("  ").append(result.getDisplayName()).append(": ").append(estimate).append('\n');
+            } else if (!result.isValid()) {
+                skipped.append(skipped.length() > 0 ? "、" : "").append(result.getDisplayName());
+            }
+        }
+        if (skipped.length() > 0) {
+            sb.append("  未估计: ").append(skipped).append('\n');
+        }
+        sb.append(String.format("抽样: %,d 次下行，列举 %,d 个目录，读取 %,d 个文件，用时 %.1f 秒",
+                walks, listedDirectories, sampledFiles, elapsedMillis / 1000.0));
+        return sb.toString();
+    }
+
+    /**
+     * 单项估计值及其标准误
+     */
+    public static class Estimate {
+        private final double value;
+        private final double standardError;
+
+        public Estimate(double value, double standardError) {
+            this.value = Math.max(0, value);
+            this.standardError = standardError;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public double getStandardError() {
+            return standardError;
+        }
+
+        /**
+         * 95% 置信区间下限（不小于 0）
+         */
+        public double getLow() {
+            return Math.max(0, value - Z_95 * standardError);
+        }
+
+        /**
+         * 95% 置信区间上限
+         */
+        public double getHigh() {
+            return value + Z_95 * standardError;
+        }
+
+        /**
+         * 例如 "约 12,345（95% 置信区间 11,000 - 13,700）"
+         */
+        @Override
+        public String toString() {
+            if (standardError == 0) {
+                return String.format("%,.0f", value);
+            }
+            return String.format("约 %,.0f（95%% 置信区间 %,.0f - %,.0f）", value, getLow(), getHigh());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.aypak.filetimecheck.model;
+
+import java.nio.file.FileStore;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 扫描配置模型
+ * 用于选择扫描引擎及其并行度
+ * 源路径分布在多个卷上时各卷同时扫描，可以按卷单独设置并发上限（如机械硬盘设低、NVMe 和网络存储设高）
+ */
+public class ScanConfig {
+
+    /**
+     * 扫描模式枚举
+     */
+    public enum ScanMode {
+        SEQUENTIAL("顺序扫描"),   // 单线程 walkFileTree
+        PARALLEL("并行扫描"),     // ForkJoinPool 按目录拆分
+        VIRTUAL_THREAD("虚拟线程扫描");  // 每次元数据请求一个虚拟线程（JDK 21+）
+
+        private final String displayName;
+
+        ScanMode(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 虚拟线程模式下每个根路径默认的在途元数据请求上限
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    /**
+     * 默认离群阈值：超出四分位数 3 倍四分位距（Tukey 的“远离群值”）
+     */
+    public static final double DEFAULT_OUTLIER_THRESHOLD = 3.0;
+
+    private ScanMode mode;
+    private int parallelism;
+    private int maxInFlight;
+    private boolean incremental;    // 使用扫描索引增量扫描（重新加载时）
+    private ScanFilter filter;      // 遍历时生效的过滤规则
+    private boolean followLinks;    // 跟随符号链接（含环检测）
+    private boolean deduplicate;    // 按 fileKey 合并硬链接，同一物理文件只校验、修复一次
+    private boolean checkpoint;     // 定期写扫描断点，中断后可继续
+    private boolean resume;         // 从上次的断点继续
+    private boolean extendedAttributes;  // 按卷使用扩展属性后端（ctime、inode、设备号，可用时读取出生时间）
+    private boolean includeDirectories;  // 目录也作为结果行，按直接子项的创建时间校验目录规则
+    private boolean detectOutliers;  // 按目录检测修改时间离群的文件
+    private double outlierThreshold = DEFAULT_OUTLIER_THRESHOLD;  // 离群阈值（四分位距的倍数）
+    private RuleSet ruleSet = RuleSet.builtIn();  // 扫描时校验所用的规则
+    private final Map<String, Integer> storeLimits = new LinkedHashMap<>();  // 卷名或文件系统类型 -> 并发上限
+
+    public ScanConfig() {
+        this.mode = ScanMode.SEQUENTIAL;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        this.filter = ScanFilter.createDefault();
+    }
+
+    public ScanConfig(ScanMode mode, int parallelism) {
+        this(mode, parallelism, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public ScanConfig(ScanMode mode, int parallelism, int maxInFlight) {
+        this.mode = mode;
+        setParallelism(parallelism);
+        setMaxInFlight(maxInFlight);
+        this.filter = ScanFilter.createDefault();
+    }
+
+    public ScanMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ScanMode mode) {
+        this.mode = mode;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public ScanFilter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(ScanFilter filter) {
+        this.filter = filter != null ? filter : ScanFilter.createDefault();
+    }
+
+    public boolean isFollowLinks() {
+        return followLinks;
+    }
+
+    public void setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+    }
+
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public boolean isCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(boolean checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public boolean isExtendedAttributes() {
+        return extendedAttributes;
+    }
+
+    public void setExtendedAttributes(boolean extendedAttributes) {
+        this.extendedAttributes = extendedAttributes;
+    }
+
+    public boolean isIncludeDirectories() {
+        return includeDirectories;
+    }
+
+    public void setIncludeDirectories(boolean includeDirectories) {
+        this.includeDirectories = includeDirectories;
+    }
+
+    public boolean isDetectOutliers() {
+        return detectOutliers;
+    }
+
+    public void setDetectOutliers(boolean detectOutliers) {
+        this.detectOutliers = detectOutliers;
+    }
+
+    public double getOutlierThreshold() {
+        return outlierThreshold;
+    }
+
+    public void setOutlierThreshold(double outlierThreshold) {
+        this.outlierThreshold = outlierThreshold;
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    public void setRuleSet(RuleSet ruleSet) {
+        this.ruleSet = ruleSet != null ? ruleSet : RuleSet.builtIn();
+    }
+
+    /**
+     * 按卷设置的并发上限（并行模式的线程数、虚拟线程模式的在途请求数）
+     * 键为卷名（FileStore.name()，如 /dev/sdb1 或 Windows 卷标）或文件系统类型（如 nfs、cifs、ntfs）
+     */
+    public Map<String, Integer> getStoreLimits() {
+        return storeLimits;
+    }
+
+    public void setStoreLimit(String store, int limit) {
+        storeLimits.put(store, Math.max(1, limit));
+    }
+
+    /**
+     * 指定卷的并发上限：先按卷名、再按文件系统类型查找，都未设置时返回 defaultLimit
+     */
+    public int getStoreLimit(FileStore store, int defaultLimit) {
+        if (store == null || storeLimits.isEmpty()) {
+            return defaultLimit;
+        }
+        Integer limit = storeLimits.get(store.name());
+        if (limit == null) {
+            limit = storeLimits.get(store.type());
+        }
+        return limit != null ? limit : defaultLimit;
+    }
+
+    /**
+     * 创建默认配置
+     * - 顺序扫描
+     * - 并行度为 CPU 核心数
+     * - 虚拟线程在途请求上限 1024
+     * - 不过滤
+     * - 不跟随链接、不合并硬链接
+     * - 不写断点
+     * - 使用标准属性后端
+     * - 各卷使用同一并发上限
+     */
+    public static ScanConfig createDefault() {
+        return new ScanConfig();
+    }
+}
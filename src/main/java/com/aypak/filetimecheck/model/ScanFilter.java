@@ -0,0 +1,141 @@
+package com.aypak.filetimecheck.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 扫描过滤规则
+ * 在遍历时生效：被排除的目录整棵跳过，不会被列举；不符合条件的文件不进入结果
+ *
+ * 规则中的 glob 不含 "/" 时匹配名称，含 "/" 时匹配相对扫描根路径的路径（以 "/" 分隔），支持 * ** ? [..] {a,b}
+ */
+public class ScanFilter {
+
+    /**
+     * 不限制（深度、大小）
+     */
+    public static final int UNLIMITED = -1;
+
+    private List<String> excludeDirectories;   // 排除的目录
+    private List<String> includeFiles;         // 只保留匹配的文件（为空时不限制）
+    private List<String> excludeFiles;         // 排除的文件
+    private Set<String> extensions;            // 只保留这些扩展名（不含点，为空时不限制）
+    private int maxDepth;                      // 最大深度，扫描根路径下的文件深度为 1
+    private long minSize;                      // 最小文件大小（字节）
+    private long maxSize;                      // 最大文件大小（字节）
+
+    public ScanFilter() {
+        this.excludeDirectories = new ArrayList<>();
+        this.includeFiles = new ArrayList<>();
+        this.excludeFiles = new ArrayList<>();
+        this.extensions = new LinkedHashSet<>();
+        this.maxDepth = UNLIMITED;
+        this.minSize = UNLIMITED;
+        this.maxSize = UNLIMITED;
+    }
+
+    public List<String> getExcludeDirectories() {
+        return excludeDirectories;
+    }
+
+    public void setExcludeDirectories(List<String> excludeDirectories) {
+        this.excludeDirectories = excludeDirectories;
+    }
+
+    public List<String> getIncludeFiles() {
+        return includeFiles;
+    }
+
+    public void setIncludeFiles(List<String> includeFiles) {
+        this.includeFiles = includeFiles;
+    }
+
+    public List<String> getExcludeFiles() {
+        return excludeFiles;
+    }
+
+    public void setExcludeFiles(List<String> excludeFiles) {
+        this.excludeFiles = excludeFiles;
+    }
+
+    public Set<String> getExtensions() {
+        return extensions;
+    }
+
+    public void setExtensions(Set<String> extensions) {
+        this.extensions = extensions;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public long getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(long minSize) {
+        this.minSize = minSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 是否没有任何规则
+     */
+    public boolean isEmpty() {
+        return excludeDirectories.isEmpty() && includeFiles.isEmpty() && excludeFiles.isEmpty()
+                && extensions.isEmpty() && maxDepth == UNLIMITED && minSize == UNLIMITED && maxSize == UNLIMITED;
+    }
+
+    /**
+     * 创建默认配置（不过滤）
+     */
+    public static ScanFilter createDefault() {
+        return new ScanFilter();
+    }
+
+    /**
+     * 解析以逗号、分号或换行分隔的列表，各项去掉首尾空白
+     * 项内的空格保留（如 Program Files），glob 的 {a,b} 中的逗号不作分隔符
+     */
+    public static List<String> parseList(String text) {
+        List<String> items = new ArrayList<>();
+        if (text == null) {
+            return items;
+        }
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ';';
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && depth > 0) {
+                depth--;
+            } else if (c == ';' || c == '\n' || c == '\r' || c == ',' && depth == 0) {
+                String item = text.substring(start, i).trim();
+                if (!item.isEmpty()) {
+                    items.add(item);
+                }
+                start = i + 1;
+                if (c != ',') {
+                    // 分号、换行总是分隔，未闭合的 { 不影响下一项
+                    depth = 0;
+                }
+            }
+        }
+        return items;
+    }
+}
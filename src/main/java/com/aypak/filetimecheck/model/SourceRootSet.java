@@ -0,0 +1,133 @@
+package com.aypak.filetimecheck.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 扫描源路径集合
+ * 路径先规范化（真实路径），按路径文本排序保存；已被某个源目录包含的路径不再加入，
+ * 加入目录时移除其下已有的源路径，保证扫描时同一文件不会被遍历两次
+ *
+ * 查找上级目录只需沿父路径逐级查找（O(深度 · log n)），下级路径在排序后连续排列，一次区间遍历即可移除
+ */
+public class SourceRootSet {
+
+    private static final String SEPARATOR = File.separator;
+
+    private final TreeMap<String, Root> roots = new TreeMap<>();
+
+    /**
+     * 规范化路径并读取其类型（涉及文件系统访问，应在后台线程调用）
+     * 路径不存在或无法访问时退化为绝对路径
+     */
+    public static Root resolve(Path path) {
+        Path canonical;
+        try {
+            canonical = path.toRealPath();
+        } catch (IOException e) {
+            canonical = path.toAbsolutePath().normalize();
+        }
+        return new Root(canonical, Files.isDirectory(canonical));
+    }
+
+    /**
+     * 加入一个已规范化的源路径
+     * @return 是否加入；路径已存在或位于已有源目录之下时返回 false
+     */
+    public boolean add(Root root) {
+        String key = root.getPath().toString();
+        if (covers(root.getPath())) {
+            return false;
+        }
+
+        // 新目录包含的已有源路径不再单独扫描
+        if (root.isDirectory()) {
+            String prefix = key.endsWith(SEPARATOR) ? key : key + SEPARATOR;
+            Iterator<Map.Entry<String, Root>> descendants = roots.tailMap(prefix, true).entrySet().iterator();
+            while (descendants.hasNext() && descendants.next().getKey().startsWith(prefix)) {
+                descendants.remove();
+            }
+        }
+        roots.put(key, root);
+        return true;
+    }
+
+    /**
+     * 路径本身或其某个上级目录是否已是源路径
+     */
+    public boolean covers(Path path) {
+        for (Path current = path; current != null; current = current.getParent()) {
+            Root root = roots.get(current.toString());
+            if (root != null && (current == path || root.isDirectory())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return roots.isEmpty();
+    }
+
+    public int size() {
+        return roots.size();
+    }
+
+    public void clear() {
+        roots.clear();
+    }
+
+    /**
+     * 按路径排序的源路径
+     */
+    public Collection<Root> getRoots() {
+        return roots.values();
+    }
+
+    /**
+     * 按路径排序的源路径列表（副本）
+     */
+    public List<Path> getPaths() {
+        List<Path> paths = new ArrayList<>(roots.size());
+        for (Root root : roots.values()) {
+            paths.add(root.getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * 单个源路径
+     */
+    public static class Root {
+        private final Path path;
+        private final boolean directory;
+
+        public Root(Path path, boolean directory) {
+            this.path = path;
+            this.directory = directory;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        /**
+         * 显示文本，例如 "[文件夹] D:\data"
+         */
+        public String getDisplayName() {
+            return (directory ? "[文件夹] " : "[文件] ") + path;
+        }
+    }
+}
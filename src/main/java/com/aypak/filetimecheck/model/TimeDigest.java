@@ -0,0 +1,206 @@
+package com.aypak.filetimecheck.model;
+
+import java.util.Arrays;
+
+/**
+ * 时间戳分位数草图（合并式 t-digest，epoch 毫秒）
+ * 新值先进入定长缓冲，缓冲满时与已有质心按序合并；质心大小受 k1 尺度函数限制，两端的质心很小、中间的较大，
+ * 质心数不超过 compression + 2，因此无论加入多少个值，占用的内存都有上限
+ * 合并之前（值的个数不超过缓冲容量）直接按排序后的原值计算，小目录上的分位数是精确的
+ * 非线程安全
+ */
+public class TimeDigest {
+
+    /**
+     * 默认压缩参数：约 50 个质心，四分位数的相对误差在 1% 以内
+     */
+    public static final int DEFAULT_COMPRESSION = 50;
+
+    private static final int INITIAL_BUFFER = 16;
+
+    private final int compression;
+    private final int bufferCapacity;
+    private long[] buffer = new long[INITIAL_BUFFER];
+    private int buffered;
+
+    // 按均值排序的质心，合并时写入另一组数组后交换；第一次合并时才分配
+    private double[] means;
+    private double[] weights;
+    private double[] mergedMeans;
+    private double[] mergedWeights;
+    private int centroids;
+
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public TimeDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TimeDigest(int compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("压缩参数至少为 10: " + compression);
+        }
+        this.compression = compression;
+        this.bufferCapacity = compression * 4;
+    }
+
+    public void add(long value) {
+        if (buffered == buffer.length) {
+            if (buffer.length < bufferCapacity) {
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, bufferCapacity));
+            } else {
+                merge();
+            }
+        }
+        buffer[buffered++] = value;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * 已加入的值的个数
+     */
+    public long size() {
+        return count;
+    }
+
+    public long getMin() {
+        return count > 0 ? min : FileResultStore.NO_TIME;
+    }
+
+    public long getMax() {
+        return count > 0 ? max : FileResultStore.NO_TIME;
+    }
+
+    /**
+     * 第 q 分位数（0 ≤ q ≤ 1），没有值时为 NO_TIME
+     */
+    public long quantile(double q) {
+        if (count == 0) {
+            return FileResultStore.NO_TIME;
+        }
+        if (centroids == 0) {
+            // 未合并过：按原值线性插值
+            Arrays.sort(buffer, 0, buffered);
+            double index = q * (buffered - 1);
+            int lower = (int) index;
+            int upper = Math.min(lower + 1, buffered - 1);
+            return Math.round(buffer[lower] + (index - lower) * (buffer[upper] - buffer[lower]));
+        }
+        merge();
+        return Math.round(centroidQuantile(q));
+    }
+
+    /**
+     * 按四分位距计算离群边界：[Q1 - threshold × 离散度, Q3 + threshold × 离散度]
+     * @param threshold 离群阈值（离散度的倍数），3 对应 Tukey 的“远离群值”
+     * @param minSpread 离散度下限（毫秒）：四分位距小于它时按它计算，避免同一时刻生成的文件之间的正常差异被判为离群
+     */
+    public TimeFence fence(double threshold, long minSpread) {
+        if (count == 0) {
+            return null;
+        }
+        long lowerQuartile = quantile(0.25);
+        long upperQuartile = quantile(0.75);
+        double spread = Math.max(upperQuartile - lowerQuartile, minSpread);
+        return new TimeFence(saturate(lowerQuartile - threshold * spread), saturate(upperQuartile + threshold * spread));
+    }
+
+    private static long saturate(double value) {
+        // 避开 NO_TIME（Long.MIN_VALUE）
+        return (long) Math.max(Long.MIN_VALUE + 1.0, Math.min(Long.MAX_VALUE, value));
+    }
+
+    private double centroidQuantile(double q) {
+        double index = q * count;
+        if (centroids == 1 || index < weights[0] / 2) {
+            // 第一个质心的左半部分：在最小值与其均值之间插值
+            return centroids == 1 ? means[0] : min + index / (weights[0] / 2) * (means[0] - min);
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + step > index) {
+                return means[i] + (index - weightSoFar) / step * (means[i + 1] - means[i]);
+            }
+            weightSoFar += step;
+        }
+        // 最后一个质心的右半部分
+        double last = weights[centroids - 1] / 2;
+        double fraction = last > 0 ? Math.min(1, (index - weightSoFar) / last) : 1;
+        return means[centroids - 1] + fraction * (max - means[centroids - 1]);
+    }
+
+    /**
+     * 把缓冲中的值并入质心：两个有序序列归并，相邻项在 k1 尺度上跨度不超过 1 时合成一个质心
+     */
+    private void merge() {
+        if (buffered == 0) {
+            return;
+        }
+        if (means == null) {
+            means = new double[compression + 4];
+            weights = new double[compression + 4];
+            mergedMeans = new double[compression + 4];
+            mergedWeights = new double[compression + 4];
+        }
+        Arrays.sort(buffer, 0, buffered);
+
+        double total = count;
+        double weightSoFar = 0;
+        double limit = total * nextQuantile(0);
+        double mean = 0;
+        double weight = 0;
+        int merged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < centroids || j < buffered) {
+            double nextMean;
+            double nextWeight;
+            if (j == buffered || i < centroids && means[i] <= buffer[j]) {
+                nextMean = means[i];
+                nextWeight = weights[i++];
+            } else {
+                nextMean = buffer[j++];
+                nextWeight = 1;
+            }
+
+            if (weight == 0) {
+                mean = nextMean;
+                weight = nextWeight;
+            } else if (weightSoFar + weight + nextWeight <= limit) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                mergedMeans[merged] = mean;
+                mergedWeights[merged++] = weight;
+                weightSoFar += weight;
+                limit = total * nextQuantile(weightSoFar / total);
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        mergedMeans[merged] = mean;
+        mergedWeights[merged++] = weight;
+
+        double[] swap = means;
+        means = mergedMeans;
+        mergedMeans = swap;
+        swap = weights;
+        weights = mergedWeights;
+        mergedWeights = swap;
+        centroids = merged;
+        buffered = 0;
+    }
+
+    /**
+     * k1 尺度函数 k(q) = compression / 2π · asin(2q - 1) 上比 q 大 1 的分位点
+     */
+    private double nextQuantile(double q) {
+        double k = Math.asin(Math.max(-1, Math.min(1, 2 * q - 1))) + 2 * Math.PI / compression;
+        return k >= Math.PI / 2 ? 1 : (Math.sin(k) + 1) / 2;
+    }
+}
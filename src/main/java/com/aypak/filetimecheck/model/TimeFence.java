@@ -0,0 +1,31 @@
+package com.aypak.filetimecheck.model;
+
+/**
+ * 一个目录中文件修改时间的离群边界（epoch 毫秒），由 TimeDigest.fence 按四分位距计算
+ * 边界以外的文件与同目录其他文件的时间相差过大，记为离群
+ */
+public class TimeFence {
+
+    private final long low;
+    private final long high;
+
+    public TimeFence(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * 时间是否在边界以外，NO_TIME 不算离群
+     */
+    public boolean isOutside(long epochMillis) {
+        return epochMillis != FileResultStore.NO_TIME && (epochMillis < low || epochMillis > high);
+    }
+}
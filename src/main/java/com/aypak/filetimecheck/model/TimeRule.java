@@ -0,0 +1,26 @@
+package com.aypak.filetimecheck.model;
+
+/**
+ * 自定义校验规则（SPI）
+ * 实现类在 META-INF/services/com.aypak.filetimecheck.model.TimeRule 中登记，由 RuleSetLoader 通过 ServiceLoader 加载，
+ * 排在内置规则和规则文件中的规则之后；大多数规则可以直接写在规则文件中（见 RuleSet.Builder），无需实现此接口
+ */
+public interface TimeRule {
+
+    /**
+     * 规则标识（命令行 --violations 使用），在同一规则集中唯一
+     */
+    String getId();
+
+    /**
+     * 显示名称
+     */
+    String getDisplayName();
+
+    /**
+     * 是否违反规则；时间均为 epoch 毫秒，不会是 FileResultStore.NO_TIME
+     * 会在扫描线程中对每个文件调用，实现需线程安全且不应分配对象
+     * @param now 本次校验的参考时间
+     */
+    boolean test(long creationMillis, long modifiedMillis, long accessMillis, long now);
+}
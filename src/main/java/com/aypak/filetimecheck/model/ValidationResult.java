@@ -1,14 +1,36 @@
 package com.aypak.filetimecheck.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 文件时间校验结果枚举
+ * 除 NORMAL 外每项对应一个违规位，一个文件同时违反的所有规则合成一个位掩码（0 表示正常）；
+ * 内置规则之后的位属于自定义规则（见 RuleSet），统一归入 CUSTOM_RULE
  */
 public enum ValidationResult {
     NORMAL("正常", true),
     MODIFIED_BEFORE_CREATED("修改时间早于创建时间", false),
     ACCESSED_BEFORE_MODIFIED("访问时间早于修改时间", false),
     FUTURE_TIME("检测到未来时间", false),
-    PRE_1970("检测到1970年之前的时间", false);
+    PRE_1970("检测到1970年之前的时间", false),
+    DIRECTORY_OLDER_THAN_CHILD("目录修改时间早于子项创建时间", false),
+    CHILD_BEFORE_DIRECTORY("子项创建时间早于所在目录", false),
+    TIME_OUTLIER("修改时间偏离同目录文件", false),
+    MODIFIED_AFTER_CHANGED("修改时间晚于状态变更时间", false),
+    CUSTOM_RULE("违反自定义规则", false);
+
+    /**
+     * 全部违规位（含自定义规则）
+     */
+    public static final int ALL_VIOLATIONS = Integer.MAX_VALUE;
+
+    // 自定义规则占用的位：内置规则之后的全部位
+    private static final int CUSTOM_MASK = ALL_VIOLATIONS & -(1 << RuleSet.BUILT_IN_RULES);
+
+    // 只取一项结果时的优先顺序（与原先逐项校验时首先命中的顺序一致）
+    private static final ValidationResult[] PRIORITY = {FUTURE_TIME, PRE_1970, MODIFIED_BEFORE_CREATED, ACCESSED_BEFORE_MODIFIED,
+            MODIFIED_AFTER_CHANGED, DIRECTORY_OLDER_THAN_CHILD, CHILD_BEFORE_DIRECTORY, TIME_OUTLIER, CUSTOM_RULE};
 
     private final String displayName;
     private final boolean valid;
@@ -25,4 +47,75 @@ public enum ValidationResult {
     public boolean isValid() {
         return valid;
     }
+
+    /**
+     * 违规位，NORMAL 为 0，CUSTOM_RULE 为全部自定义规则的位
+     */
+    public int getMask() {
+        if (this == CUSTOM_RULE) {
+            return CUSTOM_MASK;
+        }
+        return valid ? 0 : 1 << (ordinal() - 1);
+    }
+
+    /**
+     * 命令行使用的名称，如 future-time、pre-1970
+     */
+    public String getKey() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    /**
+     * 按 getKey() 或枚举名查找，找不到时返回 null
+     */
+    public static ValidationResult fromKey(String key) {
+        for (ValidationResult result : values()) {
+            if (result.getKey().equalsIgnoreCase(key) || result.name().equalsIgnoreCase(key)) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 位掩码中包含的各项违规，正常时为空列表
+     */
+    public static List<ValidationResult> fromMask(int mask) {
+        List<ValidationResult> results = new ArrayList<>(Integer.bitCount(mask));
+        for (ValidationResult result : values()) {
+            if ((mask & result.getMask()) != 0) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 位掩码中最主要的一项（兼容只取单个结果的调用方），正常时为 NORMAL
+     */
+    public static ValidationResult primary(int mask) {
+        for (ValidationResult result : PRIORITY) {
+            if ((mask & result.getMask()) != 0) {
+                return result;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * 显示文本：各项违规以 "、" 连接，正常时为 "正常"；需要列出自定义规则名称时用 RuleSet.describe
+     */
+    public static String describe(int mask) {
+        if (mask == 0) {
+            return NORMAL.displayName;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ValidationResult result : fromMask(mask)) {
+            if (sb.length() > 0) {
+                sb.append('、');
+            }
+            sb.append(result.displayName);
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,20 @@
+package com.aypak.filetimecheck.service;
+
+import java.nio.file.Path;
+
+/**
+ * 并发扫描引擎接口
+ * 实现类在多个线程上遍历目录树，访问到的文件按完成顺序回调，不保证与 FileTreeScanner 的遍历顺序相同
+ * 约定只针对结果集合：回调的文件（路径和属性）与顺序遍历一致，需要稳定顺序的调用方自行排序
+ */
+public interface ConcurrentTreeScanner extends AutoCloseable {
+
+    /**
+     * 扫描单个根路径（文件或文件夹），返回时所有回调均已完成
+     * @param listener 在工作线程中回调，需线程安全
+     */
+    void scan(Path root, FileTreeScanner.Listener listener);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,275 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 目录监控器
+ * 所有目录注册到同一个 WatchService，由单个后台线程接收事件（不会为每个目录创建线程）
+ * 事件先合并去抖：静默 debounceMillis 或累计等待超过 maxDelayMillis 后，一次性回调变化的路径
+ */
+public class DirectoryWatcher implements AutoCloseable {
+
+    /**
+     * 默认去抖静默时间（毫秒）
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+
+    /**
+     * 默认最长合并等待时间（毫秒）
+     */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 2000;
+
+    /**
+     * 监控回调，均在监控线程中调用
+     */
+    public interface Listener {
+        /**
+         * 监控目录注册完成
+         */
+        void onReady(int watchedDirectories);
+
+        /**
+         * 一批合并后的变化
+         * @param changed 新建或修改的路径（可能包含目录）
+         * @param deleted 被删除的路径（可能是目录）
+         */
+        void onChanges(Set<Path> changed, Set<Path> deleted);
+
+        /**
+         * 事件队列溢出，部分变化已丢失
+         */
+        void onOverflow();
+
+        /**
+         * 目录无法注册或读取
+         */
+        void onError(Path path, IOException e);
+    }
+
+    private final List<Path> roots;
+    private final long debounceMillis;
+    private final long maxDelayMillis;
+    private final Listener listener;
+    private final ScanFilterMatcher filter;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Set<Path> treeDirectories = new HashSet<>();
+    private final Map<Path, Set<Path>> singleFileFilters = new HashMap<>();
+    private Thread thread;
+
+    public DirectoryWatcher(List<Path> roots, Listener listener) throws IOException {
+        this(roots, ScanFilterMatcher.ACCEPT_ALL, listener);
+    }
+
+    /**
+     * @param filter 扫描过滤规则，被排除的目录不注册监控
+     */
+    public DirectoryWatcher(List<Path> roots, ScanFilterMatcher filter, Listener listener) throws IOException {
+        this(roots, filter, DEFAULT_DEBOUNCE_MILLIS, DEFAULT_MAX_DELAY_MILLIS, listener);
+    }
+
+    public DirectoryWatcher(List<Path> roots, ScanFilterMatcher filter, long debounceMillis, long maxDelayMillis,
+                            Listener listener) throws IOException {
+        this.roots = new ArrayList<>(roots);
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.listener = listener;
+        this.filter = filter;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * 启动监控线程：先注册所有目录，再开始接收事件
+     */
+    public void start() {
+        thread = new Thread(this::run, "directory-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            for (Path root : roots) {
+                if (Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+                    registerTree(root, root, null);
+                } else {
+                    // 单个文件：监控其所在目录，只关注该文件的事件
+                    Path parent = root.toAbsolutePath().getParent();
+                    if (parent != null && !treeDirectories.contains(parent)) {
+                        register(parent);
+                        singleFileFilters.computeIfAbsent(parent, p -> new HashSet<>()).add(root.getFileName());
+                    }
+                }
+            }
+            listener.onReady(watchedDirectories.size());
+            pollLoop();
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // 监控已停止
+        }
+    }
+
+    /**
+     * 接收并合并事件
+     */
+    private void pollLoop() throws InterruptedException {
+        Set<Path> changed = new LinkedHashSet<>();
+        Set<Path> deleted = new LinkedHashSet<>();
+
+        while (true) {
+            WatchKey key = watchService.take();
+            long batchStart = System.currentTimeMillis();
+
+            // 去抖：持续收集，直到静默一段时间或超过最长等待时间
+            while (key != null) {
+                collect(key, changed, deleted);
+                long waited = System.currentTimeMillis() - batchStart;
+                if (waited >= maxDelayMillis) {
+                    break;
+                }
+                key = watchService.poll(Math.min(debounceMillis, maxDelayMillis - waited), TimeUnit.MILLISECONDS);
+            }
+
+            if (!changed.isEmpty() || !deleted.isEmpty()) {
+                listener.onChanges(changed, deleted);
+                changed = new LinkedHashSet<>();
+                deleted = new LinkedHashSet<>();
+            }
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed, Set<Path> deleted) {
+        Path dir = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                listener.onOverflow();
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+
+            Path name = (Path) event.context();
+            Set<Path> filter = singleFileFilters.get(dir);
+            if (filter != null && !filter.contains(name)) {
+                continue;
+            }
+
+            Path path = dir.resolve(name);
+            if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                changed.remove(path);
+                deleted.add(path);
+            } else {
+                deleted.remove(path);
+                changed.add(path);
+                // 新建的目录需要注册，并把其中已有的文件一并报告
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    registerTree(rootOf(path), path, changed);
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    /**
+     * 查找路径所属的监控根路径
+     */
+    private Path rootOf(Path path) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return root;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * 递归注册目录树，跳过被过滤规则排除的目录
+     * @param discovered 不为 null 时收集目录树中已有的文件
+     */
+    private void registerTree(Path root, Path start, Set<Path> discovered) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!filter.acceptDirectory(root, dir, ScanFilterMatcher.depth(root, dir))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    // 目录已被递归监控，不再只关注单个文件
+                    treeDirectories.add(dir);
+                    singleFileFilters.remove(dir);
+                    register(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (discovered != null && (attrs.isRegularFile() || attrs.isSymbolicLink() && Files.isRegularFile(file))) {
+                        discovered.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    listener.onError(file, exc);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            listener.onError(start, e);
+        }
+    }
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.put(key, dir);
+        } catch (IOException e) {
+            // 例如超过 inotify 监控数量上限
+            listener.onError(dir, e);
+        }
+    }
+
+    /**
+     * 停止监控
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("无法关闭目录监控: " + e.getMessage());
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
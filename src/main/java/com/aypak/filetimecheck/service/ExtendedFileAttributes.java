@@ -0,0 +1,119 @@
+package com.aypak.filetimecheck.service;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * 扩展文件属性：在 BasicFileAttributes 之外带有状态变更时间（ctime）、inode、设备号，以及可用时的出生时间
+ * 有出生时间时 creationTime() 返回出生时间，否则与标准属性一致（Linux 上 JDK 通常以修改时间代替）
+ * fileKey 与 JDK 在 Unix 上的格式相同，不同后端读到的同一文件可互相比较
+ */
+public class ExtendedFileAttributes implements BasicFileAttributes {
+
+    /**
+     * 文件类型
+     */
+    public static final int REGULAR_FILE = 1;
+    public static final int DIRECTORY = 2;
+    public static final int SYMBOLIC_LINK = 3;
+    public static final int OTHER = 4;
+
+    private final FileTime lastModifiedTime;
+    private final FileTime lastAccessTime;
+    private final FileTime creationTime;
+    private final FileTime changeTime;
+    private final FileTime birthTime;
+    private final long size;
+    private final int type;
+    private final long inode;
+    private final long device;
+
+    /**
+     * @param creationTime 标准属性中的创建时间（没有出生时间时使用）
+     * @param birthTime 出生时间，不可用时为 null
+     * @param type 文件类型（REGULAR_FILE 等）
+     */
+    public ExtendedFileAttributes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime creationTime,
+                                  FileTime changeTime, FileTime birthTime, long size, int type, long inode, long device) {
+        this.lastModifiedTime = lastModifiedTime;
+        this.lastAccessTime = lastAccessTime;
+        this.creationTime = creationTime;
+        this.changeTime = changeTime;
+        this.birthTime = birthTime;
+        this.size = size;
+        this.type = type;
+        this.inode = inode;
+        this.device = device;
+    }
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return birthTime != null ? birthTime : creationTime;
+    }
+
+    /**
+     * 状态变更时间（ctime）：修改内容、权限或时间戳时由内核更新，无法直接设置
+     */
+    public FileTime changeTime() {
+        return changeTime;
+    }
+
+    /**
+     * 出生时间，文件系统或后端不支持时为 null
+     */
+    public FileTime birthTime() {
+        return birthTime;
+    }
+
+    public boolean hasBirthTime() {
+        return birthTime != null;
+    }
+
+    public long inode() {
+        return inode;
+    }
+
+    public long device() {
+        return device;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return type == REGULAR_FILE;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return type == DIRECTORY;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return type == SYMBOLIC_LINK;
+    }
+
+    @Override
+    public boolean isOther() {
+        return type == OTHER;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Object fileKey() {
+        return "(dev=" + Long.toHexString(device) + ",ino=" + inode + ')';
+    }
+}
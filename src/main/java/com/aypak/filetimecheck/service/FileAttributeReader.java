@@ -0,0 +1,38 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * 文件属性读取后端
+ * 默认使用 BasicFileAttributes；Linux 上可换用一次读取 ctime、inode、设备号（及出生时间）的扩展后端，
+ * 按卷选择后端见 FileAttributeReaders
+ */
+public interface FileAttributeReader {
+
+    /**
+     * 标准后端：Files.readAttributes(BasicFileAttributes)
+     */
+    FileAttributeReader BASIC = new FileAttributeReader() {
+        @Override
+        public BasicFileAttributes read(Path path, boolean followLinks) throws IOException {
+            return FileTreeScanner.readAttributes(path, followLinks);
+        }
+
+        @Override
+        public String getName() {
+            return "basic";
+        }
+    };
+
+    /**
+     * 读取单个路径的属性；跟随链接时目标不存在（失效的链接）则返回链接本身的属性
+     */
+    BasicFileAttributes read(Path path, boolean followLinks) throws IOException;
+
+    /**
+     * 后端名称，用于日志
+     */
+    String getName();
+}
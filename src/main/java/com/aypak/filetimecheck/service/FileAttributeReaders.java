@@ -0,0 +1,111 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按卷选择文件属性后端，检测结果按 FileStore 缓存，同一卷上的文件不再逐个探测
+ * - 支持 "unix" 属性视图的卷使用 UnixAttributeReader
+ * - 以 -Pstatx（JDK 22+）构建时包含 StatxAttributeReader，探测到该卷的 statx 返回出生时间时优先使用
+ * - 其他卷（如 Windows）使用标准后端
+ */
+public class FileAttributeReaders {
+
+    private static final Method STATX_FACTORY = findStatxFactory();
+
+    // 标准后端的 creationTime 是否为真实的创建时间：Windows、macOS 是，其他系统（如 Linux）上 JDK 以修改时间代替
+    private static final boolean BASIC_HAS_BIRTH_TIME = basicHasBirthTime();
+    private static final Map<FileStore, FileAttributeReader> READERS = new ConcurrentHashMap<>();
+
+    private FileAttributeReaders() {
+    }
+
+    /**
+     * 当前构建和运行时是否可以使用 statx 读取出生时间
+     */
+    public static boolean isStatxAvailable() {
+        return STATX_FACTORY != null;
+    }
+
+    /**
+     * 属性中的创建时间是否为真实的出生时间（而非以修改时间代替）
+     * 扩展后端按是否读到出生时间判断，标准后端按操作系统判断
+     */
+    public static boolean hasBirthTime(BasicFileAttributes attrs) {
+        if (attrs instanceof ExtendedFileAttributes) {
+            return ((ExtendedFileAttributes) attrs).hasBirthTime();
+        }
+        return BASIC_HAS_BIRTH_TIME;
+    }
+
+    /**
+     * 属性中的状态变更时间（ctime），只有扩展后端能读到，其他情况返回 null
+     */
+    public static FileTime changeTime(BasicFileAttributes attrs) {
+        return attrs instanceof ExtendedFileAttributes ? ((ExtendedFileAttributes) attrs).changeTime() : null;
+    }
+
+    private static boolean basicHasBirthTime() {
+        String os = System.getProperty("os.name", "").toLowerCase();
+        return os.startsWith("windows") || os.startsWith("mac");
+    }
+
+    /**
+     * 路径所在卷的扩展后端；无法确定所在卷时使用标准后端
+     */
+    public static FileAttributeReader forPath(Path path) {
+        try {
+            return forStore(Files.getFileStore(path), path);
+        } catch (IOException e) {
+            return FileAttributeReader.BASIC;
+        }
+    }
+
+    /**
+     * 指定卷的扩展后端，首次调用时探测并缓存
+     * @param probe 该卷上的任一路径，用于探测 statx 是否返回出生时间
+     */
+    public static FileAttributeReader forStore(FileStore store, Path probe) {
+        if (store == null) {
+            return FileAttributeReader.BASIC;
+        }
+        return READERS.computeIfAbsent(store, key -> detect(key, probe));
+    }
+
+    private static FileAttributeReader detect(FileStore store, Path probe) {
+        if (!store.supportsFileAttributeView("unix")) {
+            return FileAttributeReader.BASIC;
+        }
+        if (STATX_FACTORY != null) {
+            try {
+                FileAttributeReader statx = (FileAttributeReader) STATX_FACTORY.invoke(null, probe);
+                if (statx != null) {
+                    return statx;
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                System.err.println("无法使用 statx: " + store.name() + " - " + e);
+            }
+        }
+        return new UnixAttributeReader();
+    }
+
+    /**
+     * StatxAttributeReader 只在 -Pstatx 构建中存在，按名称查找其工厂方法
+     */
+    private static Method findStatxFactory() {
+        try {
+            Class<?> type = Class.forName(FileAttributeReaders.class.getPackageName() + ".StatxAttributeReader");
+            Method factory = type.getMethod("create", Path.class);
+            return (boolean) type.getMethod("isSupported").invoke(null) ? factory : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
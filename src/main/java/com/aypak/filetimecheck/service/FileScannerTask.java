@@ -1,129 +1,354 @@
 package com.aypak.filetimecheck.service;
 
-import com.aypak.filetimecheck.model.FileInfo;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
+import com.aypak.filetimecheck.model.DirectorySummary;
+import com.aypak.filetimecheck.model.ErrorLog;
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.ScanConfig;
+import com.aypak.filetimecheck.model.TimeFence;
+import com.aypak.filetimecheck.model.ValidationResult;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * 文件扫描异步任务
  * 在后台线程中递归扫描文件夹，收集所有文件的时间信息
+ * 顺序模式使用 FileTreeScanner 单遍遍历，并行/虚拟线程模式使用对应的 ConcurrentTreeScanner
+ * 扫描结果以 FileResultStore.Entry 通过 ResultBatchPublisher 分批推送到 FX 线程，进度由 ProgressTracker 定时采样发布
+ * 增量模式（重新加载）借助 ScanCache 只重新读取有变化的目录
+ * 源路径按所在卷分组（见 FileStoreScheduler），不同卷同时扫描，各卷的并发上限可单独设置
+ * 启用扩展属性时各卷按 FileAttributeReaders 的检测结果选择属性后端（Linux 上可得到真实的创建时间）
+ * 启用断点时改用 ResumableTreeScanner 单线程遍历，定期在后台写断点，取消后可从断点继续
+ * 合并硬链接时按 fileKey 去重：同一物理文件只校验一次，其余路径作为别名在扫描结束后附加到同一行
+ * 启用离群检测时文件结果先经过 OutlierDetector 按所在目录评分再推送，各目录的离群边界在扫描结束后写入存储；
+ * 断点续扫时不检测（恢复前已扫描的文件不会重新读取，目录的分布不完整）
+ * 取消与暂停在每个文件、每个目录处检查（见 ProgressTask.checkpoint），大目录树上也能及时响应
+ * 任务返回值为扫描到的文件数
  */
-public class FileScannerTask extends Task<ObservableList<FileInfo>> {
+public class FileScannerTask extends ProgressTask<Integer> {
 
     private final List<Path> paths;
+    private final ScanConfig scanConfig;
+    private final Consumer<List<FileResultStore.Entry>> batchConsumer;
     private final TimeValidationService validationService;
+    private final ScanFilterMatcher filter;
+    private final ErrorLog errorLog = new ErrorLog();
+
+    // 合并硬链接：fileKey -> 首次出现的路径，首次路径 -> 其他路径（只有存在别名的文件才有条目）
+    private final Map<String, String> firstPaths = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> aliases = new ConcurrentHashMap<>();
+
+    // 离群检测：目录 -> 按目录全部文件得出的离群边界
+    private final Map<Path, TimeFence> outlierFences = new ConcurrentHashMap<>();
+
+    // 本次扫描的参考时间：开始扫描时取一次，全部文件按同一时刻校验（与批量校验一致），不再逐个文件读取时钟；
+    // 在启动工作线程之前写入
+    private long now;
+
+    // 后台线程退出 call() 时完成，此时最后一批结果已交给 Platform.runLater
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
 
     /**
-     * 单路径构造函数
+     * @param batchConsumer 在 FX 线程中接收每一批扫描结果
      */
-    public FileScannerTask(Path path) {
-        this.paths = java.util.List.of(path);
-        this.validationService = new TimeValidationService();
+    public FileScannerTask(Path path, Consumer<List<FileResultStore.Entry>> batchConsumer) {
+        this(java.util.List.of(path), ScanConfig.createDefault(), batchConsumer);
     }
 
     /**
      * 多路径构造函数
+     * @param batchConsumer 在 FX 线程中接收每一批扫描结果
+     * @throws java.util.regex.PatternSyntaxException 过滤规则中的 glob 语法错误
      */
-    public FileScannerTask(List<Path> paths) {
+    public FileScannerTask(List<Path> paths, ScanConfig scanConfig, Consumer<List<FileResultStore.Entry>> batchConsumer) {
         this.paths = new ArrayList<>(paths);
-        this.validationService = new TimeValidationService();
+        this.scanConfig = scanConfig;
+        this.batchConsumer = batchConsumer;
+        this.validationService = new TimeValidationService(scanConfig.getRuleSet());
+        this.filter = ScanFilterMatcher.compile(scanConfig.getFilter());
     }
 
     @Override
-    protected ObservableList<FileInfo> call() throws Exception {
-        ObservableList<FileInfo> result = FXCollections.observableArrayList();
-        List<Path> filesToScan = new ArrayList<>();
+    protected Integer call() throws Exception {
+        try {
+            return scan();
+        } finally {
+            finished.complete(null);
+        }
+    }
+
+    private int scan() throws Exception {
+        now = System.currentTimeMillis();
+        ProgressTracker tracker = trackProgress("扫描中");
+        // 断点按目录记录真实条目，跟随链接时不写断点
+        boolean resumable = (scanConfig.isCheckpoint() || scanConfig.isResume()) && !scanConfig.isFollowLinks();
+        try (tracker; ResultBatchPublisher<FileResultStore.Entry> publisher = new ResultBatchPublisher<>(batchConsumer)) {
+            OutlierDetector<FileResultStore.Entry> detector = scanConfig.isDetectOutliers() && !resumable
+                    ? new OutlierDetector<>(scanConfig.getOutlierThreshold(), new OutlierDetector.Sink<>() {
+                        @Override
+                        public void accept(FileResultStore.Entry entry, boolean outlier) {
+                            publisher.publish(outlier ? markOutlier(entry) : entry);
+                        }
+
+                        @Override
+                        public void onFence(Path directory, TimeFence fence) {
+                            outlierFences.put(directory, fence);
+                        }
+                    })
+                    : null;
+
+            FileTreeScanner.Listener listener = new FileTreeScanner.Listener() {
+                @Override
+                public void onFile(Path file, BasicFileAttributes attrs) {
+                    if (scanConfig.isDeduplicate() && isAlias(file, attrs)) {
+                        return;
+                    }
+                    FileResultStore.Entry entry = processFile(file, attrs);
+                    if (detector != null) {
+                        detector.offer(file.getParent(), entry.getModifiedTime(), entry);
+                    } else {
+                        publisher.publish(entry);
+                    }
+                    tracker.fileDone(attrs.size());
+                }
+
+                @Override
+                public void onError(Path file, IOException e) {
+                    // 跳过无法读取的文件，按异常类型汇总
+                    tracker.error();
+                    errorLog.record(ErrorLog.Operation.READ, file, e);
+                }
+
+                @Override
+                public void onDirectory(Path dir, BasicFileAttributes attrs, DirectorySummary children) {
+                    if (detector != null) {
+                        detector.close(dir);
+                    }
+                    if (scanConfig.isIncludeDirectories()) {
+                        publisher.publish(processDirectory(dir, attrs, children));
+                    }
+                }
+            };
+
+            if (resumable) {
+                new ResumableTreeScanner(paths, this::checkpoint, filter, ResumableTreeScanner.DEFAULT_CHECKPOINT_INTERVAL_MILLIS,
+                        this::attributeReader).scan(scanConfig.isResume(), listener);
+            } else {
+                // 不同卷同时扫描，同一卷上的路径依次扫描；扫描索引按目录记录真实条目，跟随链接时不使用增量扫描
+                boolean incremental = scanConfig.isIncremental() && !scanConfig.isFollowLinks();
+                try {
+                    FileStoreScheduler.run(FileStoreScheduler.group(paths), group -> {
+                        FileAttributeReader reader = scanConfig.isExtendedAttributes()
+                                ? FileAttributeReaders.forStore(group.getStore(), group.getPaths().get(0))
+                                : FileAttributeReader.BASIC;
+                        if (incremental) {
+                            scanIncremental(group.getPaths(), listener, reader);
+                            return;
+                        }
+                        switch (scanConfig.getMode()) {
+                            case PARALLEL:
+                                scanConcurrent(group.getPaths(), listener, new ParallelFileTreeScanner(
+                                        scanConfig.getStoreLimit(group.getStore(), scanConfig.getParallelism()),
+                                        this::checkpoint, filter, scanConfig.isFollowLinks(), reader));
+                                break;
+                            case VIRTUAL_THREAD:
+                                scanConcurrent(group.getPaths(), listener, new VirtualThreadFileTreeScanner(
+                                        scanConfig.getStoreLimit(group.getStore(), scanConfig.getMaxInFlight()),
+                                        this::checkpoint, filter, scanConfig.isFollowLinks(), reader));
+                                break;
+                            default:
+                                scanSequential(group.getPaths(), listener, reader);
+                                break;
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+
+            // 推送尚未评分的文件（列举失败或取消扫描的目录）
+            if (detector != null) {
+                detector.finish();
+            }
+        }
+
+        if (isCancelled()) {
+            updateMessage("扫描已取消");
+        }
+
+        return (int) tracker.getFiles();
+    }
+
+    /**
+     * 根路径所在卷的属性后端（未启用扩展属性时为标准后端）
+     */
+    private FileAttributeReader attributeReader(Path root) {
+        return scanConfig.isExtendedAttributes() ? FileAttributeReaders.forPath(root) : FileAttributeReader.BASIC;
+    }
+
+    /**
+     * 同一物理文件已经出现过时记为别名并返回 true（可在多个工作线程中调用）
+     * 文件系统不提供 fileKey（如 Windows）时不去重
+     */
+    private boolean isAlias(Path file, BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        if (fileKey == null) {
+            return false;
+        }
+        // 增量扫描复用的属性中 fileKey 为字符串，统一按字符串比较
+        // 每个文件都要登记：经由绑定挂载或符号链接到达的文件链接数为 1，但同样会以多个路径出现
+        String path = file.toString();
+        String first = firstPaths.putIfAbsent(fileKey.toString(), path);
+        if (first == null) {
+            return false;
+        }
+        aliases.computeIfAbsent(first, key -> Collections.synchronizedList(new ArrayList<>())).add(path);
+        return true;
+    }
+
+    /**
+     * 合并硬链接时各文件的别名：首次出现的路径 -> 其他路径，扫描结束后读取
+     */
+    public Map<String, List<String>> getAliases() {
+        return aliases;
+    }
 
-        // 收集所有需要扫描的文件
+    /**
+     * 离群检测得到的各目录离群边界，扫描结束后读取
+     */
+    public Map<Path, TimeFence> getOutlierFences() {
+        return outlierFences;
+    }
+
+    /**
+     * 后台线程退出后完成（取消时状态先于后台线程退出变为 CANCELLED，之后仍可能推送最后一批结果）
+     * 完成后再调用 Platform.runLater 的操作排在最后一批结果之后执行
+     */
+    public CompletableFuture<Void> getFinished() {
+        return finished;
+    }
+
+    /**
+     * 扫描过程中无法读取的文件（线程安全，扫描进行中也可读取）
+     */
+    public ErrorLog getErrorLog() {
+        return errorLog;
+    }
+
+    /**
+     * 顺序扫描（同一卷上的路径）：单遍遍历，访问到文件时直接复用属性并校验，不预先收集路径
+     */
+    private void scanSequential(List<Path> paths, FileTreeScanner.Listener listener, FileAttributeReader reader) {
+        FileTreeScanner scanner = new FileTreeScanner(this::checkpoint, filter, scanConfig.isFollowLinks(), reader);
         for (Path path : paths) {
-            if (isCancelled()) {
+            if (checkpoint()) {
                 break;
             }
 
-            if (Files.isDirectory(path)) {
-                try (Stream<Path> stream = Files.walk(path)) {
-                    List<Path> dirFiles = stream
-                            .filter(Files::isRegularFile)
-                            .collect(Collectors.toList());
-                    filesToScan.addAll(dirFiles);
+            if (Files.exists(path)) {
+                try {
+                    scanner.scan(path, listener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            } else if (Files.isRegularFile(path)) {
-                filesToScan.add(path);
             } else {
                 System.err.println("无效的文件路径: " + path);
             }
         }
+    }
 
-        final int total = filesToScan.size();
-
-        // 扫描每个文件
-        for (int i = 0; i < total; i++) {
-            if (isCancelled()) {
-                updateMessage("扫描已取消");
+    /**
+     * 增量扫描（同一卷上的路径）：加载每个根目录的扫描索引，只重新读取修改时间变化的目录，完成后保存新索引
+     */
+    private void scanIncremental(List<Path> paths, FileTreeScanner.Listener listener, FileAttributeReader reader) {
+        for (Path path : paths) {
+            if (checkpoint()) {
                 break;
             }
 
-            Path filePath = filesToScan.get(i);
-            try {
-                FileInfo fileInfo = readFileInfo(filePath);
-                validationService.validateAndUpdate(fileInfo);
-                result.add(fileInfo);
-            } catch (IOException e) {
-                // 跳过无法读取的文件
-                System.err.println("无法读取文件: " + filePath + " - " + e.getMessage());
+            if (!Files.exists(path)) {
+                System.err.println("无效的文件路径: " + path);
+                continue;
             }
 
-            updateProgress(i + 1, total);
-            updateMessage(String.format("扫描中: %d/%d", i + 1, total));
+            IncrementalTreeScanner scanner = new IncrementalTreeScanner(ScanCache.load(path), this::checkpoint, filter, reader);
+            ScanCache cache = scanner.scan(listener);
+            if (!isCancelled() && cache.size() > 0) {
+                try {
+                    cache.save();
+                } catch (IOException e) {
+                    System.err.println("无法保存扫描索引: " + path + " - " + e.getMessage());
+                }
+            }
         }
+    }
+
+    /**
+     * 并发扫描（同一卷上的路径）：并行或虚拟线程引擎，监听器在工作线程中回调
+     */
+    private void scanConcurrent(List<Path> paths, FileTreeScanner.Listener listener, ConcurrentTreeScanner concurrentScanner) {
+        try (ConcurrentTreeScanner scanner = concurrentScanner) {
+            for (Path path : paths) {
+                if (checkpoint()) {
+                    break;
+                }
 
-        return result;
+                if (Files.exists(path)) {
+                    scanner.scan(path, listener);
+                } else {
+                    System.err.println("无效的文件路径: " + path);
+                }
+            }
+        }
+    }
+
+    /**
+     * 构建并校验目录行：文件规则加上按子项汇总校验的目录规则
+     */
+    private FileResultStore.Entry processDirectory(Path dir, BasicFileAttributes attrs, DirectorySummary children) {
+        if (!FileAttributeReaders.hasBirthTime(attrs)) {
+            // 创建时间只是修改时间的替代值，按它校验目录规则会误报
+            children = children.withoutCreationTimes();
+        }
+        long creationTime = FileResultStore.toEpochMillis(attrs.creationTime());
+        long modifiedTime = FileResultStore.toEpochMillis(attrs.lastModifiedTime());
+        long accessTime = FileResultStore.toEpochMillis(attrs.lastAccessTime());
+        long changeTime = FileResultStore.toEpochMillis(FileAttributeReaders.changeTime(attrs));
+        return new FileResultStore.Entry(dir.toString(), creationTime, modifiedTime, accessTime, changeTime,
+                validationService.directoryViolations(creationTime, modifiedTime, accessTime,
+                        children.getMinCreationTime(), children.getMaxCreationTime(), now)
+                        | validationService.changeViolations(modifiedTime, changeTime),
+                children);
+    }
+
+    /**
+     * 在结果上加上离群规则的违规位
+     */
+    private static FileResultStore.Entry markOutlier(FileResultStore.Entry entry) {
+        return new FileResultStore.Entry(entry.getPath(), entry.getCreationTime(), entry.getModifiedTime(), entry.getAccessTime(),
+                entry.getChangeTime(), entry.getViolations() | ValidationResult.TIME_OUTLIER.getMask(), null);
     }
 
     /**
-     * 读取文件的时间信息
+     * 构建并校验单条结果（并发模式下在工作线程调用）
      */
-    private FileInfo readFileInfo(Path filePath) throws IOException {
-        BasicFileAttributes attrs = Files.readAttributes(
-                filePath,
-                BasicFileAttributes.class
-        );
-
-        ZoneId zoneId = ZoneId.systemDefault();
-
-        LocalDateTime creationTime = LocalDateTime.ofInstant(
-                attrs.creationTime().toInstant(),
-                zoneId
-        );
-
-        LocalDateTime lastModifiedTime = LocalDateTime.ofInstant(
-                attrs.lastModifiedTime().toInstant(),
-                zoneId
-        );
-
-        LocalDateTime lastAccessTime = LocalDateTime.ofInstant(
-                attrs.lastAccessTime().toInstant(),
-                zoneId
-        );
-
-        FileInfo fileInfo = new FileInfo();
-        fileInfo.setFilePath(filePath.toString());
-        fileInfo.setCreationTime(creationTime);
-        fileInfo.setLastModifiedTime(lastModifiedTime);
-        fileInfo.setLastAccessTime(lastAccessTime);
-
-        return fileInfo;
+    private FileResultStore.Entry processFile(Path file, BasicFileAttributes attrs) {
+        long creationTime = FileResultStore.toEpochMillis(attrs.creationTime());
+        long modifiedTime = FileResultStore.toEpochMillis(attrs.lastModifiedTime());
+        long accessTime = FileResultStore.toEpochMillis(attrs.lastAccessTime());
+        long changeTime = FileResultStore.toEpochMillis(FileAttributeReaders.changeTime(attrs));
+        return new FileResultStore.Entry(file.toString(), creationTime, modifiedTime, accessTime, changeTime,
+                validationService.violations(creationTime, modifiedTime, accessTime, now)
+                        | validationService.changeViolations(modifiedTime, changeTime), null);
     }
 }
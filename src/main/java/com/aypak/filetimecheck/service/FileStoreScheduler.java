@@ -0,0 +1,127 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 按文件系统（卷）调度扫描
+ * 源路径按 FileStore 分组，同一卷上的路径依次扫描，不同卷各用一个线程同时扫描；
+ * 多卷任务的总耗时接近最慢的卷，而不是各卷之和，同一块磁盘也不会被多个扫描争抢
+ */
+public class FileStoreScheduler {
+
+    private FileStoreScheduler() {
+    }
+
+    /**
+     * 按所在卷分组，保持路径原有顺序；无法确定所在卷的路径（如不存在）单独成组
+     */
+    public static List<StoreGroup> group(List<Path> paths) {
+        Map<FileStore, StoreGroup> groups = new LinkedHashMap<>();
+        List<StoreGroup> result = new ArrayList<>();
+        for (Path path : paths) {
+            FileStore store;
+            try {
+                store = Files.getFileStore(path);
+            } catch (IOException e) {
+                StoreGroup group = new StoreGroup(null);
+                group.paths.add(path);
+                result.add(group);
+                continue;
+            }
+            StoreGroup group = groups.get(store);
+            if (group == null) {
+                group = new StoreGroup(store);
+                groups.put(store, group);
+                result.add(group);
+            }
+            group.paths.add(path);
+        }
+        return result;
+    }
+
+    /**
+     * 每组一个线程同时执行，全部结束后返回；只有一组时直接在当前线程执行
+     * 当前线程在等待期间被中断（如任务取消）时继续等待各组结束，返回前恢复中断标记，
+     * 各组应自行检查取消并尽快结束
+     * @throws RuntimeException 某组执行时抛出的未检查异常
+     */
+    public static void run(List<StoreGroup> groups, Consumer<StoreGroup> worker) {
+        if (groups.size() == 1) {
+            worker.accept(groups.get(0));
+            return;
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>(groups.size());
+        for (StoreGroup group : groups) {
+            Thread thread = new Thread(() -> worker.accept(group), "store-scan-" + group.getName());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (failures) {
+            if (!failures.isEmpty()) {
+                Throwable first = failures.get(0);
+                throw first instanceof RuntimeException ? (RuntimeException) first : new RuntimeException(first);
+            }
+        }
+    }
+
+    /**
+     * 同一卷上的源路径
+     */
+    public static class StoreGroup {
+        private final FileStore store;
+        private final List<Path> paths = new ArrayList<>();
+
+        StoreGroup(FileStore store) {
+            this.store = store;
+        }
+
+        /**
+         * 所在卷，无法确定时为 null
+         */
+        public FileStore getStore() {
+            return store;
+        }
+
+        public List<Path> getPaths() {
+            return paths;
+        }
+
+        /**
+         * 卷名，用于线程名和日志
+         */
+        public String getName() {
+            return store != null ? store.name() : "unknown";
+        }
+    }
+}
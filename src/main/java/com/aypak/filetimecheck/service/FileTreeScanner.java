@@ -0,0 +1,261 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.DirectorySummary;
+import com.aypak.filetimecheck.model.FileInfo;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 基于 Files.walkFileTree 的单遍扫描引擎
+ * 直接复用遍历时拿到的 BasicFileAttributes，不再对每个文件重复读取属性，也不预先收集路径列表
+ *
+ * 列举目录时汇总直接子项的创建时间，目录的全部条目访问完后（后序）连同汇总一起回调 onDirectory，
+ * 目录一致性规则无需再次遍历即可校验
+ *
+ * 跟随链接时按目录的 fileKey 记录已访问的目录：指回上级目录的链接（环）由 walkFileTree 报告为
+ * FileSystemLoopException，指向已扫描目录的其他链接直接跳过，每个物理目录只展开一次
+ */
+public class FileTreeScanner {
+
+    /**
+     * 扫描回调
+     */
+    public interface Listener {
+        /**
+         * 访问到一个普通文件（不跟随链接时也包括指向普通文件的符号链接，属性为目标文件的属性）
+         */
+        void onFile(Path file, BasicFileAttributes attrs);
+
+        /**
+         * 文件或目录无法读取
+         */
+        void onError(Path file, IOException e);
+
+        /**
+         * 一个目录的条目已全部列举（列举失败或扫描被取消的目录不回调）
+         * 顺序、并行和虚拟线程引擎在子目录之后回调（后序），增量扫描在列举完本目录后即回调
+         * @param children 直接子项（含被过滤规则排除的子项）的创建时间汇总
+         */
+        default void onDirectory(Path dir, BasicFileAttributes attrs, DirectorySummary children) {
+        }
+    }
+
+    private final BooleanSupplier cancelled;
+    private final ScanFilterMatcher filter;
+    private final boolean followLinks;
+    private final FileAttributeReader reader;
+    private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+
+    public FileTreeScanner() {
+        this(() -> false);
+    }
+
+    /**
+     * @param cancelled 取消检查，返回 true 时立即终止遍历
+     */
+    public FileTreeScanner(BooleanSupplier cancelled) {
+        this(cancelled, ScanFilterMatcher.ACCEPT_ALL);
+    }
+
+    /**
+     * @param cancelled 取消检查，返回 true 时立即终止遍历
+     * @param filter 过滤规则，被排除的目录返回 SKIP_SUBTREE，不会被列举
+     */
+    public FileTreeScanner(BooleanSupplier cancelled, ScanFilterMatcher filter) {
+        this(cancelled, filter, false);
+    }
+
+    /**
+     * @param followLinks 是否跟随符号链接（含环检测）
+     */
+    public FileTreeScanner(BooleanSupplier cancelled, ScanFilterMatcher filter, boolean followLinks) {
+        this(cancelled, filter, followLinks, FileAttributeReader.BASIC);
+    }
+
+    /**
+     * @param reader 属性后端；非标准后端时 walkFileTree 给出的属性不含扩展信息，文件需用该后端再读取一次
+     */
+    public FileTreeScanner(BooleanSupplier cancelled, ScanFilterMatcher filter, boolean followLinks, FileAttributeReader reader) {
+        this.cancelled = cancelled;
+        this.filter = filter;
+        this.followLinks = followLinks;
+        this.reader = reader;
+    }
+
+    /**
+     * 扫描单个根路径（文件或文件夹）
+     */
+    public void scan(Path root, Listener listener) throws IOException {
+        Set<FileVisitOption> options = followLinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : EnumSet.noneOf(FileVisitOption.class);
+        // 正在访问的目录（栈顶为当前目录）及其子项汇总
+        Deque<OpenDirectory> open = new ArrayDeque<>();
+        Files.walkFileTree(root, options, Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (cancelled.getAsBoolean()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                if (reader != FileAttributeReader.BASIC) {
+                    try {
+                        attrs = reader.read(dir, followLinks);
+                    } catch (IOException e) {
+                        listener.onError(dir, e);
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                }
+                if (!open.isEmpty()) {
+                    open.peek().children.add(attrs);
+                }
+                if (!filter.acceptDirectory(root, dir, ScanFilterMatcher.depth(root, dir))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (followLinks && !firstVisit(dir, attrs)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                open.push(new OpenDirectory(attrs));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (cancelled.getAsBoolean()) {
+                    return FileVisitResult.TERMINATE;
+                }
+                // 与其他子项一样按所选后端读取（包括被过滤掉的文件），子项汇总中的创建时间口径一致；
+                // 链接由 resolveFileLink 按后端读取目标
+                if (attrs.isSymbolicLink()) {
+                    attrs = resolveFileLink(file, attrs, reader);
+                } else if (reader != FileAttributeReader.BASIC && attrs.isRegularFile()) {
+                    try {
+                        attrs = reader.read(file, followLinks);
+                    } catch (IOException e) {
+                        listener.onError(file, e);
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+                if (attrs.isRegularFile() && filter.acceptFile(root, file, attrs, ScanFilterMatcher.depth(root, file))) {
+                    listener.onFile(file, attrs);
+                }
+                if (!open.isEmpty()) {
+                    open.peek().children.add(attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // 跳过无法读取的文件或目录，继续遍历
+                listener.onError(file, exc);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                OpenDirectory directory = open.pop();
+                if (exc != null) {
+                    listener.onError(dir, exc);
+                } else {
+                    listener.onDirectory(dir, directory.attrs, directory.children);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 正在访问的目录
+     */
+    private static class OpenDirectory {
+        final BasicFileAttributes attrs;
+        final DirectorySummary children = new DirectorySummary();
+
+        OpenDirectory(BasicFileAttributes attrs) {
+            this.attrs = attrs;
+        }
+    }
+
+    /**
+     * 登记目录，已访问过（经由其他链接到达）时返回 false
+     */
+    private boolean firstVisit(Path dir, BasicFileAttributes attrs) {
+        return visitedDirectories.add(directoryKey(dir, attrs));
+    }
+
+    /**
+     * 目录的唯一标识：fileKey（设备号 + inode），文件系统不提供时退化为真实路径
+     */
+    static Object directoryKey(Path dir, BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        if (fileKey != null) {
+            return fileKey;
+        }
+        try {
+            return dir.toRealPath().toString();
+        } catch (IOException e) {
+            return dir.toAbsolutePath().normalize().toString();
+        }
+    }
+
+    /**
+     * 指向普通文件的符号链接按目标文件处理（与 Files.isRegularFile 一致）：返回用 reader 读取的目标属性
+     * 其他条目（含指向目录的链接、失效的链接）返回原属性；不跟随链接时指向目录的链接仍不展开
+     */
+    public static BasicFileAttributes resolveFileLink(Path path, BasicFileAttributes attrs, FileAttributeReader reader) {
+        if (!attrs.isSymbolicLink()) {
+            return attrs;
+        }
+        try {
+            BasicFileAttributes target = reader.read(path, true);
+            return target.isRegularFile() ? target : attrs;
+        } catch (IOException e) {
+            return attrs;
+        }
+    }
+
+    /**
+     * 读取属性；跟随链接时目标不存在（失效的链接）则返回链接本身的属性，与 walkFileTree 一致
+     */
+    static BasicFileAttributes readAttributes(Path path, boolean followLinks) throws IOException {
+        if (!followLinks) {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ignored) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 根据已读取的属性构建 FileInfo
+     */
+    public static FileInfo toFileInfo(Path filePath, BasicFileAttributes attrs) {
+        ZoneId zoneId = ZoneId.systemDefault();
+
+        FileInfo fileInfo = new FileInfo();
+        fileInfo.setFilePath(filePath.toString());
+        fileInfo.setCreationTime(LocalDateTime.ofInstant(attrs.creationTime().toInstant(), zoneId));
+        fileInfo.setLastModifiedTime(LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), zoneId));
+        fileInfo.setLastAccessTime(LocalDateTime.ofInstant(attrs.lastAccessTime().toInstant(), zoneId));
+        return fileInfo;
+    }
+}
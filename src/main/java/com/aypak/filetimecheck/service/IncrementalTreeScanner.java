@@ -0,0 +1,228 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.DirectorySummary;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 增量扫描引擎
+ * 借助上次的 ScanCache，只有修改时间发生变化的目录才重新列目录、读取文件属性；
+ * 未变化目录中的文件直接以缓存属性回调，仅对其子目录做一次 stat 以判断是否变化
+ *
+ * 注意：原地修改文件内容或时间不会改变所在目录的修改时间，增量扫描无法发现这类变化，需要全量扫描
+ * 索引中记录目录的全部文件（不受过滤规则影响），过滤只在回调时生效，修改过滤规则后索引仍可复用
+ */
+public class IncrementalTreeScanner {
+
+    private final ScanCache previous;
+    private final BooleanSupplier cancelled;
+    private final ScanFilterMatcher filter;
+    private final FileAttributeReader reader;
+    private long reusedFiles;
+    private long listedDirectories;
+    private Path root;
+
+    /**
+     * @param previous 上次扫描的索引（可为空索引）
+     * @param cancelled 取消检查
+     */
+    public IncrementalTreeScanner(ScanCache previous, BooleanSupplier cancelled) {
+        this(previous, cancelled, ScanFilterMatcher.ACCEPT_ALL);
+    }
+
+    /**
+     * @param filter 过滤规则，被排除的目录不会被列举
+     */
+    public IncrementalTreeScanner(ScanCache previous, BooleanSupplier cancelled, ScanFilterMatcher filter) {
+        this(previous, cancelled, filter, FileAttributeReader.BASIC);
+    }
+
+    /**
+     * @param reader 属性后端；复用缓存的文件只有索引中的三个时间
+     */
+    public IncrementalTreeScanner(ScanCache previous, BooleanSupplier cancelled, ScanFilterMatcher filter,
+                                  FileAttributeReader reader) {
+        this.previous = previous;
+        this.cancelled = cancelled;
+        this.filter = filter;
+        this.reader = reader;
+    }
+
+    /**
+     * 扫描索引对应的根目录
+     * @return 本次扫描得到的新索引；扫描被取消时索引不完整，不应保存
+     */
+    public ScanCache scan(FileTreeScanner.Listener listener) {
+        root = previous.getRoot();
+        ScanCache current = new ScanCache(root);
+
+        BasicFileAttributes rootAttrs;
+        try {
+            rootAttrs = FileTreeScanner.resolveFileLink(root, reader.read(root, false), reader);
+        } catch (IOException e) {
+            listener.onError(root, e);
+            return current;
+        }
+        if (!rootAttrs.isDirectory()) {
+            if (rootAttrs.isRegularFile()) {
+                listener.onFile(root, rootAttrs);
+            }
+            return current;
+        }
+
+        // 使用显式栈避免深层目录导致栈溢出
+        Deque<PendingDirectory> stack = new ArrayDeque<>();
+        stack.push(new PendingDirectory(root, rootAttrs));
+
+        while (!stack.isEmpty()) {
+            if (cancelled.getAsBoolean()) {
+                break;
+            }
+
+            PendingDirectory pending = stack.pop();
+            ScanCache.DirEntry cached = previous.get(pending.dir);
+            ScanCache.DirEntry entry;
+            if (cached != null && cached.getLastModifiedTime().equals(pending.lastModifiedTime())) {
+                entry = reuseDirectory(pending, cached, stack, listener);
+            } else {
+                entry = listDirectory(pending, stack, listener);
+            }
+
+            if (entry != null) {
+                current.put(pending.dir, entry);
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * 目录未变化：文件直接使用缓存属性，子目录只 stat 一次
+     * @return 缓存的目录条目；扫描被取消时返回 null
+     */
+    private ScanCache.DirEntry reuseDirectory(PendingDirectory pending, ScanCache.DirEntry cached,
+                                              Deque<PendingDirectory> stack, FileTreeScanner.Listener listener) {
+        Path dir = pending.dir;
+        int depth = ScanFilterMatcher.depth(root, dir) + 1;
+        DirectorySummary children = new DirectorySummary();
+        for (ScanCache.CachedFile file : cached.getFiles()) {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+            Path path = dir.resolve(file.getName());
+            BasicFileAttributes attrs = file.toAttributes();
+            children.add(attrs);
+            if (filter.acceptFile(root, path, attrs, depth)) {
+                listener.onFile(path, attrs);
+                reusedFiles++;
+            }
+        }
+
+        for (String name : cached.getSubdirectories()) {
+            Path subdirectory = dir.resolve(name);
+            try {
+                BasicFileAttributes attrs = reader.read(subdirectory, false);
+                children.add(attrs);
+                if (attrs.isDirectory() && filter.acceptDirectory(root, subdirectory, depth)) {
+                    stack.push(new PendingDirectory(subdirectory, attrs));
+                }
+            } catch (IOException e) {
+                listener.onError(subdirectory, e);
+            }
+        }
+        listener.onDirectory(dir, pending.attrs, children);
+        return cached;
+    }
+
+    /**
+     * 目录已变化或首次扫描：重新列目录并读取每个条目的属性
+     * @return 新的目录条目；列目录失败时返回 null，下次仍会重新列举
+     */
+    private ScanCache.DirEntry listDirectory(PendingDirectory pending,
+                                             Deque<PendingDirectory> stack, FileTreeScanner.Listener listener) {
+        ScanCache.DirEntry entry = new ScanCache.DirEntry(pending.lastModifiedTime());
+        listedDirectories++;
+        int depth = ScanFilterMatcher.depth(root, pending.dir) + 1;
+        DirectorySummary children = new DirectorySummary();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pending.dir)) {
+            for (Path child : stream) {
+                if (cancelled.getAsBoolean()) {
+                    return null;
+                }
+
+                BasicFileAttributes attrs;
+                try {
+                    attrs = FileTreeScanner.resolveFileLink(child, reader.read(child, false), reader);
+                } catch (IOException e) {
+                    listener.onError(child, e);
+                    continue;
+                }
+
+                // 扫描索引只记录目录和普通文件，与 DirectorySummary 的汇总口径一致
+                String name = child.getFileName().toString();
+                if (attrs.isDirectory()) {
+                    children.add(attrs);
+                    entry.getSubdirectories().add(name);
+                    if (filter.acceptDirectory(root, child, depth)) {
+                        stack.push(new PendingDirectory(child, attrs));
+                    }
+                } else if (attrs.isRegularFile()) {
+                    children.add(attrs);
+                    entry.getFiles().add(ScanCache.CachedFile.of(name, attrs));
+                    if (filter.acceptFile(root, child, attrs, depth)) {
+                        listener.onFile(child, attrs);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            listener.onError(pending.dir, e);
+            return null;
+        } catch (DirectoryIteratorException e) {
+            listener.onError(pending.dir, e.getCause());
+            return null;
+        }
+        listener.onDirectory(pending.dir, pending.attrs, children);
+        return entry;
+    }
+
+    /**
+     * 复用缓存的文件数
+     */
+    public long getReusedFiles() {
+        return reusedFiles;
+    }
+
+    /**
+     * 重新列举的目录数
+     */
+    public long getListedDirectories() {
+        return listedDirectories;
+    }
+
+    /**
+     * 待扫描目录及其属性
+     */
+    private static class PendingDirectory {
+        final Path dir;
+        final BasicFileAttributes attrs;
+
+        PendingDirectory(Path dir, BasicFileAttributes attrs) {
+            this.dir = dir;
+            this.attrs = attrs;
+        }
+
+        Instant lastModifiedTime() {
+            return attrs.lastModifiedTime().toInstant();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.TimeDigest;
+import com.aypak.filetimecheck.model.TimeFence;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按目录检测修改时间离群的文件（随扫描进行，不再单独遍历）
+ * 每个正在扫描的目录维护一个 TimeDigest，文件到达时加入草图，并按四分位距得出的离群边界评分：
+ * 目录的前 WARM_UP 个文件先暂存，凑够后或目录列举完成（close）时一起评分，之后的文件随到随评，
+ * 边界随文件增多定期刷新，因此较早评分的文件按当时已有文件的分布判断
+ * 每个目录占用的内存有上限（草图的质心数受压缩参数限制，暂存的文件不超过 WARM_UP 个），
+ * 目录完成后草图即释放，只把离群边界交给 Sink.onFence
+ * 可在多个工作线程中调用：同一目录内按目录加锁，评分结果在锁外交给 Sink
+ * @param <T> 随文件传递的结果（如待输出的行）
+ */
+public class OutlierDetector<T> {
+
+    /**
+     * 四分位距的下限（30 天）：解压、检出等同一时刻生成的目录四分位距接近 0，
+     * 按下限计算可避免事后个别修改过的文件被判为离群
+     */
+    public static final long MIN_SPREAD_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * 文件数少于该值的目录不评分（分布不可靠）
+     */
+    public static final int MIN_FILES = 8;
+
+    // 开始随到随评之前暂存的文件数
+    private static final int WARM_UP = 32;
+
+    /**
+     * 评分结果回调
+     */
+    public interface Sink<T> {
+        /**
+         * 一个文件评分完成
+         */
+        void accept(T item, boolean outlier);
+
+        /**
+         * 一个目录评分完成，fence 为按目录全部文件得出的离群边界（可用于之后重新校验）
+         */
+        default void onFence(Path directory, TimeFence fence) {
+        }
+    }
+
+    private final double threshold;
+    private final Sink<T> sink;
+    private final Map<Path, OpenDirectory<T>> open = new ConcurrentHashMap<>();
+
+    /**
+     * @param threshold 离群阈值（四分位距的倍数），默认见 ScanConfig.DEFAULT_OUTLIER_THRESHOLD
+     */
+    public OutlierDetector(double threshold, Sink<T> sink) {
+        if (!(threshold > 0)) {
+            throw new IllegalArgumentException("离群阈值应大于 0: " + threshold);
+        }
+        this.threshold = threshold;
+        this.sink = sink;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 加入一个文件，评分后交给 Sink（暂存的文件在之后的 offer 或 close 中交付）
+     * @param directory 文件所在目录
+     */
+    public void offer(Path directory, long modifiedMillis, T item) {
+        if (directory == null || modifiedMillis == FileResultStore.NO_TIME) {
+            sink.accept(item, false);
+            return;
+        }
+        OpenDirectory<T> state = open.computeIfAbsent(directory, key -> new OpenDirectory<>());
+        List<T> items;
+        boolean[] outliers;
+        boolean outlier = false;
+        synchronized (state) {
+            state.digest.add(modifiedMillis);
+            if (state.pending == null) {
+                long size = state.digest.size();
+                if (size >= state.fenceSize + Math.max(WARM_UP, state.fenceSize / 8)) {
+                    state.refresh(threshold);
+                }
+                outlier = state.fence.isOutside(modifiedMillis);
+                items = null;
+                outliers = null;
+            } else {
+                state.pending.add(item);
+                state.pendingTimes[state.pending.size() - 1] = modifiedMillis;
+                if (state.pending.size() < WARM_UP) {
+                    return;
+                }
+                state.refresh(threshold);
+                items = state.pending;
+                outliers = state.drain();
+            }
+        }
+
+        if (items == null) {
+            sink.accept(item, outlier);
+        } else {
+            deliver(items, outliers);
+        }
+    }
+
+    /**
+     * 目录的文件已全部加入（FileTreeScanner.Listener.onDirectory 时调用）：评分暂存的文件并释放草图
+     */
+    public void close(Path directory) {
+        OpenDirectory<T> state = open.remove(directory);
+        if (state == null) {
+            return;
+        }
+        List<T> items;
+        boolean[] outliers;
+        TimeFence fence;
+        synchronized (state) {
+            fence = state.digest.size() >= MIN_FILES
+                    ? state.digest.fence(threshold, MIN_SPREAD_MILLIS) : null;
+            state.fence = fence;
+            items = state.pending;
+            outliers = items != null ? state.drain() : null;
+        }
+        if (items != null) {
+            deliver(items, outliers);
+        }
+        if (fence != null) {
+            sink.onFence(directory, fence);
+        }
+    }
+
+    /**
+     * 扫描结束时调用：关闭尚未关闭的目录（列举失败、扫描取消或引擎不回调 onDirectory 时）
+     */
+    public void finish() {
+        for (Path directory : new ArrayList<>(open.keySet())) {
+            close(directory);
+        }
+    }
+
+    private void deliver(List<T> items, boolean[] outliers) {
+        for (int i = 0; i < items.size(); i++) {
+            sink.accept(items.get(i), outliers[i]);
+        }
+    }
+
+    /**
+     * 正在扫描的目录：草图、当前边界和暂存的文件
+     */
+    private static class OpenDirectory<T> {
+        private final TimeDigest digest = new TimeDigest();
+        private TimeFence fence;
+        private long fenceSize;
+        private List<T> pending = new ArrayList<>();
+        private final long[] pendingTimes = new long[WARM_UP];
+
+        private void refresh(double threshold) {
+            fence = digest.fence(threshold, MIN_SPREAD_MILLIS);
+            fenceSize = digest.size();
+        }
+
+        /**
+         * 按当前边界（文件太少时为 null，全部正常）评分暂存的文件，之后不再暂存
+         */
+        private boolean[] drain() {
+            boolean[] outliers = new boolean[pending.size()];
+            for (int i = 0; i < outliers.length; i++) {
+                outliers[i] = fence != null && fence.isOutside(pendingTimes[i]);
+            }
+            pending = null;
+            return outliers;
+        }
+    }
+}
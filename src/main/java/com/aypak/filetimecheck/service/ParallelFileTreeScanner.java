@@ -0,0 +1,168 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.DirectorySummary;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 并行扫描引擎
+ * 每个目录作为一个 ForkJoin 子任务，由工作窃取线程池并行列目录、读属性
+ * 跟随链接时按 fileKey 记录已展开的目录，链接成环或多个链接指向同一目录时只展开一次
+ * 文件按各子任务的完成顺序回调，与顺序遍历得到的文件集合相同但顺序不同（见 ConcurrentTreeScanner）
+ */
+public class ParallelFileTreeScanner implements ConcurrentTreeScanner {
+
+    private final ForkJoinPool pool;
+    private final BooleanSupplier cancelled;
+    private final ScanFilterMatcher filter;
+    private final boolean followLinks;
+    private final FileAttributeReader reader;
+    private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param parallelism 并行度（工作线程数）
+     * @param cancelled 取消检查
+     */
+    public ParallelFileTreeScanner(int parallelism, BooleanSupplier cancelled) {
+        this(parallelism, cancelled, ScanFilterMatcher.ACCEPT_ALL);
+    }
+
+    /**
+     * @param filter 过滤规则，被排除的目录不会被列举
+     */
+    public ParallelFileTreeScanner(int parallelism, BooleanSupplier cancelled, ScanFilterMatcher filter) {
+        this(parallelism, cancelled, filter, false);
+    }
+
+    /**
+     * @param followLinks 是否跟随符号链接（含环检测）
+     */
+    public ParallelFileTreeScanner(int parallelism, BooleanSupplier cancelled, ScanFilterMatcher filter, boolean followLinks) {
+        this(parallelism, cancelled, filter, followLinks, FileAttributeReader.BASIC);
+    }
+
+    /**
+     * @param reader 属性后端
+     */
+    public ParallelFileTreeScanner(int parallelism, BooleanSupplier cancelled, ScanFilterMatcher filter, boolean followLinks,
+                                   FileAttributeReader reader) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.cancelled = cancelled;
+        this.filter = filter;
+        this.followLinks = followLinks;
+        this.reader = reader;
+    }
+
+    @Override
+    public void scan(Path root, FileTreeScanner.Listener listener) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = FileTreeScanner.resolveFileLink(root, reader.read(root, followLinks), reader);
+        } catch (IOException e) {
+            listener.onError(root, e);
+            return;
+        }
+
+        if (attrs.isDirectory()) {
+            if (followLinks && !visitedDirectories.add(FileTreeScanner.directoryKey(root, attrs))) {
+                return;
+            }
+            pool.invoke(new DirectoryTask(root, root, attrs, 0, listener));
+        } else if (attrs.isRegularFile()) {
+            listener.onFile(root, attrs);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 单个目录的扫描任务
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final Path dir;
+        private final BasicFileAttributes attrs;
+        private final int depth;
+        private final FileTreeScanner.Listener listener;
+
+        DirectoryTask(Path root, Path dir, BasicFileAttributes attrs, int depth, FileTreeScanner.Listener listener) {
+            this.root = root;
+            this.dir = dir;
+            this.attrs = attrs;
+            this.depth = depth;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+
+            List<DirectoryTask> subTasks = new ArrayList<>();
+            DirectorySummary children = new DirectorySummary();
+            boolean listed = false;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    if (cancelled.getAsBoolean()) {
+                        break;
+                    }
+
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = FileTreeScanner.resolveFileLink(entry, reader.read(entry, followLinks), reader);
+                    } catch (IOException e) {
+                        listener.onError(entry, e);
+                        continue;
+                    }
+
+                    children.add(attrs);
+                    if (attrs.isDirectory()) {
+                        if (!filter.acceptDirectory(root, entry, depth + 1)) {
+                            continue;
+                        }
+                        if (followLinks && !visitedDirectories.add(FileTreeScanner.directoryKey(entry, attrs))) {
+                            continue;
+                        }
+                        DirectoryTask subTask = new DirectoryTask(root, entry, attrs, depth + 1, listener);
+                        subTask.fork();
+                        subTasks.add(subTask);
+                    } else if (attrs.isRegularFile() && filter.acceptFile(root, entry, attrs, depth + 1)) {
+                        listener.onFile(entry, attrs);
+                    }
+                }
+                listed = true;
+            } catch (IOException e) {
+                listener.onError(dir, e);
+            } catch (DirectoryIteratorException e) {
+                listener.onError(dir, e.getCause());
+            }
+
+            for (ForkJoinTask<Void> subTask : subTasks) {
+                subTask.join();
+            }
+            // 子目录全部完成后回调（后序）；被取消时汇总不完整，不回调
+            if (listed && !cancelled.getAsBoolean()) {
+                listener.onDirectory(dir, attrs, children);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.aypak.filetimecheck.service;
+
+import javafx.concurrent.Task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带进度统计的异步任务基类
+ * 扫描、校验、修复任务统一通过 ProgressTracker 定时采样发布进度，不再逐文件更新消息
+ *
+ * 支持暂停/继续：工作线程在每个检查点（每个文件、每个目录）调用 checkpoint()，
+ * 暂停期间在检查点阻塞，不再发起 I/O，已完成的进度保留；取消会立即唤醒被暂停的线程
+ */
+public abstract class ProgressTask<V> extends Task<V> {
+
+    // 暂停时的最长等待片段，保证即使错过唤醒，取消也能在此时间内生效
+    private static final long PAUSE_POLL_MILLIS = 50;
+
+    // 使用 ReentrantLock 而不是 synchronized，虚拟线程在此等待时不会占住载体线程
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    private final Condition resumed = pauseLock.newCondition();
+    private volatile boolean paused;
+
+    /**
+     * 创建绑定到本任务的进度统计器，采样结果更新到任务的 message 和 progress
+     * @param action 进度文本前缀，例如 "扫描中"
+     */
+    protected ProgressTracker trackProgress(String action) {
+        return new ProgressTracker(snapshot -> {
+            updateMessage(snapshot.toMessage(paused ? action + "（已暂停）" : action));
+            if (snapshot.getTotal() > 0) {
+                updateProgress(snapshot.getFiles(), snapshot.getTotal());
+            }
+        });
+    }
+
+    /**
+     * 暂停：工作线程在下一个检查点停下
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * 继续
+     */
+    public void resume() {
+        pauseLock.lock();
+        try {
+            paused = false;
+            resumed.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        pauseLock.lock();
+        try {
+            resumed.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+        return cancelled;
+    }
+
+    /**
+     * 检查点：暂停时阻塞直到继续或取消（可在多个工作线程中调用）
+     * @return 任务是否已取消，返回 true 时调用方应尽快结束
+     */
+    protected boolean checkpoint() {
+        if (paused) {
+            pauseLock.lock();
+            try {
+                while (paused && !isCancelled()) {
+                    resumed.await(PAUSE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                // 取消任务会中断任务线程
+                Thread.currentThread().interrupt();
+            } finally {
+                pauseLock.unlock();
+            }
+        }
+        return isCancelled();
+    }
+}
@@ -0,0 +1,211 @@
+package com.aypak.filetimecheck.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 进度统计器
+ * 工作线程只累加计数器，由定时采样线程按固定频率生成快照（速率、错误数、预计剩余时间）并发布，
+ * 避免每处理一个文件就格式化字符串、更新 FX 属性
+ */
+public class ProgressTracker implements AutoCloseable {
+
+    /**
+     * 默认采样间隔（毫秒）
+     */
+    public static final long DEFAULT_SAMPLE_INTERVAL_MILLIS = 200;
+
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile long total = -1;
+
+    private final Consumer<Snapshot> sink;
+    private final ScheduledExecutorService sampler;
+    private final long startNanos;
+    private long lastSampleNanos;
+    private long lastSampleFiles;
+    private long lastSampleBytes;
+
+    /**
+     * @param sink 接收快照，在采样线程中调用
+     */
+    public ProgressTracker(Consumer<Snapshot> sink) {
+        this(sink, DEFAULT_SAMPLE_INTERVAL_MILLIS);
+    }
+
+    public ProgressTracker(Consumer<Snapshot> sink, long sampleIntervalMillis) {
+        this.sink = sink;
+        this.startNanos = System.nanoTime();
+        this.lastSampleNanos = startNanos;
+
+        this.sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "progress-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sampler.scheduleAtFixedRate(this::sample, sampleIntervalMillis, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 设置总数（未知时为 -1，此时不计算预计剩余时间）
+     */
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * 记录处理完成一个文件
+     * @param size 文件字节数，未知时传 0
+     */
+    public void fileDone(long size) {
+        files.increment();
+        if (size > 0) {
+            bytes.add(size);
+        }
+    }
+
+    /**
+     * 记录处理完成一批文件（大小未知）
+     */
+    public void filesDone(int count) {
+        files.add(count);
+    }
+
+    /**
+     * 记录一次错误
+     */
+    public void error() {
+        errors.increment();
+    }
+
+    public long getFiles() {
+        return files.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * 生成并发布一次快照
+     */
+    private synchronized void sample() {
+        sink.accept(snapshot());
+    }
+
+    /**
+     * 计算当前快照：速率取最近一个采样窗口，预计剩余时间按整体平均速率估算
+     */
+    private synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long currentFiles = files.sum();
+        long currentBytes = bytes.sum();
+
+        double window = Math.max(1, now - lastSampleNanos) / 1_000_000_000.0;
+        double filesPerSecond = (currentFiles - lastSampleFiles) / window;
+        double bytesPerSecond = (currentBytes - lastSampleBytes) / window;
+
+        lastSampleNanos = now;
+        lastSampleFiles = currentFiles;
+        lastSampleBytes = currentBytes;
+
+        long etaSeconds = -1;
+        long currentTotal = total;
+        double elapsed = Math.max(1, now - startNanos) / 1_000_000_000.0;
+        if (currentTotal >= 0 && currentFiles > 0) {
+            double averageRate = currentFiles / elapsed;
+            etaSeconds = Math.round(Math.max(0, currentTotal - currentFiles) / averageRate);
+        }
+
+        return new Snapshot(currentFiles, currentBytes, errors.sum(), currentTotal,
+                filesPerSecond, bytesPerSecond, etaSeconds);
+    }
+
+    /**
+     * 停止采样并发布最终快照
+     */
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+        sample();
+    }
+
+    /**
+     * 进度快照
+     */
+    public static class Snapshot {
+        private final long files;
+        private final long bytes;
+        private final long errors;
+        private final long total;
+        private final double filesPerSecond;
+        private final double bytesPerSecond;
+        private final long etaSeconds;
+
+        public Snapshot(long files, long bytes, long errors, long total,
+                        double filesPerSecond, double bytesPerSecond, long etaSeconds) {
+            this.files = files;
+            this.bytes = bytes;
+            this.errors = errors;
+            this.total = total;
+            this.filesPerSecond = filesPerSecond;
+            this.bytesPerSecond = bytesPerSecond;
+            this.etaSeconds = etaSeconds;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public double getFilesPerSecond() {
+            return filesPerSecond;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public long getEtaSeconds() {
+            return etaSeconds;
+        }
+
+        /**
+         * 格式化为进度文本，例如 "扫描中: 12,345 个文件 | 2,100 文件/秒 | 35.2 MB/秒 | 错误 3"
+         */
+        public String toMessage(String action) {
+            StringBuilder sb = new StringBuilder(action).append(": ");
+            if (total >= 0) {
+                sb.append(String.format("%,d/%,d", files, total));
+            } else {
+                sb.append(String.format("%,d 个文件", files));
+            }
+            sb.append(String.format(" | %,.0f 文件/秒", filesPerSecond));
+            if (bytes > 0) {
+                sb.append(String.format(" | %.1f MB/秒", bytesPerSecond / (1024 * 1024)));
+            }
+            if (errors > 0) {
+                sb.append(String.format(" | 错误 %,d", errors));
+            }
+            if (etaSeconds >= 0) {
+                sb.append(String.format(" | 剩余 %02d:%02d", etaSeconds / 60, etaSeconds % 60));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.RepairConfig;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Properties;
+
+/**
+ * 从 properties 文件加载修复配置（命令行模式使用）
+ *
+ * 每个时间属性使用 creation / modified / access 前缀，未配置的属性沿用默认配置：
+ * <pre>
+ * modified.mode=RANDOM                 # FIXED / RANDOM / BASED_ON_PREVIOUS
+ * modified.baseOn=CREATION_TIME        # RANDOM 模式的基准时间
+ * modified.days=0-30                   # 随机偏移范围：days / hours / minutes / seconds
+ * modified.hours=0-24
+ * access.mode=FIXED
+ * access.fixedTime=2024-01-01T08:00:00 # FIXED 模式的固定时间
+ * </pre>
+ */
+public class RepairConfigLoader {
+
+    private RepairConfigLoader() {
+    }
+
+    /**
+     * 加载配置文件
+     * @throws IllegalArgumentException 配置值无法解析
+     */
+    public static RepairConfig load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        RepairConfig config = RepairConfig.createDefault();
+        config.setCreationConfig(loadTimeConfig(properties, "creation", config.getCreationConfig()));
+        config.setModifiedConfig(loadTimeConfig(properties, "modified", config.getModifiedConfig()));
+        config.setAccessConfig(loadTimeConfig(properties, "access", config.getAccessConfig()));
+        return config;
+    }
+
+    private static RepairConfig.TimeConfig loadTimeConfig(Properties properties, String prefix,
+                                                          RepairConfig.TimeConfig defaults) {
+        String mode = properties.getProperty(prefix + ".mode");
+        if (mode == null) {
+            return defaults;
+        }
+
+        RepairConfig.TimeConfig timeConfig = new RepairConfig.TimeConfig();
+        timeConfig.setMode(parseEnum(RepairConfig.TimeMode.class, prefix + ".mode", mode));
+
+        switch (timeConfig.getMode()) {
+            case FIXED:
+                String fixedTime = require(properties, prefix + ".fixedTime");
+                try {
+                    timeConfig.setFixedTime(LocalDateTime.parse(fixedTime));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException(prefix + ".fixedTime 格式错误（示例 2024-01-01T08:00:00）: " + fixedTime);
+                }
+                break;
+            case RANDOM:
+                String baseOn = properties.getProperty(prefix + ".baseOn", "CREATION_TIME");
+                timeConfig.setBaseOnPrevious(parseEnum(RepairConfig.TimeAttribute.class, prefix + ".baseOn", baseOn));
+
+                RepairConfig.RandomOffset offset = new RepairConfig.RandomOffset();
+                int[] days = parseRange(properties, prefix + ".days", offset.getDaysMin(), offset.getDaysMax());
+                int[] hours = parseRange(properties, prefix + ".hours", offset.getHoursMin(), offset.getHoursMax());
+                int[] minutes = parseRange(properties, prefix + ".minutes", offset.getMinutesMin(), offset.getMinutesMax());
+                int[] seconds = parseRange(properties, prefix + ".seconds", offset.getSecondsMin(), offset.getSecondsMax());
+                timeConfig.setRandomOffset(new RepairConfig.RandomOffset(days[0], days[1], hours[0], hours[1],
+                        minutes[0], minutes[1], seconds[0], seconds[1]));
+                break;
+            default:
+                break;
+        }
+        return timeConfig;
+    }
+
+    private static String require(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("缺少配置项: " + key);
+        }
+        return value.trim();
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String key, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("配置项 " + key + " 的值无效: " + value);
+        }
+    }
+
+    /**
+     * 解析 "最小-最大" 形式的范围，未配置时返回默认值
+     */
+    private static int[] parseRange(Properties properties, String key, int defaultMin, int defaultMax) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return new int[]{defaultMin, defaultMax};
+        }
+
+        String[] parts = value.trim().split("\\s*-\\s*");
+        try {
+            int min = Integer.parseInt(parts[0]);
+            int max = parts.length > 1 ? Integer.parseInt(parts[1]) : min;
+            if (parts.length > 2 || min < 0 || max < min) {
+                throw new NumberFormatException();
+            }
+            return new int[]{min, max};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("配置项 " + key + " 应为 最小-最大 形式: " + value);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.aypak.filetimecheck.service;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 扫描结果批量发布器
+ * 后台线程逐条发布结果，按时间间隔或批大小合并后，每批只调用一次 Platform.runLater 交给 FX 线程
+ */
+public class ResultBatchPublisher<T> implements AutoCloseable {
+
+    /**
+     * 默认发布间隔（毫秒）
+     */
+    public static final long DEFAULT_INTERVAL_MILLIS = 50;
+
+    /**
+     * 默认单批最大条数
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 5000;
+
+    private final Consumer<List<T>> consumer;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+    private List<T> pending;
+
+    /**
+     * @param consumer 在 FX 线程中接收每一批结果
+     */
+    public ResultBatchPublisher(Consumer<List<T>> consumer) {
+        this(consumer, DEFAULT_INTERVAL_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public ResultBatchPublisher(Consumer<List<T>> consumer, long intervalMillis, int maxBatchSize) {
+        this.consumer = consumer;
+        this.maxBatchSize = maxBatchSize;
+        this.pending = new ArrayList<>();
+
+        // 定时发布，保证扫描变慢时已有结果也能及时显示
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "result-batch-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.scheduleAtFixedRate(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发布一条结果（线程安全）
+     */
+    public void publish(T item) {
+        List<T> batch = null;
+        synchronized (this) {
+            pending.add(item);
+            if (pending.size() >= maxBatchSize) {
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+        }
+        if (batch != null) {
+            deliver(batch);
+        }
+    }
+
+    /**
+     * 立即发布当前积累的结果
+     */
+    public void flush() {
+        List<T> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        deliver(batch);
+    }
+
+    private void deliver(List<T> batch) {
+        Platform.runLater(() -> consumer.accept(batch));
+    }
+
+    /**
+     * 停止定时发布并发布剩余结果
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        flush();
+    }
+}
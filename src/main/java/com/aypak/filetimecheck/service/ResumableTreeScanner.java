@@ -0,0 +1,220 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * 可断点续扫的扫描引擎
+ * 单线程按显式栈遍历（同 IncrementalTreeScanner），每完成一个目录记下其中的文件和属性；
+ * 每隔一段时间（或积累的文件较多时）在目录边界处把这些记录和当前待扫描目录交给 ScanCheckpoint，
+ * 编码和写盘都在后台线程进行，扫描线程不等待 I/O
+ *
+ * 取消或程序退出后，恢复扫描先回放断点中的文件，再从待扫描目录继续；扫描完成后删除断点
+ * 不跟随符号链接；恢复时应使用与原扫描相同的过滤规则
+ * 断点只记录文件，不回调 onDirectory（不产生目录行）
+ */
+public class ResumableTreeScanner {
+
+    /**
+     * 默认断点间隔
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 10_000;
+
+    // 两次断点之间最多保留的文件数，限制交给写入线程前占用的内存
+    private static final int MAX_PENDING_FILES = 65_536;
+
+    private final List<Path> roots;
+    private final BooleanSupplier cancelled;
+    private final ScanFilterMatcher filter;
+    private final long intervalNanos;
+    private final List<FileAttributeReader> readers = new ArrayList<>();
+    private List<ScanCheckpoint.DirRecord> completed = new ArrayList<>();
+    private int completedFiles;
+
+    public ResumableTreeScanner(List<Path> roots, BooleanSupplier cancelled, ScanFilterMatcher filter) {
+        this(roots, cancelled, filter, DEFAULT_CHECKPOINT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param roots 扫描根路径，断点按这组路径保存
+     * @param intervalMillis 断点间隔
+     */
+    public ResumableTreeScanner(List<Path> roots, BooleanSupplier cancelled, ScanFilterMatcher filter, long intervalMillis) {
+        this(roots, cancelled, filter, intervalMillis, root -> FileAttributeReader.BASIC);
+    }
+
+    /**
+     * @param readers 各根路径使用的属性后端（如 FileAttributeReaders::forPath）
+     */
+    public ResumableTreeScanner(List<Path> roots, BooleanSupplier cancelled, ScanFilterMatcher filter, long intervalMillis,
+                                Function<Path, FileAttributeReader> readers) {
+        this.roots = new ArrayList<>(roots);
+        this.cancelled = cancelled;
+        this.filter = filter;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        for (Path root : roots) {
+            this.readers.add(readers.apply(root));
+        }
+    }
+
+    /**
+     * 扫描全部根路径
+     * @param resume 是否从已有断点继续；没有可用断点时从头扫描
+     * @return 是否扫描完成；被取消时返回 false，断点保留
+     * @throws IOException 无法创建断点文件
+     */
+    public boolean scan(boolean resume, FileTreeScanner.Listener listener) throws IOException {
+        ScanCheckpoint checkpoint = resume ? ScanCheckpoint.open(roots) : null;
+        Deque<ScanCheckpoint.Pending> stack = new ArrayDeque<>();
+
+        if (checkpoint != null) {
+            boolean replayed;
+            try {
+                replayed = checkpoint.replay(listener, cancelled);
+            } catch (IOException e) {
+                checkpoint.close();
+                throw e;
+            }
+            if (!replayed) {
+                checkpoint.close();
+                return false;
+            }
+            stack.addAll(checkpoint.getFrontier());
+        } else {
+            checkpoint = ScanCheckpoint.create(roots);
+            for (int i = roots.size() - 1; i >= 0; i--) {
+                startRoot(i, stack, listener);
+            }
+        }
+
+        try {
+            long nextCheckpoint = System.nanoTime() + intervalNanos;
+            while (!stack.isEmpty()) {
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+
+                // 目录完成前保留在栈顶，中途取消时仍属于待扫描目录
+                ScanCheckpoint.Pending pending = stack.peek();
+                List<ScanCheckpoint.Pending> children = listDirectory(pending, listener);
+                if (children == null) {
+                    break;
+                }
+                stack.pop();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+
+                if (completedFiles >= MAX_PENDING_FILES || System.nanoTime() >= nextCheckpoint) {
+                    checkpoint.submit(takeCompleted(), new ArrayList<>(stack));
+                    nextCheckpoint = System.nanoTime() + intervalNanos;
+                }
+            }
+
+            if (stack.isEmpty()) {
+                checkpoint.complete();
+                return true;
+            }
+            checkpoint.submit(takeCompleted(), new ArrayList<>(stack));
+            checkpoint.close();
+            return false;
+        } catch (RuntimeException e) {
+            checkpoint.close();
+            throw e;
+        }
+    }
+
+    private void startRoot(int rootIndex, Deque<ScanCheckpoint.Pending> stack, FileTreeScanner.Listener listener) {
+        Path root = roots.get(rootIndex);
+        BasicFileAttributes attrs;
+        try {
+            FileAttributeReader reader = readers.get(rootIndex);
+            attrs = FileTreeScanner.resolveFileLink(root, reader.read(root, false), reader);
+        } catch (IOException e) {
+            listener.onError(root, e);
+            return;
+        }
+        if (attrs.isDirectory()) {
+            stack.push(new ScanCheckpoint.Pending(rootIndex, root));
+        } else if (attrs.isRegularFile()) {
+            // 文件根路径与其父目录记为一条记录
+            ScanCheckpoint.DirRecord record = new ScanCheckpoint.DirRecord(root.getParent() != null ? root.getParent() : root);
+            record.add(root, attrs);
+            listener.onFile(root, attrs);
+            addCompleted(record);
+        }
+    }
+
+    /**
+     * 列目录：文件直接回调并记录，子目录按列举顺序返回
+     * @return 子目录；中途取消时返回 null，本目录的记录被丢弃
+     */
+    private List<ScanCheckpoint.Pending> listDirectory(ScanCheckpoint.Pending pending, FileTreeScanner.Listener listener) {
+        Path root = roots.get(pending.rootIndex);
+        FileAttributeReader reader = readers.get(pending.rootIndex);
+        int depth = ScanFilterMatcher.depth(root, pending.dir) + 1;
+        List<ScanCheckpoint.Pending> children = new ArrayList<>();
+        ScanCheckpoint.DirRecord record = null;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pending.dir)) {
+            for (Path child : stream) {
+                if (cancelled.getAsBoolean()) {
+                    return null;
+                }
+
+                BasicFileAttributes attrs;
+                try {
+                    attrs = FileTreeScanner.resolveFileLink(child, reader.read(child, false), reader);
+                } catch (IOException e) {
+                    listener.onError(child, e);
+                    continue;
+                }
+
+                if (attrs.isDirectory()) {
+                    if (filter.acceptDirectory(root, child, depth)) {
+                        children.add(new ScanCheckpoint.Pending(pending.rootIndex, child));
+                    }
+                } else if (attrs.isRegularFile() && filter.acceptFile(root, child, attrs, depth)) {
+                    listener.onFile(child, attrs);
+                    if (record == null) {
+                        record = new ScanCheckpoint.DirRecord(pending.dir);
+                    }
+                    record.add(child, attrs);
+                }
+            }
+        } catch (IOException e) {
+            listener.onError(pending.dir, e);
+        } catch (DirectoryIteratorException e) {
+            listener.onError(pending.dir, e.getCause());
+        }
+
+        // 没有文件的目录不记录
+        if (record != null) {
+            addCompleted(record);
+        }
+        return children;
+    }
+
+    private void addCompleted(ScanCheckpoint.DirRecord record) {
+        completed.add(record);
+        completedFiles += record.files.size();
+    }
+
+    private List<ScanCheckpoint.DirRecord> takeCompleted() {
+        List<ScanCheckpoint.DirRecord> taken = completed;
+        completed = new ArrayList<>();
+        completedFiles = 0;
+        return taken;
+    }
+}
@@ -0,0 +1,130 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.RuleSet;
+import com.aypak.filetimecheck.model.TimeRule;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+
+/**
+ * 从 properties 文件加载校验规则，并追加通过 ServiceLoader 登记的 TimeRule 实现
+ *
+ * 内置规则始终生效；文件中的规则按标识排序后依次追加，表达式语法见 RuleSet：
+ * <pre>
+ * future.tolerance=5m                            # 未来时间容差（时钟偏差），默认 0
+ * rule.stale=modified &lt; now - 10y               # 违反规则的条件
+ * rule.stale.name=修改时间超过 10 年               # 显示名称，默认为标识
+ * rule.atime-gap=accessed &gt; modified + 30d
+ * rule.atime-gap.name=访问时间比修改时间晚 30 天以上
+ * </pre>
+ */
+public class RuleSetLoader {
+
+    private static final String RULE_PREFIX = "rule.";
+    private static final String NAME_SUFFIX = ".name";
+
+    private RuleSetLoader() {
+    }
+
+    /**
+     * 默认规则文件：~/.filetimecheck/rules.properties（图形界面启动时加载）
+     */
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".filetimecheck", "rules.properties");
+    }
+
+    /**
+     * 加载规则文件
+     * @param futureToleranceMillis 未来时间容差，大于等于 0 时覆盖文件中的 future.tolerance
+     * @throws IllegalArgumentException 配置值或规则表达式无法解析
+     */
+    public static RuleSet load(Path file, long futureToleranceMillis) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        long tolerance = futureToleranceMillis;
+        if (tolerance < 0) {
+            String value = properties.getProperty("future.tolerance");
+            tolerance = value == null || value.isBlank() ? 0 : parseDuration("future.tolerance", value);
+        }
+
+        Map<String, String> expressions = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(RULE_PREFIX) && !key.endsWith(NAME_SUFFIX)) {
+                expressions.put(key.substring(RULE_PREFIX.length()), properties.getProperty(key).trim());
+            } else if (!key.startsWith(RULE_PREFIX) && !key.equals("future.tolerance")) {
+                throw new IllegalArgumentException("未知的配置项: " + key);
+            }
+        }
+
+        RuleSet.Builder builder = RuleSet.builder(tolerance);
+        for (Map.Entry<String, String> entry : expressions.entrySet()) {
+            String id = entry.getKey();
+            if (!id.matches("[A-Za-z0-9_-]+")) {
+                throw new IllegalArgumentException("规则标识只能包含字母、数字、- 和 _: " + id);
+            }
+            String name = properties.getProperty(RULE_PREFIX + id + NAME_SUFFIX, id).trim();
+            try {
+                builder.add(id, name, entry.getValue());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("规则 " + id + ": " + e.getMessage());
+            }
+        }
+        return addServiceRules(builder).build();
+    }
+
+    /**
+     * 没有规则文件时使用：内置规则加 SPI 规则
+     */
+    public static RuleSet loadBuiltIn(long futureToleranceMillis) {
+        return addServiceRules(RuleSet.builder(Math.max(0, futureToleranceMillis))).build();
+    }
+
+    /**
+     * 加载默认规则文件，文件不存在或无法解析时只使用内置规则和 SPI 规则
+     */
+    public static RuleSet loadDefault() {
+        Path file = defaultFile();
+        if (Files.isRegularFile(file)) {
+            try {
+                return load(file, -1);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("无法加载校验规则 " + file + ": " + e.getMessage());
+            }
+        }
+        return loadBuiltIn(0);
+    }
+
+    /**
+     * 解析时长配置
+     */
+    public static long parseDuration(String key, String value) {
+        try {
+            return RuleSet.parseDuration(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("配置项 " + key + " 应为时长（如 5m、2h、30d）: " + value + "，" + e.getMessage());
+        }
+    }
+
+    private static RuleSet.Builder addServiceRules(RuleSet.Builder builder) {
+        try {
+            for (TimeRule rule : ServiceLoader.load(TimeRule.class)) {
+                builder.add(rule);
+            }
+        } catch (ServiceConfigurationError | IllegalArgumentException e) {
+            System.err.println("无法加载自定义校验规则: " + e.getMessage());
+        }
+        return builder;
+    }
+}
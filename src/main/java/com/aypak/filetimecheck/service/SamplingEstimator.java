@@ -0,0 +1,388 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.RuleSet;
+import com.aypak.filetimecheck.model.SamplingEstimate;
+import com.aypak.filetimecheck.model.ValidationResult;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * 抽样估算
+ * 从根目录随机下行到叶子目录（Knuth 估计）：每一层把本目录的文件数乘以沿途各层子目录数之积，
+ * 累加即为整棵树的一个无偏估计；多次下行取平均，按各次估计的样本方差给出置信区间
+ *
+ * 访问过的目录缓存在内存中，靠近根的目录只列举一次；条目很多的目录只随机读取一部分条目的属性，
+ * 按比例推算文件数和子目录数。只列举少量目录、读取少量文件，大目录树上几秒内即可得到估计
+ *
+ * 大目录只缓存列举结果和已读取的属性，每次下行经过时重新抽取样本：各次下行的估计相互独立，
+ * 样本方差同时包含目录内抽样的误差，置信区间不会因复用同一个样本而偏窄
+ */
+public class SamplingEstimator {
+
+    /**
+     * 大目录中读取属性的条目比例
+     */
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+    /**
+     * 默认用时上限
+     */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 10_000;
+
+    /**
+     * 默认最多下行次数
+     */
+    public static final int DEFAULT_MAX_WALKS = 20_000;
+
+    // 条目不超过此数的目录全部读取属性，更大的目录至少读取这么多条
+    private static final int FULL_STAT_LIMIT = 256;
+
+    // 估计量下标：各校验结果、文件总数、异常文件数
+    private static final ValidationResult[] RESULTS = ValidationResult.values();
+    private static final int TOTAL = RESULTS.length;
+    private static final int ABNORMAL = RESULTS.length + 1;
+    private static final int SLOTS = RESULTS.length + 2;
+
+    // 抽样只按文件自身的三个时间校验：目录规则、离群规则需要扫描时的汇总，ctime 规则需要扩展属性，这几项不估计
+    private static final Set<ValidationResult> NOT_ESTIMATED = EnumSet.of(ValidationResult.DIRECTORY_OLDER_THAN_CHILD,
+            ValidationResult.CHILD_BEFORE_DIRECTORY, ValidationResult.TIME_OUTLIER, ValidationResult.MODIFIED_AFTER_CHANGED);
+
+    private final BooleanSupplier cancelled;
+    private final ScanFilterMatcher filter;
+    private TimeValidationService validationService = new TimeValidationService();
+    private final SplittableRandom random;
+    private double sampleRate = DEFAULT_SAMPLE_RATE;
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+    private int maxWalks = DEFAULT_MAX_WALKS;
+
+    // 全部读取属性的目录（结果固定，直接复用）和只缓存列举结果的大目录
+    private final Map<Path, DirSample> directories = new HashMap<>();
+    private final Map<Path, DirListing> largeDirectories = new HashMap<>();
+    private long sampledFiles;
+
+    // 本次估算的参考时间，开始估算时取一次
+    private long now;
+
+    public SamplingEstimator(BooleanSupplier cancelled, ScanFilterMatcher filter) {
+        this(cancelled, filter, new SplittableRandom());
+    }
+
+    /**
+     * @param random 随机数源（固定种子可复现）
+     */
+    public SamplingEstimator(BooleanSupplier cancelled, ScanFilterMatcher filter, SplittableRandom random) {
+        this.cancelled = cancelled;
+        this.filter = filter;
+        this.random = random;
+    }
+
+    /**
+     * 校验规则，默认只含内置规则；自定义规则统一计入 CUSTOM_RULE
+     */
+    public void setRuleSet(RuleSet ruleSet) {
+        this.validationService = new TimeValidationService(ruleSet);
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.min(1.0, Math.max(0.0, sampleRate));
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = Math.max(1, timeLimitMillis);
+    }
+
+    public void setMaxWalks(int maxWalks) {
+        this.maxWalks = Math.max(2, maxWalks);
+    }
+
+    /**
+     * 估算各根路径下的文件数和各校验结果的文件数
+     * 各根路径轮流下行，估计值和方差分别累加
+     * @param onWalk 每完成一轮下行后回调（已完成下行次数），可为 null
+     */
+    public SamplingEstimate estimate(List<Path> roots, LongConsumer onWalk) {
+        long start = System.nanoTime();
+        now = System.currentTimeMillis();
+        long deadline = start + timeLimitMillis * 1_000_000L;
+
+        double[] exact = new double[SLOTS];         // 文件根路径，精确计数
+        List<Accumulator> trees = new ArrayList<>();
+        for (Path root : roots) {
+            BasicFileAttributes attrs;
+            try {
+                attrs = FileTreeScanner.resolveFileLink(root,
+                        Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS), FileAttributeReader.BASIC);
+            } catch (IOException e) {
+                continue;
+            }
+            if (attrs.isDirectory()) {
+                trees.add(new Accumulator(root));
+            } else if (attrs.isRegularFile()) {
+                sampledFiles++;
+                count(exact, attrs);
+            }
+        }
+
+        long walks = 0;
+        double[] walk = new double[SLOTS];
+        while (!trees.isEmpty() && walks < maxWalks && System.nanoTime() < deadline && !cancelled.getAsBoolean()) {
+            for (Accumulator tree : trees) {
+                if (!walk(tree.root, walk)) {
+                    break;
+                }
+                tree.add(walk);
+            }
+            walks++;
+            if (onWalk != null) {
+                onWalk.accept(walks);
+            }
+        }
+
+        SamplingEstimate.Estimate[] estimates = new SamplingEstimate.Estimate[SLOTS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            double value = exact[slot];
+            double variance = 0;
+            for (Accumulator tree : trees) {
+                value += tree.mean(slot);
+                variance += tree.varianceOfMean(slot);
+            }
+            estimates[slot] = new SamplingEstimate.Estimate(value, Math.sqrt(variance));
+        }
+
+        Map<ValidationResult, SamplingEstimate.Estimate> results = new EnumMap<>(ValidationResult.class);
+        for (int i = 0; i < RESULTS.length; i++) {
+            if (!NOT_ESTIMATED.contains(RESULTS[i])) {
+                results.put(RESULTS[i], estimates[i]);
+            }
+        }
+        return new SamplingEstimate(estimates[TOTAL], estimates[ABNORMAL], results,
+                walks, directories.size() + largeDirectories.size(), sampledFiles, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 从根目录随机下行一次，walk 中写入本次的估计值
+     * @return 是否完成；被取消时返回 false
+     */
+    private boolean walk(Path root, double[] walk) {
+        Arrays.fill(walk, 0);
+        double weight = 1.0;    // 沿途各层子目录数之积，即本层目录代表的目录数
+        Path dir = root;
+        while (true) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            DirSample sample = sample(root, dir);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                walk[slot] += weight * sample.scale * sample.counts[slot];
+            }
+            if (sample.subdirectories.isEmpty()) {
+                return true;
+            }
+            weight *= sample.scale * sample.subdirectories.size();
+            dir = sample.subdirectories.get(random.nextInt(sample.subdirectories.size()));
+        }
+    }
+
+    /**
+     * 目录的样本：小目录第一次访问时全部读取并缓存，大目录每次重新抽取
+     */
+    private DirSample sample(Path root, Path dir) {
+        DirSample sample = directories.get(dir);
+        if (sample != null) {
+            return sample;
+        }
+        DirListing listing = largeDirectories.get(dir);
+        if (listing == null) {
+            listing = list(dir);
+            if (listing.entries.size() <= FULL_STAT_LIMIT) {
+                sample = draw(root, dir, listing);
+                directories.put(dir, sample);
+                return sample;
+            }
+            largeDirectories.put(dir, listing);
+        }
+        return draw(root, dir, listing);
+    }
+
+    /**
+     * 列举目录，无法列举的目录按空目录处理
+     */
+    private DirListing list(Path dir) {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            entries.clear();
+        }
+        return new DirListing(entries);
+    }
+
+    /**
+     * 从列举结果中无放回随机抽取条目并读取属性（已读取过的条目复用缓存的属性）
+     */
+    private DirSample draw(Path root, Path dir, DirListing listing) {
+        int n = listing.entries.size();
+        int m = n <= FULL_STAT_LIMIT ? n : (int) Math.min(n, Math.max(FULL_STAT_LIMIT, Math.ceil(sampleRate * n)));
+        int[] order = listing.order;
+        if (m < n) {
+            // 部分 Fisher-Yates 洗牌，前 m 个即为无放回随机样本（与 order 当前的排列无关）
+            for (int i = 0; i < m; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
+
+        DirSample sample = new DirSample(m > 0 ? (double) n / m : 1.0);
+        int depth = ScanFilterMatcher.depth(root, dir) + 1;
+        for (int i = 0; i < m; i++) {
+            int index = order[i];
+            Path entry = listing.entries.get(index);
+            BasicFileAttributes attrs = listing.read(index);
+            if (attrs == null) {
+                continue;
+            }
+            if (attrs.isDirectory()) {
+                if (filter.acceptDirectory(root, entry, depth)) {
+                    sample.subdirectories.add(entry);
+                }
+            } else if (attrs.isRegularFile()) {
+                if (filter.acceptFile(root, entry, attrs, depth)) {
+                    count(sample.counts, attrs);
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * 计入一个文件：同时违反多条规则时每条规则各计一次
+     */
+    private void count(double[] counts, BasicFileAttributes attrs) {
+        int violations = validationService.violations(
+                FileResultStore.toEpochMillis(attrs.creationTime()),
+                FileResultStore.toEpochMillis(attrs.lastModifiedTime()),
+                FileResultStore.toEpochMillis(attrs.lastAccessTime()), now);
+        counts[TOTAL]++;
+        if (violations == 0) {
+            counts[ValidationResult.NORMAL.ordinal()]++;
+            return;
+        }
+        counts[ABNORMAL]++;
+        for (ValidationResult result : ValidationResult.fromMask(violations)) {
+            counts[result.ordinal()]++;
+        }
+    }
+
+    /**
+     * 目录的抽样结果：样本中的文件计数、子目录，以及样本到整个目录的放大倍数
+     */
+    private static class DirSample {
+        final double scale;
+        final double[] counts = new double[SLOTS];
+        final List<Path> subdirectories = new ArrayList<>();
+
+        DirSample(double scale) {
+            this.scale = scale;
+        }
+    }
+
+    /**
+     * 大目录的列举结果：条目、抽样用的排列，以及已读取的属性（read 标记是否读取过，无法读取的条目属性为 null）
+     */
+    private class DirListing {
+        final List<Path> entries;
+        final int[] order;
+        final BasicFileAttributes[] attrs;
+        final boolean[] read;
+
+        DirListing(List<Path> entries) {
+            this.entries = entries;
+            this.order = new int[entries.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            this.attrs = new BasicFileAttributes[entries.size()];
+            this.read = new boolean[entries.size()];
+        }
+
+        /**
+         * 条目的属性，第一次读取时计入已读取的文件数；无法读取时返回 null
+         */
+        BasicFileAttributes read(int index) {
+            if (!read[index]) {
+                read[index] = true;
+                try {
+                    Path entry = entries.get(index);
+                    attrs[index] = FileTreeScanner.resolveFileLink(entry,
+                            Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS), FileAttributeReader.BASIC);
+                    if (attrs[index].isRegularFile()) {
+                        sampledFiles++;
+                    }
+                } catch (IOException e) {
+                    attrs[index] = null;
+                }
+            }
+            return attrs[index];
+        }
+    }
+
+    /**
+     * 单个根目录各次下行估计值的累加
+     */
+    private static class Accumulator {
+        final Path root;
+        long n;
+        final double[] sum = new double[SLOTS];
+        final double[] sumOfSquares = new double[SLOTS];
+
+        Accumulator(Path root) {
+            this.root = root;
+        }
+
+        void add(double[] walk) {
+            n++;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                sum[slot] += walk[slot];
+                sumOfSquares[slot] += walk[slot] * walk[slot];
+            }
+        }
+
+        double mean(int slot) {
+            return n > 0 ? sum[slot] / n : 0;
+        }
+
+        /**
+         * 均值的方差（样本方差 / n）
+         */
+        double varianceOfMean(int slot) {
+            if (n < 2) {
+                return 0;
+            }
+            double mean = sum[slot] / n;
+            double variance = Math.max(0, (sumOfSquares[slot] - n * mean * mean) / (n - 1));
+            return variance / n;
+        }
+    }
+}
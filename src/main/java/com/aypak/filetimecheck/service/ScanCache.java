@@ -0,0 +1,314 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扫描索引（磁盘缓存）
+ * 按目录保存上次扫描的结果：目录修改时间、子目录名，以及每个文件的 fileKey、大小和三个时间
+ * 重新加载时，修改时间未变的目录直接复用缓存条目，不再列目录、不再读取文件属性
+ *
+ * 每个扫描根路径对应一个索引文件，位于 ~/.filetimecheck/scan-cache/
+ */
+public class ScanCache {
+
+    private static final int MAGIC = 0x46544331;   // "FTC1"
+    private static final int VERSION = 1;
+
+    private final Path root;
+    private final Map<String, DirEntry> directories;
+
+    public ScanCache(Path root) {
+        this.root = root;
+        this.directories = new HashMap<>();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 获取目录的缓存条目
+     */
+    public DirEntry get(Path dir) {
+        return directories.get(dir.toString());
+    }
+
+    /**
+     * 写入目录的缓存条目
+     */
+    public void put(Path dir, DirEntry entry) {
+        directories.put(dir.toString(), entry);
+    }
+
+    public int size() {
+        return directories.size();
+    }
+
+    /**
+     * 索引文件所在目录
+     */
+    public static Path cacheDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".filetimecheck", "scan-cache");
+    }
+
+    /**
+     * 根路径对应的索引文件
+     */
+    public static Path cacheFile(Path root) {
+        return cacheDirectory().resolve(sha1(root.toAbsolutePath().toString()) + ".idx");
+    }
+
+    /**
+     * 加载根路径的索引，不存在或已损坏时返回空索引
+     */
+    public static ScanCache load(Path root) {
+        ScanCache cache = new ScanCache(root);
+        Path file = cacheFile(root);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !root.toAbsolutePath().toString().equals(in.readUTF())) {
+                return cache;
+            }
+
+            int dirCount = in.readInt();
+            for (int i = 0; i < dirCount; i++) {
+                String dirPath = in.readUTF();
+                DirEntry entry = new DirEntry(readInstant(in));
+
+                int fileCount = in.readInt();
+                for (int j = 0; j < fileCount; j++) {
+                    String name = in.readUTF();
+                    String fileKey = in.readUTF();
+                    long size = in.readLong();
+                    entry.files.add(new CachedFile(name, fileKey.isEmpty() ? null : fileKey, size,
+                            readInstant(in), readInstant(in), readInstant(in)));
+                }
+
+                int subdirCount = in.readInt();
+                for (int j = 0; j < subdirCount; j++) {
+                    entry.subdirectories.add(in.readUTF());
+                }
+                cache.directories.put(dirPath, entry);
+            }
+        } catch (NoSuchFileException e) {
+            // 首次扫描，没有索引
+        } catch (IOException e) {
+            System.err.println("无法读取扫描索引: " + file + " - " + e.getMessage());
+            cache.directories.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * 保存索引（先写临时文件再原子替换）
+     */
+    public void save() throws IOException {
+        Path file = cacheFile(root);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "scan-cache", ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(root.toAbsolutePath().toString());
+            out.writeInt(directories.size());
+
+            for (Map.Entry<String, DirEntry> dir : directories.entrySet()) {
+                DirEntry entry = dir.getValue();
+                out.writeUTF(dir.getKey());
+                writeInstant(out, entry.lastModifiedTime);
+
+                out.writeInt(entry.files.size());
+                for (CachedFile cached : entry.files) {
+                    out.writeUTF(cached.name);
+                    out.writeUTF(cached.fileKey != null ? cached.fileKey : "");
+                    out.writeLong(cached.size);
+                    writeInstant(out, cached.creationTime);
+                    writeInstant(out, cached.lastModifiedTime);
+                    writeInstant(out, cached.lastAccessTime);
+                }
+
+                out.writeInt(entry.subdirectories.size());
+                for (String subdirectory : entry.subdirectories) {
+                    out.writeUTF(subdirectory);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 删除根路径的索引（例如文件时间被修复后，缓存的时间已失效）
+     */
+    public static void invalidate(Path root) {
+        try {
+            Files.deleteIfExists(cacheFile(root));
+        } catch (IOException e) {
+            System.err.println("无法删除扫描索引: " + root + " - " + e.getMessage());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    static String sha1(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 目录缓存条目
+     */
+    public static class DirEntry {
+        private final Instant lastModifiedTime;
+        private final List<CachedFile> files = new ArrayList<>();
+        private final List<String> subdirectories = new ArrayList<>();
+
+        public DirEntry(Instant lastModifiedTime) {
+            this.lastModifiedTime = lastModifiedTime;
+        }
+
+        public Instant getLastModifiedTime() {
+            return lastModifiedTime;
+        }
+
+        public List<CachedFile> getFiles() {
+            return files;
+        }
+
+        public List<String> getSubdirectories() {
+            return subdirectories;
+        }
+    }
+
+    /**
+     * 文件缓存条目
+     */
+    public static class CachedFile {
+        private final String name;
+        private final String fileKey;
+        private final long size;
+        private final Instant creationTime;
+        private final Instant lastModifiedTime;
+        private final Instant lastAccessTime;
+
+        public CachedFile(String name, String fileKey, long size,
+                          Instant creationTime, Instant lastModifiedTime, Instant lastAccessTime) {
+            this.name = name;
+            this.fileKey = fileKey;
+            this.size = size;
+            this.creationTime = creationTime;
+            this.lastModifiedTime = lastModifiedTime;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        /**
+         * 从文件属性构建缓存条目
+         */
+        public static CachedFile of(String name, BasicFileAttributes attrs) {
+            Object fileKey = attrs.fileKey();
+            return new CachedFile(name, fileKey != null ? fileKey.toString() : null, attrs.size(),
+                    attrs.creationTime().toInstant(),
+                    attrs.lastModifiedTime().toInstant(),
+                    attrs.lastAccessTime().toInstant());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 以 BasicFileAttributes 形式提供缓存的属性，可直接交给扫描监听器
+         */
+        public BasicFileAttributes toAttributes() {
+            return new BasicFileAttributes() {
+                @Override
+                public FileTime lastModifiedTime() {
+                    return FileTime.from(lastModifiedTime);
+                }
+
+                @Override
+                public FileTime lastAccessTime() {
+                    return FileTime.from(lastAccessTime);
+                }
+
+                @Override
+                public FileTime creationTime() {
+                    return FileTime.from(creationTime);
+                }
+
+                @Override
+                public boolean isRegularFile() {
+                    return true;
+                }
+
+                @Override
+                public boolean isDirectory() {
+                    return false;
+                }
+
+                @Override
+                public boolean isSymbolicLink() {
+                    return false;
+                }
+
+                @Override
+                public boolean isOther() {
+                    return false;
+                }
+
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public Object fileKey() {
+                    return fileKey;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 扫描断点
+ * 每组扫描根路径对应 ~/.filetimecheck/scan-checkpoint/ 下的一个目录，包含两个文件：
+ * - results.bin：已完成目录中的文件（只追加，每个目录一条记录：目录路径 + 文件名和属性）
+ * - state.bin：根路径列表、results.bin 的有效长度、尚未扫描的目录（每次整体替换）
+ *
+ * 编码和写入都在单独的线程中进行，扫描线程只移交已完成目录的文件属性并复制一份待扫描目录列表
+ * 崩溃时 results.bin 末尾可能有 state.bin 未记录的部分，恢复时截断到有效长度
+ */
+public class ScanCheckpoint implements AutoCloseable {
+
+    private static final int MAGIC = 0x4654434B;   // "FTCK"
+    private static final int VERSION = 1;
+    private static final String RESULTS_FILE = "results.bin";
+    private static final String STATE_FILE = "state.bin";
+
+    private final List<Path> roots;
+    private final Path directory;
+    private final List<Pending> frontier = new ArrayList<>();
+    private long resultsLength;
+    private ExecutorService writer;
+    private FileChannel results;
+    private volatile boolean failed;
+
+    private ScanCheckpoint(List<Path> roots) {
+        this.roots = new ArrayList<>(roots);
+        this.directory = checkpointDirectory(roots);
+    }
+
+    /**
+     * 断点所在目录
+     */
+    public static Path checkpointDirectory(List<Path> roots) {
+        StringBuilder key = new StringBuilder();
+        for (Path root : roots) {
+            key.append(root.toAbsolutePath()).append('\n');
+        }
+        return Paths.get(System.getProperty("user.home"), ".filetimecheck", "scan-checkpoint", ScanCache.sha1(key.toString()));
+    }
+
+    /**
+     * 这组根路径是否有可继续的断点
+     */
+    public static boolean exists(List<Path> roots) {
+        return Files.isRegularFile(checkpointDirectory(roots).resolve(STATE_FILE));
+    }
+
+    /**
+     * 删除断点
+     */
+    public static void delete(List<Path> roots) {
+        Path directory = checkpointDirectory(roots);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (NoSuchFileException e) {
+            // 没有断点
+        } catch (IOException e) {
+            System.err.println("无法删除扫描断点: " + directory + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * 开始新的断点（删除已有断点）
+     */
+    static ScanCheckpoint create(List<Path> roots) throws IOException {
+        delete(roots);
+        ScanCheckpoint checkpoint = new ScanCheckpoint(roots);
+        checkpoint.openForWriting();
+        return checkpoint;
+    }
+
+    /**
+     * 加载已有断点，不存在、已损坏或根路径不一致时返回 null
+     */
+    static ScanCheckpoint open(List<Path> roots) {
+        ScanCheckpoint checkpoint = new ScanCheckpoint(roots);
+        Path file = checkpoint.directory.resolve(STATE_FILE);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != roots.size()) {
+                return null;
+            }
+            for (Path root : roots) {
+                if (!root.toAbsolutePath().toString().equals(in.readUTF())) {
+                    return null;
+                }
+            }
+            checkpoint.resultsLength = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int rootIndex = in.readInt();
+                checkpoint.frontier.add(new Pending(rootIndex, Paths.get(in.readUTF())));
+            }
+            checkpoint.openForWriting();
+            // 截断崩溃时写入了一半的结果
+            checkpoint.results.truncate(checkpoint.resultsLength);
+            return checkpoint;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("无法读取扫描断点: " + file + " - " + e.getMessage());
+            checkpoint.close();
+            return null;
+        }
+    }
+
+    private void openForWriting() throws IOException {
+        Files.createDirectories(directory);
+        results = FileChannel.open(directory.resolve(RESULTS_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "scan-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 断点记录的待扫描目录（按出栈顺序）
+     */
+    List<Pending> getFrontier() {
+        return frontier;
+    }
+
+    /**
+     * 依次回调断点中已完成的文件（在调用线程中执行）
+     * @return 是否全部回放；被取消时返回 false
+     */
+    boolean replay(FileTreeScanner.Listener listener, BooleanSupplier cancelled) throws IOException {
+        results.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(results), 1 << 16));
+        while (true) {
+            String dirPath;
+            try {
+                dirPath = in.readUTF();
+            } catch (EOFException e) {
+                break;
+            }
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            Path dir = Paths.get(dirPath);
+            while (in.readBoolean()) {
+                String name = in.readUTF();
+                String fileKey = in.readUTF();
+                long size = in.readLong();
+                ScanCache.CachedFile file = new ScanCache.CachedFile(name, fileKey.isEmpty() ? null : fileKey, size,
+                        Instant.ofEpochMilli(in.readLong()), Instant.ofEpochMilli(in.readLong()),
+                        Instant.ofEpochMilli(in.readLong()));
+                listener.onFile(dir.resolve(name), file.toAttributes());
+            }
+        }
+        results.position(resultsLength);
+        return true;
+    }
+
+    /**
+     * 提交一次断点（异步写入，编码也在写入线程中进行）
+     * @param completed 自上次提交以来完成的目录（移交给写入线程，调用方不再修改）
+     * @param pending 此刻尚未扫描的目录（调用方的副本）
+     */
+    void submit(List<DirRecord> completed, List<Pending> pending) {
+        if (failed) {
+            return;
+        }
+        writer.execute(() -> {
+            if (failed) {
+                return;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(encode(completed));
+                long position = resultsLength;
+                while (buffer.hasRemaining()) {
+                    position += results.write(buffer, position);
+                }
+                resultsLength = position;
+                writeState(pending);
+            } catch (IOException e) {
+                // 写断点失败不影响扫描本身
+                failed = true;
+                System.err.println("无法写入扫描断点: " + directory + " - " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 记录格式：目录路径，然后每个文件 (true, 文件名, fileKey, 大小, 创建/修改/访问时间毫秒)，最后 false
+     */
+    private static byte[] encode(List<DirRecord> completed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (DirRecord record : completed) {
+            out.writeUTF(record.dir.toString());
+            for (int i = 0; i < record.files.size(); i++) {
+                BasicFileAttributes attrs = record.attributes.get(i);
+                Object fileKey = attrs.fileKey();
+                out.writeBoolean(true);
+                out.writeUTF(record.files.get(i).getFileName().toString());
+                out.writeUTF(fileKey != null ? fileKey.toString() : "");
+                out.writeLong(attrs.size());
+                out.writeLong(attrs.creationTime().toMillis());
+                out.writeLong(attrs.lastModifiedTime().toMillis());
+                out.writeLong(attrs.lastAccessTime().toMillis());
+            }
+            out.writeBoolean(false);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 扫描完成：等待写入结束并删除断点
+     */
+    void complete() {
+        close();
+        delete(roots);
+    }
+
+    private void writeState(List<Pending> pending) throws IOException {
+        Path file = directory.resolve(STATE_FILE);
+        Path temp = Files.createTempFile(directory, "state", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(roots.size());
+            for (Path root : roots) {
+                out.writeUTF(root.toAbsolutePath().toString());
+            }
+            out.writeLong(resultsLength);
+            out.writeInt(pending.size());
+            for (Pending entry : pending) {
+                out.writeInt(entry.rootIndex);
+                out.writeUTF(entry.dir.toString());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 等待已提交的断点写完并关闭文件
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (results != null) {
+            try {
+                results.close();
+            } catch (IOException e) {
+                System.err.println("无法关闭扫描断点: " + directory + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 一个已完成目录中的文件
+     */
+    static class DirRecord {
+        final Path dir;
+        final List<Path> files = new ArrayList<>();
+        final List<BasicFileAttributes> attributes = new ArrayList<>();
+
+        DirRecord(Path dir) {
+            this.dir = dir;
+        }
+
+        void add(Path file, BasicFileAttributes attrs) {
+            files.add(file);
+            attributes.add(attrs);
+        }
+    }
+
+    /**
+     * 待扫描目录及其所属根路径的序号
+     */
+    static class Pending {
+        final int rootIndex;
+        final Path dir;
+
+        Pending(int rootIndex, Path dir) {
+            this.rootIndex = rootIndex;
+            this.dir = dir;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.ScanFilter;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的扫描过滤器
+ * 不含通配符的名称放入哈希表，同类 glob 合并为一个正则，扩展名放入哈希表；
+ * 判断每个文件只需几次哈希查找和至多一次正则匹配，不逐条遍历规则
+ *
+ * 扫描根路径本身（用户明确选择的文件或目录）总是被接受
+ */
+public class ScanFilterMatcher {
+
+    /**
+     * 不过滤
+     */
+    public static final ScanFilterMatcher ACCEPT_ALL = new ScanFilterMatcher(ScanFilter.createDefault());
+
+    // Windows 文件名不区分大小写
+    private static final boolean CASE_INSENSITIVE = File.separatorChar == '\\';
+
+    private final NameMatcher excludeDirectories;
+    private final NameMatcher includeFiles;
+    private final NameMatcher excludeFiles;
+    private final Set<String> extensions;
+    private final int maxDepth;
+    private final long minSize;
+    private final long maxSize;
+    private final boolean acceptAll;
+
+    private ScanFilterMatcher(ScanFilter filter) {
+        this.excludeDirectories = NameMatcher.compile(filter.getExcludeDirectories());
+        this.includeFiles = NameMatcher.compile(filter.getIncludeFiles());
+        this.excludeFiles = NameMatcher.compile(filter.getExcludeFiles());
+        this.extensions = new HashSet<>();
+        for (String extension : filter.getExtensions()) {
+            String normalized = extension.startsWith(".") ? extension.substring(1) : extension;
+            extensions.add(normalized.toLowerCase(Locale.ROOT));
+        }
+        this.maxDepth = filter.getMaxDepth();
+        this.minSize = filter.getMinSize();
+        this.maxSize = filter.getMaxSize();
+        this.acceptAll = filter.isEmpty();
+    }
+
+    /**
+     * 编译过滤规则
+     * @throws java.util.regex.PatternSyntaxException glob 语法错误
+     */
+    public static ScanFilterMatcher compile(ScanFilter filter) {
+        return filter == null || filter.isEmpty() ? ACCEPT_ALL : new ScanFilterMatcher(filter);
+    }
+
+    /**
+     * 相对扫描根路径的深度（根路径为 0，其中的文件为 1）
+     */
+    public static int depth(Path root, Path path) {
+        return path.getNameCount() - root.getNameCount();
+    }
+
+    /**
+     * 是否进入目录；返回 false 时整棵子树跳过
+     * @param depth 目录深度
+     */
+    public boolean acceptDirectory(Path root, Path dir, int depth) {
+        if (acceptAll || depth == 0) {
+            return true;
+        }
+        // 目录中的文件深度为 depth + 1
+        if (maxDepth != ScanFilter.UNLIMITED && depth >= maxDepth) {
+            return false;
+        }
+        return !excludeDirectories.matches(root, dir);
+    }
+
+    /**
+     * 是否保留文件
+     * @param depth 文件深度
+     */
+    public boolean acceptFile(Path root, Path file, BasicFileAttributes attrs, int depth) {
+        if (acceptAll || depth == 0) {
+            return true;
+        }
+        if (maxDepth != ScanFilter.UNLIMITED && depth > maxDepth) {
+            return false;
+        }
+
+        long size = attrs.size();
+        if (minSize != ScanFilter.UNLIMITED && size < minSize) {
+            return false;
+        }
+        if (maxSize != ScanFilter.UNLIMITED && size > maxSize) {
+            return false;
+        }
+
+        if (!extensions.isEmpty()) {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            if (dot < 0 || !extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        if (!includeFiles.isEmpty() && !includeFiles.matches(root, file)) {
+            return false;
+        }
+        return !excludeFiles.matches(root, file);
+    }
+
+    /**
+     * 一组 glob 的编译结果
+     */
+    private static class NameMatcher {
+        private final Set<String> literalNames;   // 不含通配符的名称
+        private final Pattern namePattern;        // 含通配符、匹配名称的 glob 合并后的正则
+        private final Pattern pathPattern;        // 含 "/"、匹配相对路径的 glob 合并后的正则
+
+        private NameMatcher(Set<String> literalNames, Pattern namePattern, Pattern pathPattern) {
+            this.literalNames = literalNames;
+            this.namePattern = namePattern;
+            this.pathPattern = pathPattern;
+        }
+
+        static NameMatcher compile(List<String> globs) {
+            Set<String> literalNames = new HashSet<>();
+            List<String> nameRegexes = new ArrayList<>();
+            List<String> pathRegexes = new ArrayList<>();
+
+            for (String glob : globs) {
+                String normalized = glob.replace('\\', '/');
+                if (normalized.endsWith("/")) {
+                    normalized = normalized.substring(0, normalized.length() - 1);
+                }
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                if (normalized.indexOf('/') >= 0) {
+                    pathRegexes.add(globToRegex(normalized.startsWith("/") ? normalized.substring(1) : normalized));
+                } else if (isLiteral(normalized)) {
+                    literalNames.add(CASE_INSENSITIVE ? normalized.toLowerCase(Locale.ROOT) : normalized);
+                } else {
+                    nameRegexes.add(globToRegex(normalized));
+                }
+            }
+            return new NameMatcher(literalNames, join(nameRegexes), join(pathRegexes));
+        }
+
+        boolean isEmpty() {
+            return literalNames.isEmpty() && namePattern == null && pathPattern == null;
+        }
+
+        boolean matches(Path root, Path path) {
+            if (isEmpty()) {
+                return false;
+            }
+            Path fileName = path.getFileName();
+            if (fileName != null) {
+                String name = fileName.toString();
+                if (!literalNames.isEmpty()
+                        && literalNames.contains(CASE_INSENSITIVE ? name.toLowerCase(Locale.ROOT) : name)) {
+                    return true;
+                }
+                if (namePattern != null && namePattern.matcher(name).matches()) {
+                    return true;
+                }
+            }
+            if (pathPattern != null) {
+                String relative = root.relativize(path).toString().replace('\\', '/');
+                return pathPattern.matcher(relative).matches();
+            }
+            return false;
+        }
+
+        private static boolean isLiteral(String glob) {
+            for (int i = 0; i < glob.length(); i++) {
+                if ("*?[]{}".indexOf(glob.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Pattern join(List<String> regexes) {
+            if (regexes.isEmpty()) {
+                return null;
+            }
+            int flags = CASE_INSENSITIVE ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+            return Pattern.compile("(?:" + String.join(")|(?:", regexes) + ")", flags);
+        }
+
+        /**
+         * glob 转正则：* 不跨目录，** 可跨目录，? 单个字符，[..] 字符集，{a,b} 多选
+         */
+        private static String globToRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            boolean inGroup = false;
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                switch (c) {
+                    case '*':
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                            // "**/" 也匹配零层目录
+                            if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+                                regex.append("(?:.*/)?");
+                                i += 2;
+                            } else {
+                                regex.append(".*");
+                                i++;
+                            }
+                        } else {
+                            regex.append("[^/]*");
+                        }
+                        break;
+                    case '?':
+                        regex.append("[^/]");
+                        break;
+                    case '[':
+                        int end = glob.indexOf(']', i + 1);
+                        if (end < 0) {
+                            regex.append("\\[");
+                        } else {
+                            String set = glob.substring(i + 1, end);
+                            regex.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+                            i = end;
+                        }
+                        break;
+                    case '{':
+                        regex.append("(?:");
+                        inGroup = true;
+                        break;
+                    case '}':
+                        regex.append(inGroup ? ")" : "\\}");
+                        inGroup = false;
+                        break;
+                    case ',':
+                        regex.append(inGroup ? "|" : ",");
+                        break;
+                    default:
+                        if ("\\.^$|+()".indexOf(c) >= 0) {
+                            regex.append('\\');
+                        }
+                        regex.append(c);
+                        break;
+                }
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Random;
@@ -15,53 +16,52 @@ import java.util.Random;
 /**
  * 文件时间修复服务
  * 以创建时间为基准，生成合理的修改时间和访问时间
+ * 全程使用时间戳（Instant / FileTime）计算，不逐文件做时区转换；只有配置中的固定时间按本地时间解释
  */
 public class TimeRepairService {
 
     private static final Random RANDOM = new Random();
 
+    // 最近一次换算的固定时间（配置中的本地时间 -> 时间戳），批量修复时同一配置只换算一次
+    private volatile FixedTime fixedTime;
+
     /**
      * 修复单个文件的时间
      * 以创建时间为基准，生成合理的修改时间和访问时间
      */
     public RepairResult repairFile(Path filePath) throws IOException {
         // 读取当前文件时间
-        var attrs = Files.readAttributes(filePath, java.nio.file.attribute.BasicFileAttributes.class);
-        ZoneId zoneId = ZoneId.systemDefault();
-
-        LocalDateTime creationTime = LocalDateTime.ofInstant(
-                attrs.creationTime().toInstant(),
-                zoneId
-        );
+        var attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        Instant creationTime = attrs.creationTime().toInstant();
 
         // 生成合理的时间
-        LocalDateTime modifiedTime = generateModifiedTime(creationTime);
-        LocalDateTime accessTime = generateAccessTime(modifiedTime);
+        Instant modifiedTime = generateModifiedTime(creationTime);
+        Instant accessTime = generateAccessTime(modifiedTime);
 
         // 设置新的时间
-        FileTime modifiedFileTime = FileTime.from(modifiedTime.atZone(zoneId).toInstant());
-        FileTime accessFileTime = FileTime.from(accessTime.atZone(zoneId).toInstant());
+        FileTime modifiedFileTime = FileTime.from(modifiedTime);
+        FileTime accessFileTime = FileTime.from(accessTime);
 
         Files.setAttribute(filePath, "lastModifiedTime", modifiedFileTime);
         Files.setAttribute(filePath, "lastAccessTime", accessFileTime);
 
-        return new RepairResult(creationTime, modifiedTime, accessTime);
+        return new RepairResult(attrs.creationTime(), modifiedFileTime, accessFileTime);
     }
 
     /**
      * 修复 FileInfo 对象记录的时间（不修改实际文件）
      */
     public void repairFileInfo(FileInfo fileInfo) {
-        LocalDateTime creationTime = fileInfo.getCreationTime();
+        Instant creationTime = toInstant(fileInfo.getCreationTime());
         if (creationTime == null) {
             return;
         }
 
-        LocalDateTime modifiedTime = generateModifiedTime(creationTime);
-        LocalDateTime accessTime = generateAccessTime(modifiedTime);
+        Instant modifiedTime = generateModifiedTime(creationTime);
+        Instant accessTime = generateAccessTime(modifiedTime);
 
-        fileInfo.setLastModifiedTime(modifiedTime);
-        fileInfo.setLastAccessTime(accessTime);
+        fileInfo.setLastModifiedTime(toLocalDateTime(modifiedTime));
+        fileInfo.setLastAccessTime(toLocalDateTime(accessTime));
     }
 
     /**
@@ -69,81 +69,60 @@ public class TimeRepairService {
      */
     public RepairResult repairFile(Path filePath, RepairConfig config) throws IOException {
         var attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
-        ZoneId zoneId = ZoneId.systemDefault();
-
-        LocalDateTime originalCreationTime = LocalDateTime.ofInstant(
-                attrs.creationTime().toInstant(),
-                zoneId
-        );
-        LocalDateTime originalModifiedTime = LocalDateTime.ofInstant(
-                attrs.lastModifiedTime().toInstant(),
-                zoneId
-        );
-        LocalDateTime originalAccessTime = LocalDateTime.ofInstant(
-                attrs.lastAccessTime().toInstant(),
-                zoneId
-        );
-
-        // 顺序计算新时间：创建 -> 修改 -> 访问
-        // 这样修改时间可以基于新的创建时间，访问时间可以基于新的修改时间
-        LocalDateTime newCreationTime = calculateTime(
-                originalCreationTime, originalModifiedTime, originalAccessTime,
-                config.getCreationConfig(), RepairConfig.TimeAttribute.CREATION_TIME,
-                null, null, null  // 还没有计算过新时间
-        );
-        LocalDateTime newModifiedTime = calculateTime(
-                originalCreationTime, originalModifiedTime, originalAccessTime,
-                config.getModifiedConfig(), RepairConfig.TimeAttribute.MODIFIED_TIME,
-                newCreationTime, null, null  // 基于新的创建时间
-        );
-        LocalDateTime newAccessTime = calculateTime(
-                originalCreationTime, originalModifiedTime, originalAccessTime,
-                config.getAccessConfig(), RepairConfig.TimeAttribute.ACCESS_TIME,
-                newCreationTime, newModifiedTime, null  // 基于新的创建时间和修改时间
-        );
+        Instant[] times = calculateTimes(attrs.creationTime().toInstant(), attrs.lastModifiedTime().toInstant(),
+                attrs.lastAccessTime().toInstant(), config);
 
         // 设置新的时间
-        FileTime modifiedFileTime = FileTime.from(newModifiedTime.atZone(zoneId).toInstant());
-        FileTime accessFileTime = FileTime.from(newAccessTime.atZone(zoneId).toInstant());
+        FileTime modifiedFileTime = FileTime.from(times[1]);
+        FileTime accessFileTime = FileTime.from(times[2]);
 
         Files.setAttribute(filePath, "lastModifiedTime", modifiedFileTime);
         Files.setAttribute(filePath, "lastAccessTime", accessFileTime);
 
-        return new RepairResult(newCreationTime, newModifiedTime, newAccessTime);
+        return new RepairResult(FileTime.from(times[0]), modifiedFileTime, accessFileTime);
     }
 
     /**
      * 使用配置修复 FileInfo 对象记录的时间（不修改实际文件）
      */
     public void repairFileInfo(FileInfo fileInfo, RepairConfig config) {
-        LocalDateTime originalCreationTime = fileInfo.getCreationTime();
-        LocalDateTime originalModifiedTime = fileInfo.getLastModifiedTime();
-        LocalDateTime originalAccessTime = fileInfo.getLastAccessTime();
+        Instant originalCreationTime = toInstant(fileInfo.getCreationTime());
+        Instant originalModifiedTime = toInstant(fileInfo.getLastModifiedTime());
+        Instant originalAccessTime = toInstant(fileInfo.getLastAccessTime());
 
         if (originalCreationTime == null || originalModifiedTime == null || originalAccessTime == null) {
             return;
         }
 
+        Instant[] times = calculateTimes(originalCreationTime, originalModifiedTime, originalAccessTime, config);
+        fileInfo.setCreationTime(toLocalDateTime(times[0]));
+        fileInfo.setLastModifiedTime(toLocalDateTime(times[1]));
+        fileInfo.setLastAccessTime(toLocalDateTime(times[2]));
+    }
+
+    /**
+     * 按配置计算新的创建、修改、访问时间
+     */
+    private Instant[] calculateTimes(Instant originalCreationTime, Instant originalModifiedTime,
+                                     Instant originalAccessTime, RepairConfig config) {
         // 顺序计算新时间：创建 -> 修改 -> 访问
-        LocalDateTime newCreationTime = calculateTime(
+        // 这样修改时间可以基于新的创建时间，访问时间可以基于新的修改时间
+        Instant newCreationTime = calculateTime(
                 originalCreationTime, originalModifiedTime, originalAccessTime,
                 config.getCreationConfig(), RepairConfig.TimeAttribute.CREATION_TIME,
-                null, null, null
+                null, null, null  // 还没有计算过新时间
         );
-        LocalDateTime newModifiedTime = calculateTime(
+        Instant newModifiedTime = calculateTime(
                 originalCreationTime, originalModifiedTime, originalAccessTime,
                 config.getModifiedConfig(), RepairConfig.TimeAttribute.MODIFIED_TIME,
-                newCreationTime, null, null
+                newCreationTime, null, null  // 基于新的创建时间
         );
-        LocalDateTime newAccessTime = calculateTime(
+        Instant newAccessTime = calculateTime(
                 originalCreationTime, originalModifiedTime, originalAccessTime,
                 config.getAccessConfig(), RepairConfig.TimeAttribute.ACCESS_TIME,
-                newCreationTime, newModifiedTime, null
+                newCreationTime, newModifiedTime, null  // 基于新的创建时间和修改时间
         );
-
-        fileInfo.setCreationTime(newCreationTime);
-        fileInfo.setLastModifiedTime(newModifiedTime);
-        fileInfo.setLastAccessTime(newAccessTime);
+        return new Instant[]{newCreationTime, newModifiedTime, newAccessTime};
     }
 
     /**
@@ -152,14 +131,14 @@ public class TimeRepairService {
      * @param newModifiedTime 已计算的新修改时间（可为null）
      * @param newAccessTime 已计算的新访问时间（可为null）
      */
-    private LocalDateTime calculateTime(
-            LocalDateTime originalCreation, LocalDateTime originalModified,
-            LocalDateTime originalAccess,
+    private Instant calculateTime(
+            Instant originalCreation, Instant originalModified,
+            Instant originalAccess,
             RepairConfig.TimeConfig timeConfig,
             RepairConfig.TimeAttribute currentAttribute,
-            LocalDateTime newCreationTime,
-            LocalDateTime newModifiedTime,
-            LocalDateTime newAccessTime) {
+            Instant newCreationTime,
+            Instant newModifiedTime,
+            Instant newAccessTime) {
 
         if (timeConfig == null) {
             return getOriginalTime(currentAttribute, originalCreation, originalModified, originalAccess);
@@ -168,12 +147,12 @@ public class TimeRepairService {
         switch (timeConfig.getMode()) {
             case FIXED:
                 if (timeConfig.getFixedTime() != null) {
-                    return timeConfig.getFixedTime();
+                    return fixedInstant(timeConfig.getFixedTime());
                 }
                 return getOriginalTime(currentAttribute, originalCreation, originalModified, originalAccess);
 
             case RANDOM:
-                LocalDateTime baseTime = determineBaseTime(
+                Instant baseTime = determineBaseTime(
                         timeConfig.getBaseOnPrevious(),
                         originalCreation, originalModified, originalAccess,
                         newCreationTime, newModifiedTime, newAccessTime
@@ -192,10 +171,10 @@ public class TimeRepairService {
      * 确定基准时间
      * 优先使用新计算的时间，如果没有则使用原始时间
      */
-    private LocalDateTime determineBaseTime(
+    private Instant determineBaseTime(
             RepairConfig.TimeAttribute baseOn,
-            LocalDateTime originalCreation, LocalDateTime originalModified, LocalDateTime originalAccess,
-            LocalDateTime newCreationTime, LocalDateTime newModifiedTime, LocalDateTime newAccessTime) {
+            Instant originalCreation, Instant originalModified, Instant originalAccess,
+            Instant newCreationTime, Instant newModifiedTime, Instant newAccessTime) {
 
         if (baseOn == null) {
             return newCreationTime != null ? newCreationTime : originalCreation;
@@ -214,9 +193,9 @@ public class TimeRepairService {
     }
 
     /**
-     * 应用随机偏移
+     * 应用随机偏移（按时长累加，不受夏令时切换影响）
      */
-    private LocalDateTime applyRandomOffset(LocalDateTime baseTime, RepairConfig.RandomOffset offset) {
+    private Instant applyRandomOffset(Instant baseTime, RepairConfig.RandomOffset offset) {
         if (offset == null) {
             return baseTime;
         }
@@ -226,14 +205,10 @@ public class TimeRepairService {
         int minutes = offset.getMinutesMin() + RANDOM.nextInt(Math.max(1, offset.getMinutesMax() - offset.getMinutesMin() + 1));
         int seconds = offset.getSecondsMin() + RANDOM.nextInt(Math.max(1, offset.getSecondsMax() - offset.getSecondsMin() + 1));
 
-        LocalDateTime newTime = baseTime
-                .plusDays(days)
-                .plusHours(hours)
-                .plusMinutes(minutes)
-                .plusSeconds(seconds);
+        Instant newTime = baseTime.plusSeconds(days * 86_400L + hours * 3_600L + minutes * 60L + seconds);
 
         // 确保不超过当前时间
-        LocalDateTime now = LocalDateTime.now();
+        Instant now = Instant.now();
         if (newTime.isAfter(now)) {
             newTime = now.minusSeconds(RANDOM.nextInt(300));
         }
@@ -244,9 +219,9 @@ public class TimeRepairService {
     /**
      * 获取原始时间
      */
-    private LocalDateTime getOriginalTime(
+    private Instant getOriginalTime(
             RepairConfig.TimeAttribute attribute,
-            LocalDateTime creation, LocalDateTime modified, LocalDateTime access) {
+            Instant creation, Instant modified, Instant access) {
 
         switch (attribute) {
             case CREATION_TIME: return creation;
@@ -259,18 +234,15 @@ public class TimeRepairService {
     /**
      * 生成修改时间：创建时间 + 随机 0-30 天
      */
-    private LocalDateTime generateModifiedTime(LocalDateTime creationTime) {
+    private Instant generateModifiedTime(Instant creationTime) {
         int daysToAdd = RANDOM.nextInt(31); // 0-30 天
         int hoursToAdd = RANDOM.nextInt(25); // 0-24 小时
         int minutesToAdd = RANDOM.nextInt(61); // 0-60 分钟
 
-        LocalDateTime modifiedTime = creationTime
-                .plusDays(daysToAdd)
-                .plusHours(hoursToAdd)
-                .plusMinutes(minutesToAdd);
+        Instant modifiedTime = creationTime.plusSeconds(daysToAdd * 86_400L + hoursToAdd * 3_600L + minutesToAdd * 60L);
 
         // 确保不超过当前时间
-        LocalDateTime now = LocalDateTime.now();
+        Instant now = Instant.now();
         if (modifiedTime.isAfter(now)) {
             modifiedTime = now.minusSeconds(RANDOM.nextInt(3600)); // 当前时间之前 1 小时内
         }
@@ -281,18 +253,15 @@ public class TimeRepairService {
     /**
      * 生成访问时间：修改时间 + 随机 0-7 天
      */
-    private LocalDateTime generateAccessTime(LocalDateTime modifiedTime) {
+    private Instant generateAccessTime(Instant modifiedTime) {
         int daysToAdd = RANDOM.nextInt(8); // 0-7 天
         int hoursToAdd = RANDOM.nextInt(25); // 0-24 小时
         int minutesToAdd = RANDOM.nextInt(61); // 0-60 分钟
 
-        LocalDateTime accessTime = modifiedTime
-                .plusDays(daysToAdd)
-                .plusHours(hoursToAdd)
-                .plusMinutes(minutesToAdd);
+        Instant accessTime = modifiedTime.plusSeconds(daysToAdd * 86_400L + hoursToAdd * 3_600L + minutesToAdd * 60L);
 
         // 确保不超过当前时间
-        LocalDateTime now = LocalDateTime.now();
+        Instant now = Instant.now();
         if (accessTime.isAfter(now)) {
             accessTime = now.minusSeconds(RANDOM.nextInt(300)); // 当前时间之前 5 分钟内
         }
@@ -301,28 +270,59 @@ public class TimeRepairService {
     }
 
     /**
-     * 修复结果
+     * 配置中的固定时间（本地时间）换算为时间戳，结果按配置值缓存
+     * 夏令时切换造成的重复或跳过的本地时间按 ZonedDateTime 的默认规则处理（取较早的偏移 / 顺延）
+     */
+    private Instant fixedInstant(LocalDateTime localTime) {
+        FixedTime cached = fixedTime;
+        if (cached == null || !cached.localTime.equals(localTime)) {
+            cached = new FixedTime(localTime, localTime.atZone(ZoneId.systemDefault()).toInstant());
+            fixedTime = cached;
+        }
+        return cached.instant;
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant() : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant time) {
+        return LocalDateTime.ofInstant(time, ZoneId.systemDefault());
+    }
+
+    private static class FixedTime {
+        private final LocalDateTime localTime;
+        private final Instant instant;
+
+        FixedTime(LocalDateTime localTime, Instant instant) {
+            this.localTime = localTime;
+            this.instant = instant;
+        }
+    }
+
+    /**
+     * 修复结果（时间戳，显示时再按时区转换）
      */
     public static class RepairResult {
-        private final LocalDateTime creationTime;
-        private final LocalDateTime modifiedTime;
-        private final LocalDateTime accessTime;
+        private final FileTime creationTime;
+        private final FileTime modifiedTime;
+        private final FileTime accessTime;
 
-        public RepairResult(LocalDateTime creationTime, LocalDateTime modifiedTime, LocalDateTime accessTime) {
+        public RepairResult(FileTime creationTime, FileTime modifiedTime, FileTime accessTime) {
             this.creationTime = creationTime;
             this.modifiedTime = modifiedTime;
             this.accessTime = accessTime;
         }
 
-        public LocalDateTime getCreationTime() {
+        public FileTime getCreationTime() {
             return creationTime;
         }
 
-        public LocalDateTime getModifiedTime() {
+        public FileTime getModifiedTime() {
             return modifiedTime;
         }
 
-        public LocalDateTime getAccessTime() {
+        public FileTime getAccessTime() {
             return accessTime;
         }
     }
@@ -1,64 +1,283 @@
 package com.aypak.filetimecheck.service;
 
 import com.aypak.filetimecheck.model.FileInfo;
+import com.aypak.filetimecheck.model.FileResultStore;
+import com.aypak.filetimecheck.model.RuleSet;
+import com.aypak.filetimecheck.model.TimeFence;
 import com.aypak.filetimecheck.model.ValidationResult;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
 
 /**
  * 文件时间校验服务
+ * 一次检查全部规则，结果为违规位掩码，同时违反的多条规则一并报告；规则由 RuleSet 编译为条件链，默认只含内置规则
+ * 单个文件按调用时刻校验；批量校验整个列表时全部行使用同一个参考时间，循环内只比较 long，不分配对象
  */
 public class TimeValidationService {
 
+    // 批量校验每次从存储复制的行数
+    private static final int CHUNK_SIZE = 8192;
+
+    private final RuleSet ruleSet;
+
+    public TimeValidationService() {
+        this(RuleSet.builtIn());
+    }
+
+    public TimeValidationService(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
     /**
      * 校验文件时间是否合理
      */
     public ValidationResult validate(FileInfo fileInfo) {
-        LocalDateTime created = fileInfo.getCreationTime();
-        LocalDateTime modified = fileInfo.getLastModifiedTime();
-        LocalDateTime accessed = fileInfo.getLastAccessTime();
+        return validate(fileInfo.getCreationTime(), fileInfo.getLastModifiedTime(), fileInfo.getLastAccessTime());
+    }
+
+    /**
+     * 按 epoch 毫秒校验（FileResultStore 中的时间），NO_TIME 视为缺失
+     * 直接比较时间戳，不做时区转换也不分配对象
+     */
+    public ValidationResult validate(long creationMillis, long modifiedMillis, long accessMillis) {
+        return validate(creationMillis, modifiedMillis, accessMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * 以给定的参考时间（epoch 毫秒）校验，只返回最主要的一项（见 ValidationResult.primary）
+     */
+    public ValidationResult validate(long creationMillis, long modifiedMillis, long accessMillis, long now) {
+        return ValidationResult.primary(violations(creationMillis, modifiedMillis, accessMillis, now));
+    }
+
+    /**
+     * 单次检查全部规则，返回违规位掩码（0 为正常），晚于 now（加容差）的时间视为未来时间
+     * 任何时间缺失时返回正常（某些文件系统可能不支持某些时间属性）
+     */
+    public int violations(long creationMillis, long modifiedMillis, long accessMillis, long now) {
+        return ruleSet.evaluate(creationMillis, modifiedMillis, accessMillis, now);
+    }
+
+    /**
+     * 目录的违规位掩码：文件规则加上按直接子项创建时间校验的目录规则（见 RuleSet.evaluateDirectory）
+     */
+    public int directoryViolations(long creationMillis, long modifiedMillis, long accessMillis,
+                                   long minChildCreation, long maxChildCreation, long now) {
+        return ruleSet.evaluateDirectory(creationMillis, modifiedMillis, accessMillis, minChildCreation, maxChildCreation, now);
+    }
+
+    /**
+     * 离群规则的违规位：修改时间在所在目录的离群边界以外（见 OutlierDetector）
+     * @param fence 所在目录的离群边界，可为 null
+     */
+    public int outlierViolations(long modifiedMillis, TimeFence fence) {
+        return ruleSet.evaluateOutlier(modifiedMillis, fence);
+    }
 
-        // 如果有任何时间为 null，返回正常（某些文件系统可能不支持某些时间属性）
-        if (created == null || modified == null || accessed == null) {
-            return ValidationResult.NORMAL;
+    /**
+     * 修改时间晚于状态变更时间规则的违规位（见 RuleSet.evaluateChange）
+     * @param changeMillis ctime，读不到时为 NO_TIME
+     */
+    public int changeViolations(long modifiedMillis, long changeMillis) {
+        return ruleSet.evaluateChange(modifiedMillis, changeMillis);
+    }
+
+    /**
+     * 按存储中的一行校验，目录行按目录规则校验（子项汇总为扫描时的值），
+     * 文件行另按扫描时得到的所在目录离群边界校验离群规则；两者都按读到的 ctime 校验修改时间
+     */
+    public int violations(FileResultStore store, int row, long now) {
+        int change = changeViolations(store.getModifiedTime(row), store.getChangeTime(row));
+        if (store.isDirectory(row)) {
+            return change | directoryViolations(store.getCreationTime(row), store.getModifiedTime(row), store.getAccessTime(row),
+                    store.getMinChildCreationTime(row), store.getMaxChildCreationTime(row), now);
         }
+        return change | violations(store.getCreationTime(row), store.getModifiedTime(row), store.getAccessTime(row), now)
+                | outlierViolations(store.getModifiedTime(row), store.getOutlierFence(row));
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime epoch = LocalDateTime.of(1970, 1, 1, 0, 0);
+    /**
+     * 当前时刻的违规位掩码
+     */
+    public int violations(long creationMillis, long modifiedMillis, long accessMillis) {
+        return violations(creationMillis, modifiedMillis, accessMillis, System.currentTimeMillis());
+    }
 
-        // 检查未来时间
-        if (created.isAfter(now) || modified.isAfter(now) || accessed.isAfter(now)) {
-            return ValidationResult.FUTURE_TIME;
+    /**
+     * 批量校验：第 i 行的违规位掩码写入 violations[offset + i]，
+     * 第 bit 位规则的违规行数累加到 counts[bit + 1]，正常行数累加到 counts[0]
+     * @param length 校验 times 数组开头的行数
+     * @param now 参考时间（epoch 毫秒），整批使用同一个值
+     * @return 本批中至少违反一条规则的行数
+     */
+    public int validate(long[] creationTimes, long[] modifiedTimes, long[] accessTimes, int length, long now,
+                        int[] violations, int offset, int[] counts) {
+        int abnormal = 0;
+        for (int i = 0; i < length; i++) {
+            int mask = ruleSet.evaluate(creationTimes[i], modifiedTimes[i], accessTimes[i], now);
+            violations[offset + i] = mask;
+            if (mask == 0) {
+                counts[0]++;
+                continue;
+            }
+            abnormal++;
+            for (int bit = 1; bit < counts.length; bit++) {
+                counts[bit] += (mask >>> (bit - 1)) & 1;
+            }
         }
+        return abnormal;
+    }
+
+    /**
+     * 以同一参考时间校验存储中的全部行，分块复制时间后逐块校验
+     * 可在后台线程调用（只读取存储），结果需回到 FX 线程用 FileResultStore.setViolations 写入
+     * @param cancelled 每块之前检查，返回 true 时停止，其余行保持未校验
+     * @param onChunk 每完成一块后回调（本块行数），可为 null
+     */
+    public BatchResult validateAll(FileResultStore store, long now, BooleanSupplier cancelled, IntConsumer onChunk) {
+        int total = store.size();
+        BatchResult result = new BatchResult(total, ruleSet.size(), now);
+        int chunk = Math.min(CHUNK_SIZE, Math.max(total, 1));
+        long[] creationTimes = new long[chunk];
+        long[] modifiedTimes = new long[chunk];
+        long[] accessTimes = new long[chunk];
 
-        // 检查 1970 年之前
-        if (created.isBefore(epoch) || modified.isBefore(epoch) || accessed.isBefore(epoch)) {
-            return ValidationResult.PRE_1970;
+        for (int from = 0; from < total; from += chunk) {
+            if (cancelled.getAsBoolean()) {
+                break;
+            }
+            int length = Math.min(chunk, total - from);
+            store.copyTimes(from, length, creationTimes, modifiedTimes, accessTimes);
+            result.abnormal += validate(creationTimes, modifiedTimes, accessTimes, length, now, result.violations, from, result.counts);
+            if (store.hasDirectories() || store.hasOutlierFences() || store.hasChangeTimes()) {
+                revalidateWithContext(store, from, length, now, result);
+            }
+            result.validated += length;
+            if (onChunk != null) {
+                onChunk.accept(length);
+            }
         }
+        return result;
+    }
 
-        // 检查修改时间是否早于创建时间
-        if (modified.isBefore(created)) {
-            return ValidationResult.MODIFIED_BEFORE_CREATED;
+    /**
+     * 按存储中的扫描汇总补充校验，并修正本块的计数（单独处理不影响批量循环）：
+     * 目录行改按目录规则校验，文件行补上离群规则和 ctime 规则
+     */
+    private void revalidateWithContext(FileResultStore store, int from, int length, long now, BatchResult result) {
+        for (int row = from; row < from + length; row++) {
+            int old = result.violations[row];
+            int mask;
+            if (store.isDirectory(row)) {
+                mask = violations(store, row, now);
+            } else {
+                mask = old | outlierViolations(store.getModifiedTime(row), store.getOutlierFence(row))
+                        | changeViolations(store.getModifiedTime(row), store.getChangeTime(row));
+            }
+            if (mask == old) {
+                continue;
+            }
+            result.violations[row] = mask;
+            count(old, result, -1);
+            count(mask, result, 1);
         }
+    }
 
-        // 检查访问时间是否早于修改时间
-        if (accessed.isBefore(modified)) {
-            return ValidationResult.ACCESSED_BEFORE_MODIFIED;
+    private static void count(int mask, BatchResult result, int delta) {
+        if (mask == 0) {
+            result.counts[0] += delta;
+            return;
+        }
+        result.abnormal += delta;
+        for (int bit = 1; bit < result.counts.length; bit++) {
+            result.counts[bit] += ((mask >>> (bit - 1)) & 1) * delta;
         }
+    }
 
-        return ValidationResult.NORMAL;
+    /**
+     * 按本地时间校验（FileInfo 使用），转换为 epoch 毫秒后校验
+     */
+    public ValidationResult validate(LocalDateTime created, LocalDateTime modified, LocalDateTime accessed) {
+        return validate(FileResultStore.toEpochMillis(created), FileResultStore.toEpochMillis(modified),
+                FileResultStore.toEpochMillis(accessed));
     }
 
     /**
      * 校验并更新 FileInfo 对象的状态
      */
     public void validateAndUpdate(FileInfo fileInfo) {
-        ValidationResult result = validate(fileInfo);
-        fileInfo.setStatus(result.getDisplayName());
-        if (!result.isValid()) {
-            fileInfo.setErrorMessage(result.getDisplayName());
+        int violations = violations(FileResultStore.toEpochMillis(fileInfo.getCreationTime()),
+                FileResultStore.toEpochMillis(fileInfo.getLastModifiedTime()),
+                FileResultStore.toEpochMillis(fileInfo.getLastAccessTime()));
+        fileInfo.setStatus(ruleSet.describe(violations));
+        if (violations != 0) {
+            fileInfo.setErrorMessage(ruleSet.describe(violations));
         } else {
             fileInfo.setErrorMessage("");
         }
     }
+
+    /**
+     * 批量校验结果：每行的违规位掩码（未校验为 FileResultStore.UNVALIDATED）和各规则的违规行数
+     */
+    public static class BatchResult {
+        private final int[] violations;
+        private final int[] counts;
+        private final long referenceTime;
+        private int validated;
+        private int abnormal;
+
+        BatchResult(int size, int rules, long referenceTime) {
+            this.violations = new int[size];
+            this.counts = new int[rules + 1];
+            this.referenceTime = referenceTime;
+            Arrays.fill(violations, FileResultStore.UNVALIDATED);
+        }
+
+        public int[] getViolations() {
+            return violations;
+        }
+
+        /**
+         * 已校验的正常行数
+         */
+        public int getNormalCount() {
+            return counts[0];
+        }
+
+        /**
+         * 违反第 bit 位规则的行数（一行可计入多条规则）
+         */
+        public int getRuleCount(int bit) {
+            return counts[bit + 1];
+        }
+
+        /**
+         * 已校验的异常行数（至少违反一条规则）
+         */
+        public int getAbnormalCount() {
+            return abnormal;
+        }
+
+        /**
+         * 已校验的行数（被取消时小于总行数）
+         */
+        public int getValidated() {
+            return validated;
+        }
+
+        /**
+         * 本批使用的参考时间（epoch 毫秒）
+         */
+        public long getReferenceTime() {
+            return referenceTime;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * 基于 "unix" 属性视图的后端
+ * 一次 readAttributes 调用（一次 stat）同时取得基本属性、ctime、inode 和设备号，不再为扩展属性另行 stat
+ * 该视图不提供出生时间，creationTime 与标准属性相同
+ */
+public class UnixAttributeReader implements FileAttributeReader {
+
+    private static final String ATTRIBUTES = "unix:size,lastModifiedTime,lastAccessTime,creationTime,"
+            + "isRegularFile,isDirectory,isSymbolicLink,ctime,ino,dev";
+
+    private static final LinkOption[] NOFOLLOW = {LinkOption.NOFOLLOW_LINKS};
+    private static final LinkOption[] FOLLOW = {};
+
+    @Override
+    public BasicFileAttributes read(Path path, boolean followLinks) throws IOException {
+        if (!followLinks) {
+            return read(path, NOFOLLOW);
+        }
+        try {
+            return read(path, FOLLOW);
+        } catch (IOException e) {
+            try {
+                return read(path, NOFOLLOW);
+            } catch (IOException ignored) {
+                throw e;
+            }
+        }
+    }
+
+    private static ExtendedFileAttributes read(Path path, LinkOption[] options) throws IOException {
+        Map<String, Object> map = Files.readAttributes(path, ATTRIBUTES, options);
+        int type;
+        if (Boolean.TRUE.equals(map.get("isRegularFile"))) {
+            type = ExtendedFileAttributes.REGULAR_FILE;
+        } else if (Boolean.TRUE.equals(map.get("isDirectory"))) {
+            type = ExtendedFileAttributes.DIRECTORY;
+        } else if (Boolean.TRUE.equals(map.get("isSymbolicLink"))) {
+            type = ExtendedFileAttributes.SYMBOLIC_LINK;
+        } else {
+            type = ExtendedFileAttributes.OTHER;
+        }
+        return new ExtendedFileAttributes((FileTime) map.get("lastModifiedTime"), (FileTime) map.get("lastAccessTime"),
+                (FileTime) map.get("creationTime"), (FileTime) map.get("ctime"), null,
+                (Long) map.get("size"), type, (Long) map.get("ino"), (Long) map.get("dev"));
+    }
+
+    @Override
+    public String getName() {
+        return "unix";
+    }
+}
@@ -0,0 +1,222 @@
+package com.aypak.filetimecheck.service;
+
+import com.aypak.filetimecheck.model.DirectorySummary;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 虚拟线程扫描引擎（需要 JDK 21+）
+ * 每次列目录和每次读属性都运行在独立的虚拟线程上，适合 SMB/NFS 等高延迟挂载点
+ * 每个根路径使用一个信号量限制同时进行中的元数据请求数
+ * 跟随链接时按 fileKey 记录已展开的目录，链接成环或多个链接指向同一目录时只展开一次
+ *
+ * 为了让默认的 JDK 17 构建仍可编译，虚拟线程执行器通过反射获取；
+ * 使用 -Pjdk21 构建时字节码级别提升到 21
+ */
+public class VirtualThreadFileTreeScanner implements ConcurrentTreeScanner {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final BooleanSupplier cancelled;
+    private final ScanFilterMatcher filter;
+    private final boolean followLinks;
+    private final FileAttributeReader reader;
+    private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param maxInFlight 每个根路径同时进行中的元数据请求上限
+     * @param cancelled 取消检查
+     */
+    public VirtualThreadFileTreeScanner(int maxInFlight, BooleanSupplier cancelled) {
+        this(maxInFlight, cancelled, ScanFilterMatcher.ACCEPT_ALL);
+    }
+
+    /**
+     * @param filter 过滤规则，被排除的目录不会被列举
+     */
+    public VirtualThreadFileTreeScanner(int maxInFlight, BooleanSupplier cancelled, ScanFilterMatcher filter) {
+        this(maxInFlight, cancelled, filter, false);
+    }
+
+    /**
+     * @param followLinks 是否跟随符号链接（含环检测）
+     */
+    public VirtualThreadFileTreeScanner(int maxInFlight, BooleanSupplier cancelled, ScanFilterMatcher filter,
+                                        boolean followLinks) {
+        this(maxInFlight, cancelled, filter, followLinks, FileAttributeReader.BASIC);
+    }
+
+    /**
+     * @param reader 属性后端
+     */
+    public VirtualThreadFileTreeScanner(int maxInFlight, BooleanSupplier cancelled, ScanFilterMatcher filter,
+                                        boolean followLinks, FileAttributeReader reader) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("虚拟线程扫描需要 JDK 21 或更高版本");
+        }
+        try {
+            this.executor = (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("无法创建虚拟线程执行器", e);
+        }
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.cancelled = cancelled;
+        this.filter = filter;
+        this.followLinks = followLinks;
+        this.reader = reader;
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void scan(Path root, FileTreeScanner.Listener listener) {
+        RootScan rootScan = new RootScan(root, new Semaphore(maxInFlight), listener);
+        try {
+            executor.submit(() -> rootScan.scanEntry(root, 0)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * 单个根路径的扫描上下文
+     */
+    private class RootScan {
+        private final Path root;
+        private final Semaphore permits;
+        private final FileTreeScanner.Listener listener;
+
+        RootScan(Path root, Semaphore permits, FileTreeScanner.Listener listener) {
+            this.root = root;
+            this.permits = permits;
+            this.listener = listener;
+        }
+
+        /**
+         * 读取单个条目的属性；目录继续展开，普通文件回调给监听器
+         * @return 条目的属性（计入所在目录的子项汇总），无法读取或已取消时返回 null
+         */
+        BasicFileAttributes scanEntry(Path entry, int depth) throws InterruptedException {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+
+            BasicFileAttributes attrs;
+            permits.acquire();
+            try {
+                attrs = FileTreeScanner.resolveFileLink(entry, reader.read(entry, followLinks), reader);
+            } catch (IOException e) {
+                listener.onError(entry, e);
+                return null;
+            } finally {
+                permits.release();
+            }
+
+            if (attrs.isDirectory()) {
+                if (filter.acceptDirectory(root, entry, depth)
+                        && (!followLinks || visitedDirectories.add(FileTreeScanner.directoryKey(entry, attrs)))) {
+                    scanDirectory(entry, attrs, depth);
+                }
+            } else if (attrs.isRegularFile() && filter.acceptFile(root, entry, attrs, depth)) {
+                listener.onFile(entry, attrs);
+            }
+            return attrs;
+        }
+
+        /**
+         * 列出目录后，为每个条目启动一个虚拟线程，等待全部完成后汇总子项并回调目录（后序）
+         */
+        private void scanDirectory(Path dir, BasicFileAttributes attrs, int depth) throws InterruptedException {
+            List<Path> entries = new ArrayList<>();
+            boolean listed = false;
+            permits.acquire();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    if (cancelled.getAsBoolean()) {
+                        break;
+                    }
+                    entries.add(entry);
+                }
+                listed = true;
+            } catch (IOException e) {
+                listener.onError(dir, e);
+            } catch (DirectoryIteratorException e) {
+                listener.onError(dir, e.getCause());
+            } finally {
+                permits.release();
+            }
+
+            List<Future<BasicFileAttributes>> children = new ArrayList<>(entries.size());
+            for (Path entry : entries) {
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+                children.add(executor.submit(() -> scanEntry(entry, depth + 1)));
+            }
+
+            DirectorySummary summary = new DirectorySummary();
+            for (Future<BasicFileAttributes> child : children) {
+                try {
+                    BasicFileAttributes childAttrs = child.get();
+                    if (childAttrs != null) {
+                        summary.add(childAttrs);
+                    }
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                }
+            }
+            if (listed && !cancelled.getAsBoolean()) {
+                listener.onDirectory(dir, attrs, summary);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.aypak.filetimecheck.service;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+/**
+ * 基于 Linux statx(2) 的后端（Foreign Function API，仅在 -Pstatx 构建中编译，需要 JDK 22+）
+ * 一次系统调用取得基本属性、ctime、inode、设备号和出生时间（stx_btime）
+ * statx 调用失败时改用 UnixAttributeReader 读取，以得到与标准后端一致的异常
+ * 运行时建议加 --enable-native-access=ALL-UNNAMED，避免 JDK 输出受限方法警告
+ */
+public class StatxAttributeReader implements FileAttributeReader {
+
+    private static final int AT_FDCWD = -100;
+    private static final int AT_SYMLINK_NOFOLLOW = 0x100;
+    private static final int STATX_BASIC_STATS = 0x7ff;
+    private static final int STATX_BTIME = 0x800;
+
+    // struct statx 布局（各架构相同）
+    private static final int STATX_SIZE = 256;
+    private static final long OFFSET_MASK = 0;
+    private static final long OFFSET_MODE = 28;
+    private static final long OFFSET_INO = 32;
+    private static final long OFFSET_SIZE = 40;
+    private static final long OFFSET_ATIME = 64;
+    private static final long OFFSET_BTIME = 80;
+    private static final long OFFSET_CTIME = 96;
+    private static final long OFFSET_MTIME = 112;
+    private static final long OFFSET_DEV_MAJOR = 136;
+    private static final long OFFSET_DEV_MINOR = 140;
+
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFREG = 0100000;
+    private static final int S_IFDIR = 0040000;
+    private static final int S_IFLNK = 0120000;
+
+    private static final MethodHandle STATX = findStatx();
+
+    private final UnixAttributeReader fallback = new UnixAttributeReader();
+
+    private StatxAttributeReader() {
+    }
+
+    /**
+     * 当前系统是否提供 statx
+     */
+    public static boolean isSupported() {
+        return STATX != null;
+    }
+
+    /**
+     * 探测 probe 所在卷：statx 可用且返回出生时间时创建后端，否则返回 null
+     */
+    public static FileAttributeReader create(Path probe) {
+        if (STATX == null) {
+            return null;
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment buffer = arena.allocate(STATX_SIZE, 8);
+            if (statx(arena, probe, AT_SYMLINK_NOFOLLOW, buffer) != 0) {
+                return null;
+            }
+            return (buffer.get(ValueLayout.JAVA_INT, OFFSET_MASK) & STATX_BTIME) != 0 ? new StatxAttributeReader() : null;
+        }
+    }
+
+    private static MethodHandle findStatx() {
+        try {
+            Linker linker = Linker.nativeLinker();
+            return linker.defaultLookup().find("statx")
+                    .map(address -> linker.downcallHandle(address, FunctionDescriptor.of(ValueLayout.JAVA_INT,
+                            ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT,
+                            ValueLayout.ADDRESS)))
+                    .orElse(null);
+        } catch (RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static int statx(Arena arena, Path path, int flags, MemorySegment buffer) {
+        try {
+            return (int) STATX.invokeExact(AT_FDCWD, arena.allocateFrom(path.toString()), flags,
+                    STATX_BASIC_STATS | STATX_BTIME, buffer);
+        } catch (Throwable e) {
+            throw new IllegalStateException("statx 调用失败", e);
+        }
+    }
+
+    @Override
+    public BasicFileAttributes read(Path path, boolean followLinks) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment buffer = arena.allocate(STATX_SIZE, 8);
+            if (statx(arena, path, followLinks ? 0 : AT_SYMLINK_NOFOLLOW, buffer) != 0
+                    && (!followLinks || statx(arena, path, AT_SYMLINK_NOFOLLOW, buffer) != 0)) {
+                // 由 unix 视图重新读取以抛出具体的异常（不存在、无权限等）
+                return fallback.read(path, followLinks);
+            }
+            return toAttributes(buffer);
+        }
+    }
+
+    private static ExtendedFileAttributes toAttributes(MemorySegment buffer) {
+        int mask = buffer.get(ValueLayout.JAVA_INT, OFFSET_MASK);
+        int mode = buffer.get(ValueLayout.JAVA_SHORT, OFFSET_MODE) & 0xffff;
+        int type;
+        switch (mode & S_IFMT) {
+            case S_IFREG:
+                type = ExtendedFileAttributes.REGULAR_FILE;
+                break;
+            case S_IFDIR:
+                type = ExtendedFileAttributes.DIRECTORY;
+                break;
+            case S_IFLNK:
+                type = ExtendedFileAttributes.SYMBOLIC_LINK;
+                break;
+            default:
+                type = ExtendedFileAttributes.OTHER;
+                break;
+        }
+
+        FileTime modified = time(buffer, OFFSET_MTIME);
+        FileTime birth = (mask & STATX_BTIME) != 0 ? time(buffer, OFFSET_BTIME) : null;
+        long major = buffer.get(ValueLayout.JAVA_INT, OFFSET_DEV_MAJOR) & 0xffffffffL;
+        long minor = buffer.get(ValueLayout.JAVA_INT, OFFSET_DEV_MINOR) & 0xffffffffL;
+        return new ExtendedFileAttributes(modified, time(buffer, OFFSET_ATIME), modified, time(buffer, OFFSET_CTIME), birth,
+                buffer.get(ValueLayout.JAVA_LONG, OFFSET_SIZE), type, buffer.get(ValueLayout.JAVA_LONG, OFFSET_INO),
+                makedev(major, minor));
+    }
+
+    @Override
+    public String getName() {
+        return "statx";
+    }
+
+    /**
+     * struct statx_timestamp { __s64 tv_sec; __u32 tv_nsec; }
+     */
+    private static FileTime time(MemorySegment buffer, long offset) {
+        long seconds = buffer.get(ValueLayout.JAVA_LONG, offset);
+        long nanos = buffer.get(ValueLayout.JAVA_INT, offset + 8) & 0xffffffffL;
+        return FileTime.from(Instant.ofEpochSecond(seconds, nanos));
+    }
+
+    /**
+     * 与 glibc makedev 相同的编码，使 fileKey 与 JDK 的 st_dev 一致
+     */
+    private static long makedev(long major, long minor) {
+        return ((major & 0xfffff000L) << 32) | ((major & 0xfffL) << 8)
+                | ((minor & 0xffffff00L) << 12) | (minor & 0xffL);
+    }
+}